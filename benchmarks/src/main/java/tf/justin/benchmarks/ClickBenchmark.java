@@ -0,0 +1,93 @@
+package tfmc.justin.benchmarks;
+
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tfmc.justin.managers.SurgerySession;
+import tfmc.justin.rules.BuiltInTool;
+import tfmc.justin.rules.PatientStatus;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// ==============================================
+// One click in the surgery menu, from SurgeryItemHandler.handleItemClick
+// through the rules to the menu and chat writes
+// The surgeon clicks the tools in the menu in turn. When a surgery ends,
+// the next click starts a new one first, as the next /surgery would
+// ==============================================
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClickBenchmark {
+
+    // Surgeries still going after this many moves are abandoned, so the move log stays small
+    private static final int MAX_MOVES = 200;
+
+    private SurgeryFixture fixture;
+    private Player surgeon;
+    private SurgerySession session;
+    private int lastSlot;
+    private int clicks;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        fixture = new SurgeryFixture();
+        surgeon = fixture.addSurgeon();
+        startSurgery();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public void handleItemClick() {
+        if (session.isEnded() || session.getMoves().size() >= MAX_MOVES) {
+            fixture.stateManager.cleanup(surgeon.getUniqueId());
+            startSurgery();
+        }
+
+        // No tool can be used more often than this between refills
+        if (++clicks % (SurgeryFixture.STACK_SIZE / 2) == 0) {
+            fixture.stockTools(surgeon);
+        }
+
+        int slot = nextTool();
+        fixture.itemHandler.handleItemClick(surgeon, session, session.getMenu().getItem(slot), slot);
+    }
+
+    private void startSurgery() {
+        session = fixture.startSurgery(surgeon);
+        lastSlot = -1;
+    }
+
+    // ==============================================
+    // The next tool in the menu after the last one clicked
+    // Cutting an awake patient ends the surgery at once, so the scalpel
+    // waits for the anesthetic
+    // ==============================================
+    private int nextTool() {
+        long tools = session.getToolsInMenu();
+        if (session.getStatus() == PatientStatus.AWAKE) {
+            tools &= ~(1L << BuiltInTool.SCALPEL.getSlot());
+        }
+        long after = tools & (-1L << (lastSlot + 1));
+        lastSlot = Long.numberOfTrailingZeros(after != 0 ? after : tools);
+        return lastSlot;
+    }
+}
@@ -0,0 +1,71 @@
+package tfmc.justin.benchmarks;
+
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tfmc.justin.managers.SurgeryConstants;
+import tfmc.justin.managers.SurgeryUIUpdater;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// ==============================================
+// Building the info blocks of the menu. Most blocks come prebuilt from
+// the render cache; these are the paths that still run per move
+// ==============================================
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+
+    private final String name = ChatColor.GOLD + "Diagnosis";
+    private final String description = ChatColor.GRAY + "The patient suffers from Broken Leg";
+    private final List<String> lore = List.of(description,
+        ChatColor.YELLOW + "Broken Bones: " + ChatColor.GRAY + 2,
+        ChatColor.RED + "Shattered Bones: " + ChatColor.GRAY + 1);
+
+    // Steps through the displayed range so the formatting isn't folded away
+    private double temperature = 95.0;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        MockBukkit.mock();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        MockBukkit.unmock();
+    }
+
+    @Benchmark
+    public ItemStack createInfoBlock() {
+        return SurgeryUIUpdater.createInfoBlock(Material.YELLOW_CONCRETE, name, description);
+    }
+
+    @Benchmark
+    public ItemStack createInfoBlockWithLore() {
+        return SurgeryUIUpdater.createInfoBlock(Material.LIME_CONCRETE, name, lore);
+    }
+
+    @Benchmark
+    public String formatTemperature() {
+        temperature = temperature >= 110.0 ? 95.0 : temperature + 0.1;
+        return SurgeryConstants.formatTemperature(temperature);
+    }
+}
@@ -0,0 +1,92 @@
+package tfmc.justin.benchmarks;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tfmc.justin.rules.BuiltInTool;
+import tfmc.justin.rules.DiagnosisIndex;
+import tfmc.justin.rules.DiagnosisProfile;
+import tfmc.justin.rules.MoveResult;
+import tfmc.justin.rules.SurgeryMoveLog;
+import tfmc.justin.rules.SurgeryRules;
+import tfmc.justin.rules.SurgeryState;
+import tfmc.justin.rules.SurgeryTuning;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+// ==============================================
+// One move through SurgeryRules, which runs the per-move effects and the
+// diagnosis mechanic before the tool, for one diagnosis per mechanic
+// ("Nose Job" has none). Needs no server
+// ==============================================
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RulesBenchmark {
+
+    // Tools that are in the menu from the start and never end the surgery by themselves
+    private static final BuiltInTool[] TOOLS = {
+        BuiltInTool.ANESTHETIC, BuiltInTool.ANTISEPTIC, BuiltInTool.SPONGE, BuiltInTool.LAB_KIT, BuiltInTool.TRANSFUSION
+    };
+
+    // Patients still alive after this many moves are replaced, so the move log stays small
+    private static final int MAX_MOVES = 200;
+
+    @Param({"Nose Job", "Moldy Guts", "Fatty Liver", "Broken Heart", "Arcane Infection", "Lupus", "Paper Cuts", "Ecto-Bones"})
+    public String diagnosis;
+
+    private SurgeryTuning tuning;
+    private DiagnosisIndex diagnoses;
+    private DiagnosisProfile profile;
+    private final MoveResult result = new MoveResult();
+    private SurgeryState state;
+    private long seed;
+    private int move;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        YamlConfiguration config = SurgeryFixture.bundledConfig();
+        tuning = SurgeryTuning.fromConfig(config);
+        diagnoses = DiagnosisIndex.fromConfig(config);
+        profile = diagnoses.get(diagnosis);
+        if (profile == null) {
+            throw new IllegalStateException("The bundled config has no diagnosis " + diagnosis);
+        }
+        newPatient();
+    }
+
+    @Benchmark
+    public MoveResult play() {
+        if (state.isOver() || state.getMoves().size() >= MAX_MOVES) {
+            newPatient();
+        }
+
+        BuiltInTool tool = TOOLS[move++ % TOOLS.length];
+        result.clear();
+        SurgeryRules.play(state, tool.getSlot(), tool, result);
+        return result;
+    }
+
+    // ==============================================
+    // A freshly set up patient who already has the diagnosis
+    // ==============================================
+    private void newPatient() {
+        state = new SurgeryState(tuning, diagnoses, seed++, new SurgeryMoveLog());
+        SurgeryRules.setUp(state, BuiltInTool.startingTools());
+        state.setDiagnosis(profile);
+    }
+}
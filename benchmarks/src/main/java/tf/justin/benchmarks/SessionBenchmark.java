@@ -0,0 +1,63 @@
+package tfmc.justin.benchmarks;
+
+import org.bukkit.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import tfmc.justin.managers.SurgerySession;
+
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// ==============================================
+// Starting and cleaning up a surgery in SurgeryStateManager, on its own
+// and together with setting up the patient and opening the menu
+// ==============================================
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionBenchmark {
+
+    private SurgeryFixture fixture;
+    private Player surgeon;
+    private UUID surgeonId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        fixture = new SurgeryFixture();
+        surgeon = fixture.addSurgeon();
+        surgeonId = surgeon.getUniqueId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public SurgerySession createAndCleanup() {
+        SurgerySession session = fixture.stateManager.createSession(surgeonId, fixture.patientId, "Patient", fixture.snapshot);
+        fixture.stateManager.cleanup(surgeonId);
+        return session;
+    }
+
+    @Benchmark
+    public SurgerySession openMenuAndCleanup() {
+        SurgerySession session = fixture.startSurgery(surgeon);
+        fixture.stateManager.cleanup(surgeonId);
+        return session;
+    }
+}
@@ -0,0 +1,28 @@
+package tfmc.justin.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// ==============================================
+// Entry point of benchmarks.jar
+// Takes the usual JMH options and always adds the GC profiler, so every
+// run reports gc.alloc.rate.norm (bytes allocated per operation)
+// ==============================================
+public final class SurgeryBenchmarks {
+
+    private SurgeryBenchmarks() {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        Options options = new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
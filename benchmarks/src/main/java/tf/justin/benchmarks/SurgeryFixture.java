@@ -0,0 +1,181 @@
+package tfmc.justin.benchmarks;
+
+import me.Plugins.TLibs.Objects.API.ItemAPI;
+import org.bukkit.ChatColor;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.Sound;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.mockbukkit.mockbukkit.MockBukkit;
+import org.mockbukkit.mockbukkit.ServerMock;
+import org.mockbukkit.mockbukkit.entity.PlayerMock;
+import org.mockito.Mockito;
+import tfmc.justin.managers.SurgeryCompletionHandler;
+import tfmc.justin.managers.SurgeryConfigManager;
+import tfmc.justin.managers.SurgeryHistory;
+import tfmc.justin.managers.SurgeryItemHandler;
+import tfmc.justin.managers.SurgeryItemsConfig;
+import tfmc.justin.managers.SurgeryMenuBuilder;
+import tfmc.justin.managers.SurgeryMetrics;
+import tfmc.justin.managers.SurgeryOutcomeBus;
+import tfmc.justin.managers.SurgerySession;
+import tfmc.justin.managers.SurgerySnapshot;
+import tfmc.justin.managers.SurgeryStateManager;
+import tfmc.justin.managers.SurgeryUIUpdater;
+import tfmc.justin.managers.SurgicalTool;
+import tfmc.justin.managers.SurgicalToolRegistry;
+import tfmc.justin.rules.SurgeryTuning;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.UUID;
+
+// ==============================================
+// The surgery managers wired up the way SurgeryMenuManager does it, on a
+// MockBukkit server with a stubbed TLibs item API
+// The history is never started and nothing ticks the outcome bus, so
+// finished surgeries cost what they cost on the click that ends them
+// ==============================================
+final class SurgeryFixture {
+
+    private static final List<String> BUNDLED_FILES = List.of("config.yml", "messages.yml", "surgeryItemsConfig.yml");
+
+    // Size of the surgeon's tool stacks; benchmarks refill them before they run out
+    static final int STACK_SIZE = 64;
+
+    final ServerMock server;
+    final JavaPlugin plugin;
+    final SurgicalToolRegistry toolRegistry;
+    final SurgeryConfigManager configManager;
+    final SurgeryStateManager stateManager;
+    final SurgeryUIUpdater uiUpdater;
+    final SurgeryMenuBuilder menuBuilder;
+    final SurgeryCompletionHandler completionHandler;
+    final SurgeryItemHandler itemHandler;
+    final SurgerySnapshot snapshot;
+    final UUID patientId = UUID.randomUUID();
+
+    SurgeryFixture() throws IOException {
+        server = MockBukkit.mock();
+        plugin = MockBukkit.createMockPlugin();
+        copyBundledFiles(plugin.getDataFolder());
+
+        // TLibs builds real items from its paths; any item with the path as its name will do
+        ItemAPI api = Mockito.mock(ItemAPI.class, Mockito.RETURNS_DEEP_STUBS);
+        Mockito.when(api.getCreator().getItemFromPath(Mockito.anyString()))
+            .thenAnswer(call -> toolItem(call.getArgument(0)));
+
+        toolRegistry = new SurgicalToolRegistry();
+        SurgeryOutcomeBus outcomeBus = new SurgeryOutcomeBus(plugin);
+        SurgeryHistory history = new SurgeryHistory(plugin);
+        SurgeryMetrics metrics = new SurgeryMetrics(plugin);
+        configManager = new SurgeryConfigManager(plugin, api, toolRegistry);
+        stateManager = new SurgeryStateManager();
+        uiUpdater = new SurgeryUIUpdater(plugin, configManager);
+        completionHandler = new SurgeryCompletionHandler(stateManager, uiUpdater, outcomeBus, history, metrics);
+        menuBuilder = new SurgeryMenuBuilder(plugin, uiUpdater, toolRegistry, metrics);
+        itemHandler = new SurgeryItemHandler(plugin, uiUpdater, completionHandler, toolRegistry, metrics);
+        snapshot = configManager.load(new SurgeryItemsConfig(plugin));
+
+        SurgeryTuning tuning = snapshot.getTuning();
+        outcomeBus.configure(tuning.getOutcomesPerTick(), tuning.getOutcomeQueueCapacity());
+    }
+
+    // ==============================================
+    // Adds a surgeon carrying a full stack of every tool
+    // ==============================================
+    Player addSurgeon() {
+        PlayerMock surgeon = new QuietPlayer(server, "Surgeon", UUID.randomUUID());
+        server.addPlayer(surgeon);
+        stockTools(surgeon);
+        return surgeon;
+    }
+
+    // ==============================================
+    // Refills the surgeon's tool stacks, one inventory slot per tool
+    // ==============================================
+    void stockTools(Player surgeon) {
+        int inventorySlot = 0;
+        for (SurgicalTool tool : toolRegistry.getTools()) {
+            ItemStack stack = snapshot.getItemTemplates().get(tool.getSlot()).clone();
+            stack.setAmount(STACK_SIZE);
+            surgeon.getInventory().setItem(inventorySlot++, stack);
+        }
+    }
+
+    // ==============================================
+    // Starts a surgery the way /surgery <player> does
+    // ==============================================
+    SurgerySession startSurgery(Player surgeon) {
+        SurgerySession session = stateManager.createSession(surgeon.getUniqueId(), patientId, "Patient", snapshot);
+        menuBuilder.buildAndOpenMenu(surgeon, session);
+        return session;
+    }
+
+    void close() {
+        MockBukkit.unmock();
+    }
+
+    // ==============================================
+    // Reads the config.yml bundled with the plugin; needs no server
+    // ==============================================
+    static YamlConfiguration bundledConfig() throws IOException {
+        try (InputStream in = bundled("config.yml")) {
+            return YamlConfiguration.loadConfiguration(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+    }
+
+    private static void copyBundledFiles(File dataFolder) throws IOException {
+        dataFolder.mkdirs();
+        for (String name : BUNDLED_FILES) {
+            try (InputStream in = bundled(name)) {
+                Files.copy(in, new File(dataFolder, name).toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    private static InputStream bundled(String name) throws IOException {
+        InputStream in = SurgeryFixture.class.getResourceAsStream("/" + name);
+        if (in == null) {
+            throw new IOException("The plugin jar has no " + name);
+        }
+        return in;
+    }
+
+    private static ItemStack toolItem(String path) {
+        ItemStack item = new ItemStack(Material.PAPER);
+        ItemMeta meta = item.getItemMeta();
+        meta.setDisplayName(ChatColor.WHITE + path);
+        item.setItemMeta(meta);
+        return item;
+    }
+
+    // ==============================================
+    // A player that drops chat and sounds instead of recording them,
+    // so long runs don't fill the heap with them
+    // ==============================================
+    private static final class QuietPlayer extends PlayerMock {
+
+        private QuietPlayer(ServerMock server, String name, UUID uuid) {
+            super(server, name, uuid);
+        }
+
+        @Override
+        public void sendMessage(String message) {
+        }
+
+        @Override
+        public void playSound(Location location, Sound sound, float volume, float pitch) {
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package tfmc.justin.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import tfmc.justin.utils.Utils;
+
+import java.util.concurrent.TimeUnit;
+
+// ==============================================
+// Colour code translation of messages.yml lines, with and without hex colours
+// ==============================================
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TextBenchmark {
+
+    @Param({"&7The patient is &cbleeding&7! Use the &esponge&7 or a &eclamp&7.",
+            "#ff5555The patient is #ffaa00bleeding&7! Use the #55ff55sponge&7 or a #55ff55clamp&7."})
+    public String message;
+
+    @Benchmark
+    public String colorize() {
+        return Utils.colorize(message);
+    }
+}
@@ -1,78 +1,511 @@
 package tfmc.justin.commands;
 
 import org.bukkit.Bukkit;
-import org.bukkit.ChatColor;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
+import tfmc.justin.managers.LatencyHistogram;
+import tfmc.justin.managers.SurgeryHints;
+import tfmc.justin.managers.SurgeryHistory;
 import tfmc.justin.managers.SurgeryMenuManager;
+import tfmc.justin.managers.SurgeryMetrics;
+import tfmc.justin.managers.SurgeryReplayer;
+import tfmc.justin.managers.SurgerySession;
+import tfmc.justin.managers.SurgeryStats;
+import tfmc.justin.managers.SurgicalTool;
+import tfmc.justin.managers.SurgicalToolRegistry;
+import tfmc.justin.rules.PolicyTable;
 import tfmc.justin.surgery;
 
-import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 public class SurgeryCommand implements CommandExecutor {
     
+    // Diagnoses and failures shown by /surgery stats without a name
+    private static final int TOP_METRICS = 5;
+    
     private final SurgeryMenuManager menuManager;
     private final surgery plugin;
-    private final FileConfiguration messages;
     
     public SurgeryCommand(SurgeryMenuManager menuManager, surgery plugin) {
         this.menuManager = menuManager;
         this.plugin = plugin;
-        
-        File messagesFile = new File(plugin.getDataFolder(), "messages.yml");
-        if (!messagesFile.exists()) {
-            plugin.saveResource("messages.yml", false);
-        }
-        this.messages = YamlConfiguration.loadConfiguration(messagesFile);
     }
     
     @Override
     public boolean onCommand(CommandSender sender, Command command, String label, String[] args) {
+        // Reload works from the console too
+        if (args.length == 1 && args[0].equalsIgnoreCase("reload")) {
+            handleReload(sender);
+            return true;
+        }
+        
+        // So do stats, for a surgeon or a diagnosis (which may contain spaces),
+        // or for the server if no name is given
+        if (args.length == 1 && args[0].equalsIgnoreCase("stats")) {
+            handleMetrics(sender);
+            return true;
+        }
+        if (args.length >= 2 && args[0].equalsIgnoreCase("stats")) {
+            handleStats(sender, String.join(" ", Arrays.copyOfRange(args, 1, args.length)));
+            return true;
+        }
+        
+        if (args.length >= 1 && args[0].equalsIgnoreCase("replay")) {
+            handleReplay(sender, args);
+            return true;
+        }
+        
+        // Admin commands, also from the console
+        if (args.length == 1 && args[0].equalsIgnoreCase("list")) {
+            handleList(sender);
+            return true;
+        }
+        if (args.length >= 1 && args[0].equalsIgnoreCase("inspect")) {
+            handleInspect(sender, args);
+            return true;
+        }
+        if (args.length >= 1 && args[0].equalsIgnoreCase("abort")) {
+            handleAbort(sender, args);
+            return true;
+        }
+        
         if (!(sender instanceof Player)) {
-            sender.sendMessage(ChatColor.translateAlternateColorCodes('&', 
-                messages.getString("command-console", "&cThis command can only be used by players.")));
+            sender.sendMessage(getMessage("command-console", "&cThis command can only be used by players."));
             return true;
         }
         
         Player surgeon = (Player) sender;
         
+        if (args.length == 1 && args[0].equalsIgnoreCase("hint")) {
+            handleHint(surgeon);
+            return true;
+        }
+        
+        if (args.length >= 1 && args[0].equalsIgnoreCase("watch")) {
+            handleWatch(surgeon, args);
+            return true;
+        }
+        
         // Check if player name is provided in command
         if (args.length == 0) {
-            surgeon.sendMessage(ChatColor.translateAlternateColorCodes('&', 
-                messages.getString("command-usage", "&cUsage: /surgery <player_name>")));
+            surgeon.sendMessage(getMessage("command-usage", "&cUsage: /surgery <player_name>"));
             return true;
         }
         
         // Get the target player (patient)
         Player patient = Bukkit.getPlayer(args[0]);
         if (patient == null || !patient.isOnline()) {
-            surgeon.sendMessage(ChatColor.translateAlternateColorCodes('&', 
-                messages.getString("command-player-not-found", "&cPlayer not found or not online!")));
+            surgeon.sendMessage(getMessage("command-player-not-found", "&cPlayer not found or not online!"));
             return true;
         }
         
         // Check if trying to "operate" on self
         if (patient.getUniqueId().equals(surgeon.getUniqueId())) {
-            surgeon.sendMessage(ChatColor.translateAlternateColorCodes('&', 
-                messages.getString("command-self-surgery", "&cYou cannot perform surgery on yourself!")));
+            surgeon.sendMessage(getMessage("command-self-surgery", "&cYou cannot perform surgery on yourself!"));
             return true;
         }
         
         // Check if patient is within config distance
-        double maxDistance = plugin.getConfig().getDouble("max-surgery-distance", 5.0);
+        double maxDistance = menuManager.getConfigManager().getSnapshot().getTuning().getMaxSurgeryDistance();
         if (surgeon.getLocation().distance(patient.getLocation()) > maxDistance) {
-            surgeon.sendMessage(ChatColor.translateAlternateColorCodes('&', 
-                messages.getString("command-too-far", "&cThe patient must be within 5 blocks of you!")));
+            surgeon.sendMessage(getMessage("command-too-far", "&cThe patient must be within 5 blocks of you!"));
             return true;
         }
         
         // Open surgery menu for the player, operating on the specified "patient"
-        menuManager.openSurgeryMenu(surgeon, patient);
+        switch (menuManager.openSurgeryMenu(surgeon, patient)) {
+            case PATIENT_BUSY:
+                surgeon.sendMessage(getMessage("command-patient-busy", "&c%patient% is already being operated on.")
+                    .replace("%patient%", patient.getName()));
+                break;
+            case SERVER_FULL:
+                surgeon.sendMessage(getMessage("command-server-full", "&cToo many surgeries are in progress, try again later."));
+                break;
+            case RESUME_HELD:
+                surgeon.sendMessage(getMessage("command-resume-held", "&cYou have a surgery on hold, it resumes once there is room for it."));
+                break;
+            default:
+                break;
+        }
         
         return true;
     }
+    
+    // ==============================================
+    // Reloads config.yml, messages.yml and surgeryItemsConfig.yml
+    // ==============================================
+    private void handleReload(CommandSender sender) {
+        if (!sender.hasPermission("surgery.reload")) {
+            sender.sendMessage(getMessage("command-no-permission", "&cYou do not have permission to do that."));
+            return;
+        }
+        
+        boolean started = menuManager.reload(
+            snapshot -> sender.sendMessage(getMessage("command-reload-success", "&aSurgery config reloaded (version %version%).")
+                .replace("%version%", String.valueOf(snapshot.getVersion()))),
+            e -> {
+                plugin.getLogger().warning("[Surgery] Reload failed: " + e.getMessage());
+                sender.sendMessage(getMessage("command-reload-failed", "&cReload failed, the previous config is still active. See console."));
+            });
+        
+        if (!started) {
+            sender.sendMessage(getMessage("command-reload-busy", "&eA reload is already in progress."));
+        }
+    }
+    
+    // ==============================================
+    // Shows the recorded totals for a surgeon or a diagnosis
+    // ==============================================
+    private void handleStats(CommandSender sender, String name) {
+        if (!sender.hasPermission("surgery.stats")) {
+            sender.sendMessage(getMessage("command-no-permission", "&cYou do not have permission to do that."));
+            return;
+        }
+        
+        if (name.isEmpty()) {
+            sender.sendMessage(getMessage("stats-usage", "&cUsage: /surgery stats <player|diagnosis>"));
+            return;
+        }
+        
+        SurgeryHistory history = menuManager.getHistory();
+        if (!history.isEnabled()) {
+            sender.sendMessage(getMessage("stats-disabled", "&cSurgery history is turned off."));
+            return;
+        }
+        if (!history.isLoaded()) {
+            sender.sendMessage(getMessage("stats-loading", "&eSurgery history is still loading, try again in a moment."));
+            return;
+        }
+        
+        // Diagnosis names are checked first, as they can't clash with a player name containing spaces
+        SurgeryStats stats = history.getDiagnosisStats(name);
+        if (stats == null) {
+            stats = history.getSurgeonStats(name);
+        }
+        if (stats == null) {
+            sender.sendMessage(getMessage("stats-not-found", "&cNo surgeries recorded for %name%.").replace("%name%", name));
+            return;
+        }
+        
+        sender.sendMessage(getMessage("stats-header", "&6Surgery stats for %name%").replace("%name%", stats.getName()));
+        sender.sendMessage(getMessage("stats-summary", "&7Surgeries: &f%total% &7Success rate: &f%rate%%")
+            .replace("%total%", String.valueOf(stats.getTotal()))
+            .replace("%rate%", String.format("%.1f", stats.getSuccessRate())));
+        sender.sendMessage(getMessage("stats-averages", "&7Average moves: &f%moves% &7Average time: &f%time%")
+            .replace("%moves%", String.format("%.1f", stats.getAverageMoves()))
+            .replace("%time%", formatDuration(stats.getAverageDurationMillis())));
+        
+        String topFailure = stats.getTopFailure();
+        if (topFailure != null) {
+            sender.sendMessage(getMessage("stats-top-failure", "&7Most common failure: &f%failure% &7(%count%)")
+                .replace("%failure%", topFailure.replace("failure-", ""))
+                .replace("%count%", String.valueOf(stats.getFailureCount(topFailure))));
+        }
+    }
+    
+    // ==============================================
+    // Shows how long the click path takes and what surgeries have done
+    // since the server started
+    // ==============================================
+    private void handleMetrics(CommandSender sender) {
+        if (!sender.hasPermission("surgery.metrics")) {
+            sender.sendMessage(getMessage("command-no-permission", "&cYou do not have permission to do that."));
+            return;
+        }
+        
+        SurgeryMetrics metrics = menuManager.getMetrics();
+        sender.sendMessage(getMessage("metrics-header", "&6Surgery metrics for the last %time%")
+            .replace("%time%", formatDuration(System.currentTimeMillis() - metrics.getStartedAt())));
+        sender.sendMessage(getMessage("metrics-summary", "&7Moves: &f%moves% &7Surgeries in progress: &f%sessions%")
+            .replace("%moves%", String.valueOf(metrics.getMoves()))
+            .replace("%sessions%", String.valueOf(menuManager.getStateManager().getSessionCount())));
+        
+        for (SurgeryMetrics.Phase phase : SurgeryMetrics.Phase.values()) {
+            sendLatency(sender, phase.getDisplayName(), metrics.getLatency(phase).snapshot());
+        }
+        
+        // Tools that have been used, with how often their skill check failed
+        for (int slot = 0; slot < SurgicalToolRegistry.MENU_SIZE; slot++) {
+            SurgicalTool tool = menuManager.getToolRegistry().get(slot);
+            LatencyHistogram histogram = metrics.getToolLatency(slot);
+            if (tool == null || histogram == null) {
+                continue;
+            }
+            sendLatency(sender, tool.getId(), histogram.snapshot());
+            long skillFails = metrics.getSkillFails(slot);
+            if (skillFails > 0) {
+                sender.sendMessage(getMessage("metrics-skill-fails", "&7  Skill fails: &f%count%")
+                    .replace("%count%", String.valueOf(skillFails)));
+            }
+        }
+        
+        List<Map.Entry<String, SurgeryMetrics.Outcomes>> outcomes = new ArrayList<>(metrics.getOutcomes().entrySet());
+        outcomes.sort(Comparator.comparingLong((Map.Entry<String, SurgeryMetrics.Outcomes> e) -> e.getValue().getTotal()).reversed());
+        for (Map.Entry<String, SurgeryMetrics.Outcomes> entry : outcomes.subList(0, Math.min(TOP_METRICS, outcomes.size()))) {
+            SurgeryMetrics.Outcomes tally = entry.getValue();
+            sender.sendMessage(getMessage("metrics-outcomes", "&7%diagnosis%: &f%successes% &7treated, &f%failures% &7failed")
+                .replace("%diagnosis%", entry.getKey().isEmpty() ? "undiagnosed" : entry.getKey())
+                .replace("%successes%", String.valueOf(tally.getSuccesses()))
+                .replace("%failures%", String.valueOf(tally.getFailures())));
+        }
+        
+        List<Map.Entry<String, LongAdder>> failures = new ArrayList<>(metrics.getFailures().entrySet());
+        failures.sort(Comparator.comparingLong((Map.Entry<String, LongAdder> e) -> e.getValue().sum()).reversed());
+        for (Map.Entry<String, LongAdder> entry : failures.subList(0, Math.min(TOP_METRICS, failures.size()))) {
+            sender.sendMessage(getMessage("metrics-failure", "&7Failed by %failure%: &f%count%")
+                .replace("%failure%", entry.getKey().replace("failure-", ""))
+                .replace("%count%", String.valueOf(entry.getValue().sum())));
+        }
+    }
+    
+    private void sendLatency(CommandSender sender, String name, LatencyHistogram.Snapshot snapshot) {
+        if (snapshot.getCount() == 0) {
+            return;
+        }
+        sender.sendMessage(getMessage("metrics-latency", "&7%name%: &fp50 %p50% &7p99 &f%p99% &7max &f%max% &7(%count%)")
+            .replace("%name%", name)
+            .replace("%p50%", SurgeryMetrics.formatMillis(snapshot.percentile(0.5)))
+            .replace("%p99%", SurgeryMetrics.formatMillis(snapshot.percentile(0.99)))
+            .replace("%max%", SurgeryMetrics.formatMillis(snapshot.getMax()))
+            .replace("%count%", String.valueOf(snapshot.getCount())));
+    }
+    
+    // ==============================================
+    // Re-runs a recorded surgery from the history, move by move
+    // ==============================================
+    private void handleReplay(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("surgery.replay")) {
+            sender.sendMessage(getMessage("command-no-permission", "&cYou do not have permission to do that."));
+            return;
+        }
+        
+        if (args.length != 2) {
+            sender.sendMessage(getMessage("replay-usage", "&cUsage: /surgery replay <id>"));
+            return;
+        }
+        
+        long seed;
+        try {
+            seed = SurgeryReplayer.parseId(args[1]);
+        } catch (NumberFormatException e) {
+            sender.sendMessage(getMessage("replay-not-found", "&cNo recorded surgery with id %id%.").replace("%id%", args[1]));
+            return;
+        }
+        
+        SurgeryHistory history = menuManager.getHistory();
+        if (!history.isEnabled()) {
+            sender.sendMessage(getMessage("stats-disabled", "&cSurgery history is turned off."));
+            return;
+        }
+        
+        history.findBySeed(seed, recorded -> {
+            if (recorded == null) {
+                sender.sendMessage(getMessage("replay-not-found", "&cNo recorded surgery with id %id%.").replace("%id%", args[1]));
+                return;
+            }
+            menuManager.getReplayer().replay(sender, recorded);
+        });
+    }
+    
+    // ==============================================
+    // Suggests the best tool for the surgeon's surgery in progress
+    // ==============================================
+    private void handleHint(Player surgeon) {
+        if (!surgeon.hasPermission("surgery.hint")) {
+            surgeon.sendMessage(getMessage("command-no-permission", "&cYou do not have permission to do that."));
+            return;
+        }
+        
+        SurgeryHints hints = menuManager.getHints();
+        if (!hints.isEnabled()) {
+            surgeon.sendMessage(getMessage("hint-disabled", "&cSurgery hints are turned off."));
+            return;
+        }
+        if (!hints.isLoaded()) {
+            surgeon.sendMessage(getMessage("hint-unavailable", "&eThere are no hints for the current config yet."));
+            return;
+        }
+        
+        SurgerySession session = menuManager.getStateManager().getSession(surgeon.getUniqueId());
+        if (session == null) {
+            surgeon.sendMessage(getMessage("hint-no-surgery", "&cYou are not performing a surgery."));
+            return;
+        }
+        
+        PolicyTable.Entry hint = hints.getHint(session);
+        SurgicalTool tool = hint != null ? menuManager.getToolRegistry().get(hint.getSlot()) : null;
+        if (tool == null) {
+            surgeon.sendMessage(getMessage("hint-none", "&7No hint for this surgery, you're on your own."));
+            return;
+        }
+        surgeon.sendMessage(getMessage("hint", "&7Best move: &f%tool% &7(%chance%% chance of success)")
+            .replace("%tool%", tool.getId())
+            .replace("%chance%", String.format("%.1f", hint.getChance() * 100)));
+    }
+    
+    // ==============================================
+    // Opens the live view of a surgery: the one on the player themselves,
+    // or one the named player is performing or undergoing
+    // ==============================================
+    private void handleWatch(Player viewer, String[] args) {
+        if (!viewer.hasPermission("surgery.watch")) {
+            viewer.sendMessage(getMessage("command-no-permission", "&cYou do not have permission to do that."));
+            return;
+        }
+        
+        if (args.length > 2) {
+            viewer.sendMessage(getMessage("watch-usage", "&cUsage: /surgery watch [player]"));
+            return;
+        }
+        
+        // Opening the view would close the viewer's own menu, which gives up
+        if (menuManager.getStateManager().hasSession(viewer.getUniqueId())) {
+            viewer.sendMessage(getMessage("watch-busy", "&cFinish your own surgery first."));
+            return;
+        }
+        
+        List<SurgerySession> sessions = args.length == 2
+            ? findSessions(args[1])
+            : menuManager.getStateManager().getSessionsOn(viewer.getUniqueId());
+        if (sessions.isEmpty()) {
+            if (args.length == 2) {
+                viewer.sendMessage(getMessage("inspect-not-found", "&c%name% is not in a surgery.").replace("%name%", args[1]));
+            } else {
+                viewer.sendMessage(getMessage("watch-none", "&cNobody is operating on you."));
+            }
+            return;
+        }
+        menuManager.getMenuBuilder().openView(viewer, sessions.get(0));
+    }
+    
+    // ==============================================
+    // Lists every surgery in progress, oldest first
+    // ==============================================
+    private void handleList(CommandSender sender) {
+        if (!sender.hasPermission("surgery.admin")) {
+            sender.sendMessage(getMessage("command-no-permission", "&cYou do not have permission to do that."));
+            return;
+        }
+        
+        List<SurgerySession> sessions = menuManager.getStateManager().getSessions();
+        if (sessions.isEmpty()) {
+            sender.sendMessage(getMessage("list-empty", "&7No surgeries in progress."));
+            return;
+        }
+        sessions.sort(Comparator.comparingLong(SurgerySession::getStartedAt));
+        
+        long now = System.currentTimeMillis();
+        sender.sendMessage(getMessage("list-header", "&6Surgeries in progress: %count%")
+            .replace("%count%", String.valueOf(sessions.size())));
+        for (SurgerySession session : sessions) {
+            sender.sendMessage(getMessage("list-entry", "&f%surgeon% &7on &f%patient% &7- %moves% moves, %time%")
+                .replace("%surgeon%", surgeonName(session))
+                .replace("%patient%", session.getPatientName())
+                .replace("%moves%", String.valueOf(session.getMoveCount()))
+                .replace("%time%", formatDuration(now - session.getStartedAt())));
+        }
+    }
+    
+    // ==============================================
+    // Shows the surgeries a player is performing or undergoing
+    // ==============================================
+    private void handleInspect(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("surgery.admin")) {
+            sender.sendMessage(getMessage("command-no-permission", "&cYou do not have permission to do that."));
+            return;
+        }
+        
+        if (args.length != 2) {
+            sender.sendMessage(getMessage("inspect-usage", "&cUsage: /surgery inspect <player>"));
+            return;
+        }
+        
+        List<SurgerySession> sessions = findSessions(args[1]);
+        if (sessions.isEmpty()) {
+            sender.sendMessage(getMessage("inspect-not-found", "&c%name% is not in a surgery.").replace("%name%", args[1]));
+            return;
+        }
+        
+        long now = System.currentTimeMillis();
+        for (SurgerySession session : sessions) {
+            sender.sendMessage(getMessage("inspect-header", "&6%surgeon% operating on %patient%")
+                .replace("%surgeon%", surgeonName(session))
+                .replace("%patient%", session.getPatientName()));
+            sender.sendMessage(getMessage("inspect-progress", "&7Diagnosis: &f%diagnosis% &7Moves: &f%moves% &7Time: &f%time%")
+                .replace("%diagnosis%", session.hasDiagnosis() ? session.getDiagnosis().getName() : "undiagnosed")
+                .replace("%moves%", String.valueOf(session.getMoveCount()))
+                .replace("%time%", formatDuration(now - session.getStartedAt())));
+            sender.sendMessage(getMessage("inspect-vitals", "&7Pulse: &f%pulse% &7Status: &f%status% &7Temperature: &f%temperature%")
+                .replace("%pulse%", getMessage(session.getPulse().getMessageKey(), session.getPulse().getDefaultName()))
+                .replace("%status%", getMessage(session.getStatus().getMessageKey(), session.getStatus().getDefaultName()))
+                .replace("%temperature%", String.format("%.1f", session.getTemperature())));
+            sender.sendMessage(getMessage("surgery-replay-id", "&7Replay id: %id%")
+                .replace("%id%", SurgeryReplayer.formatId(session.getSeed())));
+        }
+    }
+    
+    // ==============================================
+    // Stops the surgeries a player is performing or undergoing
+    // ==============================================
+    private void handleAbort(CommandSender sender, String[] args) {
+        if (!sender.hasPermission("surgery.admin")) {
+            sender.sendMessage(getMessage("command-no-permission", "&cYou do not have permission to do that."));
+            return;
+        }
+        
+        if (args.length != 2) {
+            sender.sendMessage(getMessage("abort-usage", "&cUsage: /surgery abort <player>"));
+            return;
+        }
+        
+        List<SurgerySession> sessions = findSessions(args[1]);
+        if (sessions.isEmpty()) {
+            sender.sendMessage(getMessage("inspect-not-found", "&c%name% is not in a surgery.").replace("%name%", args[1]));
+            return;
+        }
+        
+        for (SurgerySession session : sessions) {
+            menuManager.getCompletionHandler().abort(session);
+        }
+        sender.sendMessage(getMessage("abort-success", "&aStopped %count% surgeries involving %name%.")
+            .replace("%count%", String.valueOf(sessions.size()))
+            .replace("%name%", args[1]));
+    }
+    
+    // ==============================================
+    // The online player's own surgery, then the surgeries on them
+    // ==============================================
+    private List<SurgerySession> findSessions(String name) {
+        Player player = Bukkit.getPlayer(name);
+        if (player == null) {
+            return new ArrayList<>();
+        }
+        List<SurgerySession> sessions = menuManager.getStateManager().getSessionsOn(player.getUniqueId());
+        SurgerySession own = menuManager.getStateManager().getSession(player.getUniqueId());
+        if (own != null) {
+            sessions.add(0, own);
+        }
+        return sessions;
+    }
+    
+    private static String surgeonName(SurgerySession session) {
+        Player surgeon = Bukkit.getPlayer(session.getSurgeonId());
+        return surgeon != null ? surgeon.getName() : session.getSurgeonId().toString();
+    }
+    
+    private static String formatDuration(long millis) {
+        long seconds = millis / 1000;
+        return seconds >= 60 ? (seconds / 60) + "m " + (seconds % 60) + "s" : seconds + "s";
+    }
+    
+    private String getMessage(String path, String def) {
+        return menuManager.getUiUpdater().getMessage(path, def);
+    }
 }
@@ -3,12 +3,20 @@ package tfmc.justin.listeners;
 import org.bukkit.entity.Player;
 import org.bukkit.event.Listener;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.player.PlayerDropItemEvent;
 import org.bukkit.event.player.PlayerJoinEvent;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.inventory.InventoryHolder;
 import org.bukkit.inventory.InventoryView;
 import org.bukkit.inventory.ItemStack;
+import tfmc.justin.managers.SurgeryMenuHolder;
 import tfmc.justin.managers.SurgeryMenuManager;
+import tfmc.justin.managers.SurgeryMetrics;
+import tfmc.justin.managers.SurgeryViewHolder;
 
 public class PlayerListener implements Listener {
     
@@ -20,29 +28,41 @@ public class PlayerListener implements Listener {
     
     @EventHandler
     public void onPlayerJoin(PlayerJoinEvent event) {
-        // Handle player join event
+        // Reopen a surgery the player left in the middle of
+        menuManager.handlePlayerJoin(event.getPlayer());
     }
     
     @EventHandler
     public void onInventoryClick(InventoryClickEvent event) {
         InventoryView view = event.getView();
-        String title = view.getTitle();
         
         // Check if the clicked inventory is the surgery menu
-        if (menuManager.isSurgeryMenu(title)) {
-            // Cancel the event to prevent item removal/movement
-            event.setCancelled(true);
-            
-            // Only handle clicks on the top inventory (the menu), not the player's inventory
-            if (event.getClickedInventory() != null && event.getClickedInventory().equals(view.getTopInventory())) {
-                // Handle the item click if it's a player
-                if (event.getWhoClicked() instanceof Player) {
-                    Player player = (Player) event.getWhoClicked();
-                    ItemStack clickedItem = event.getCurrentItem();
-                    int slot = event.getSlot();
-                    
-                    // Handle the click
-                    menuManager.handleItemClick(player, clickedItem, slot);
+        // getHolder(false) skips the block state snapshot for chests, furnaces, etc.
+        InventoryHolder holder = view.getTopInventory().getHolder(false);
+        if (!(holder instanceof SurgeryMenuHolder)) {
+            // Patients and spectators can only watch
+            if (holder instanceof SurgeryViewHolder) {
+                event.setCancelled(true);
+            }
+            return;
+        }
+        
+        // Cancel the event to prevent item removal/movement
+        event.setCancelled(true);
+        
+        // Only handle clicks on the top inventory (the menu), not the player's inventory
+        if (event.getClickedInventory() != null && event.getClickedInventory().equals(view.getTopInventory())) {
+            // Handle the item click if it's a player
+            if (event.getWhoClicked() instanceof Player) {
+                Player player = (Player) event.getWhoClicked();
+                ItemStack clickedItem = event.getCurrentItem();
+                int slot = event.getSlot();
+                
+                // Handle the click, timing only those that play a move so
+                // clicks on empty or info slots don't drag the percentiles down
+                long started = System.nanoTime();
+                if (menuManager.handleItemClick(player, (SurgeryMenuHolder) holder, clickedItem, slot)) {
+                    menuManager.getMetrics().recordLatency(SurgeryMetrics.Phase.CLICK, System.nanoTime() - started);
                 }
             }
         }
@@ -51,12 +71,48 @@ public class PlayerListener implements Listener {
     @EventHandler
     public void onInventoryClose(InventoryCloseEvent event) {
         // Check if the closed inventory is the surgery menu
-        if (menuManager.isSurgeryMenu(event.getView().getTitle())) {
-            if (event.getPlayer() instanceof Player) {
-                Player player = (Player) event.getPlayer();
+        InventoryHolder holder = event.getInventory().getHolder(false);
+        if (holder instanceof SurgeryViewHolder) {
+            menuManager.handleViewClose((SurgeryViewHolder) holder);
+            return;
+        }
+        if (holder instanceof SurgeryMenuHolder && event.getPlayer() instanceof Player) {
+            Player player = (Player) event.getPlayer();
+            if (event.getReason() == InventoryCloseEvent.Reason.DISCONNECT) {
+                // Leaving the server suspends the surgery instead of giving up
+                menuManager.handleSurgeonDisconnect(player, (SurgeryMenuHolder) holder);
+            } else {
                 // Handle abandonment (giving up on surgery)
-                menuManager.handleSurgeryAbandonment(player);
+                menuManager.handleSurgeryAbandonment(player, (SurgeryMenuHolder) holder);
             }
         }
     }
-}
\ No newline at end of file
+    
+    // Picking up, dropping or dragging items can move a surgeon's tools
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemPickup(EntityPickupItemEvent event) {
+        if (event.getEntity() instanceof Player) {
+            menuManager.handleInventoryChange((Player) event.getEntity());
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemDrop(PlayerDropItemEvent event) {
+        menuManager.handleInventoryChange(event.getPlayer());
+    }
+    
+    // Dragging items into a live view is rejected like a click
+    @EventHandler
+    public void onViewDrag(InventoryDragEvent event) {
+        if (event.getView().getTopInventory().getHolder(false) instanceof SurgeryViewHolder) {
+            event.setCancelled(true);
+        }
+    }
+    
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryDrag(InventoryDragEvent event) {
+        if (event.getWhoClicked() instanceof Player) {
+            menuManager.handleInventoryChange((Player) event.getWhoClicked());
+        }
+    }
+}
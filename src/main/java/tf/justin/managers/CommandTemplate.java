@@ -0,0 +1,82 @@
+package tfmc.justin.managers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// ==============================================
+// A completion command split into literal text and placeholders once per load
+// Rendering only appends the parts, it never searches the string again
+// ==============================================
+public final class CommandTemplate {
+
+    private enum Placeholder {
+        SURGEON("%surgeon%"),
+        PLAYER("%player%"),
+        DIAGNOSIS("%diagnosis%");
+
+        private final String token;
+
+        Placeholder(String token) {
+            this.token = token;
+        }
+    }
+
+    // literals[i] comes before placeholders[i]; the last literal closes the command
+    private final String[] literals;
+    private final Placeholder[] placeholders;
+    private final int estimatedLength;
+
+    private CommandTemplate(String[] literals, Placeholder[] placeholders, int estimatedLength) {
+        this.literals = literals;
+        this.placeholders = placeholders;
+        this.estimatedLength = estimatedLength;
+    }
+
+    // ==============================================
+    // Splits a command around its placeholders
+    // ==============================================
+    public static CommandTemplate compile(String command) {
+        List<String> literals = new ArrayList<>();
+        List<Placeholder> placeholders = new ArrayList<>();
+        int start = 0;
+
+        while (true) {
+            Placeholder next = null;
+            int nextIndex = -1;
+            for (Placeholder placeholder : Placeholder.values()) {
+                int index = command.indexOf(placeholder.token, start);
+                if (index >= 0 && (nextIndex < 0 || index < nextIndex)) {
+                    next = placeholder;
+                    nextIndex = index;
+                }
+            }
+            if (next == null) {
+                break;
+            }
+            literals.add(command.substring(start, nextIndex));
+            placeholders.add(next);
+            start = nextIndex + next.token.length();
+        }
+        literals.add(command.substring(start));
+
+        return new CommandTemplate(literals.toArray(new String[0]), placeholders.toArray(new Placeholder[0]),
+            command.length() + 16 * placeholders.size());
+    }
+
+    // ==============================================
+    // Fills in the placeholders for an outcome
+    // ==============================================
+    public String render(SurgeryOutcome outcome) {
+        StringBuilder out = new StringBuilder(estimatedLength);
+        for (int i = 0; i < placeholders.length; i++) {
+            out.append(literals[i]);
+            switch (placeholders[i]) {
+                case SURGEON: out.append(outcome.getSurgeonName()); break;
+                case PLAYER: out.append(outcome.getPatientName()); break;
+                case DIAGNOSIS: out.append(outcome.getDiagnosis() != null ? outcome.getDiagnosis() : ""); break;
+            }
+        }
+        out.append(literals[literals.length - 1]);
+        return out.toString();
+    }
+}
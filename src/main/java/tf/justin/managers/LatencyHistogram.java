@@ -0,0 +1,130 @@
+package tfmc.justin.managers;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// ==============================================
+// Counts how long something took, in nanoseconds, in buckets four to a
+// power of two: any duration is kept to within 25% in a fixed array, so
+// recording never allocates. Recorded on the main thread and readable
+// from any thread without locks; a reader may see a record's count a
+// moment before its sum
+// ==============================================
+public final class LatencyHistogram {
+
+    // Four buckets per power of two; values below four get a bucket each
+    private static final int SUB_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    public static final int BUCKETS = (Long.SIZE - SUB_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        counts.incrementAndGet(bucket(nanos));
+        sum.addAndGet(nanos);
+        if (nanos > max.get()) {
+            max.accumulateAndGet(nanos, Math::max);
+        }
+    }
+
+    // ==============================================
+    // Copies the counts so far
+    // ==============================================
+    public Snapshot snapshot() {
+        long[] copied = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copied[i] = counts.get(i);
+            count += copied[i];
+        }
+        return new Snapshot(copied, count, sum.get(), max.get());
+    }
+
+    static int bucket(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int mantissa = (int) (nanos >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BITS + 1) * SUB_BUCKETS + mantissa;
+    }
+
+    // ==============================================
+    // Largest duration that falls in a bucket
+    // ==============================================
+    public static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long next = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS + 1) << shift;
+        return next > 0 && shift < Long.SIZE - SUB_BITS - 1 ? next - 1 : Long.MAX_VALUE;
+    }
+
+    // ==============================================
+    // The counts at one moment; the difference of two is the window between them
+    // ==============================================
+    public static final class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        // ==============================================
+        // What was recorded since an earlier snapshot. The max is that of
+        // the highest bucket used since, capped at the max so far
+        // ==============================================
+        public Snapshot since(Snapshot earlier) {
+            long[] window = new long[BUCKETS];
+            long windowCount = 0;
+            long windowMax = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                window[i] = counts[i] - earlier.counts[i];
+                windowCount += window[i];
+                if (window[i] > 0) {
+                    windowMax = Math.min(upperBound(i), max);
+                }
+            }
+            return new Snapshot(window, windowCount, sum - earlier.sum, windowMax);
+        }
+
+        // ==============================================
+        // Duration below which the given share (0-1) of records fall,
+        // rounded up to its bucket; 0 if nothing was recorded
+        // ==============================================
+        public long percentile(double share) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(share * count));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), max);
+                }
+            }
+            return max;
+        }
+
+        // ==============================================
+        // Getters
+        // ==============================================
+        public long getCount() { return count; }
+        public long getCount(int bucket) { return counts[bucket]; }
+        public long getSum() { return sum; }
+        public long getMax() { return max; }
+    }
+}
@@ -0,0 +1,206 @@
+package tfmc.justin.managers;
+
+import tfmc.justin.rules.DiagnosisProfile;
+import tfmc.justin.rules.OperationSite;
+import tfmc.justin.rules.PatientStatus;
+import tfmc.justin.rules.Pulse;
+import tfmc.justin.rules.SurgeryMoveLog;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+// ==============================================
+// Encodes a surgery in progress as a journal record and back
+// Enums and the diagnosis are stored by name, so a record survives
+// reordered enums and a reloaded config. Menu items are not stored;
+// they are rebuilt from the session state, which includes the tool slots
+// ==============================================
+public final class SessionCodec {
+
+    // Version 1 records have no start time, versions 1 and 2 no seed or moves,
+    // versions 1 to 3 no patient id, versions 1 to 4 no real-time flag
+    private static final byte VERSION = 5;
+
+    private SessionCodec() {
+    }
+
+    // ==============================================
+    // Encodes the session and the surgeon's name
+    // ==============================================
+    public static byte[] encode(SurgerySession session, String surgeonName, long savedAt) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(VERSION);
+            out.writeLong(savedAt);
+            out.writeLong(session.getStartedAt());
+            out.writeLong(session.getSeed());
+            byte[] moves = session.getMoves().toByteArray();
+            out.writeInt(moves.length);
+            out.write(moves);
+            out.writeUTF(surgeonName);
+            out.writeUTF(session.getPatientName());
+            UUID patientId = session.getPatientId();
+            out.writeBoolean(patientId != null);
+            if (patientId != null) {
+                out.writeLong(patientId.getMostSignificantBits());
+                out.writeLong(patientId.getLeastSignificantBits());
+            }
+            out.writeBoolean(session.isRealTime());
+            out.writeLong(session.getToolsInMenu());
+            out.writeLong(session.getClickedSlots());
+
+            DiagnosisProfile diagnosis = session.getDiagnosis();
+            out.writeBoolean(diagnosis != null);
+            if (diagnosis != null) {
+                out.writeUTF(diagnosis.getName());
+            }
+
+            out.writeUTF(session.getPulse().name());
+            out.writeUTF(session.getStatus().name());
+            out.writeDouble(session.getTemperature());
+            out.writeUTF(session.getOperationSite().name());
+            out.writeInt(session.getIncisions());
+            out.writeUTF(session.getSkillFail());
+            out.writeBoolean(session.isBleeding());
+            out.writeInt(session.getBrokenBones());
+            out.writeInt(session.getShatteredBones());
+            out.writeInt(session.getRevealedBrokenBones());
+            out.writeInt(session.getRevealedShatteredBones());
+            out.writeInt(session.getDefibrillatorCountdown());
+            out.writeBoolean(session.isCured());
+            out.writeInt(session.getAntibioticsCounter());
+            out.writeBoolean(session.hasAntisepticProtection());
+            out.writeBoolean(session.hasSpongeEffect());
+            out.writeInt(session.getMoveCount());
+            out.writeInt(session.getMovesSinceLastSponge());
+            out.writeBoolean(session.hasWoundsExamined());
+            out.writeInt(session.getUnconsciousTimer());
+            out.writeBoolean(session.hasRisingTemp());
+            out.writeInt(session.getExtremelyWeakCounter());
+            out.writeInt(session.getRedTempCounter());
+        } catch (IOException e) {
+            // Writing to memory cannot fail
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    // ==============================================
+    // Reads only the time a record was saved, to check for expiry
+    // ==============================================
+    public static long readSavedAt(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        checkVersion(in.readByte());
+        return in.readLong();
+    }
+
+    // ==============================================
+    // Rebuilds a session against the given snapshot
+    // Throws if the record is damaged or its diagnosis no longer exists
+    // ==============================================
+    public static SuspendedSession decode(byte[] record, UUID surgeonId, SurgerySnapshot snapshot) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        byte version = in.readByte();
+        checkVersion(version);
+        long savedAt = in.readLong();
+        long startedAt = version >= 2 ? in.readLong() : savedAt;
+        long seed;
+        SurgeryMoveLog moves;
+        if (version >= 3) {
+            seed = in.readLong();
+            int moveCount = in.readInt();
+            if (moveCount < 0 || moveCount > record.length) {
+                throw new IOException("bad move count " + moveCount);
+            }
+            byte[] slots = new byte[moveCount];
+            in.readFully(slots);
+            moves = SurgeryMoveLog.of(slots);
+        } else {
+            // Older records can't be replayed, but the surgery can go on
+            seed = ThreadLocalRandom.current().nextLong();
+            moves = new SurgeryMoveLog();
+        }
+        String surgeonName = in.readUTF();
+
+        SurgerySession session = new SurgerySession(surgeonId, snapshot, seed, moves);
+        session.setStartedAt(startedAt);
+        session.setPatientName(in.readUTF());
+        if (version >= 4 && in.readBoolean()) {
+            session.setPatientId(new UUID(in.readLong(), in.readLong()));
+        }
+        // A surgery keeps the mode it started in, whatever the config says now;
+        // real-time mode came with version 5
+        session.setRealTime(version >= 5 && in.readBoolean());
+        session.setToolsInMenu(in.readLong());
+        session.setClickedSlots(in.readLong());
+
+        if (in.readBoolean()) {
+            String name = in.readUTF();
+            DiagnosisProfile diagnosis = snapshot.getDiagnoses().get(name);
+            if (diagnosis == null) {
+                throw new IOException("unknown diagnosis " + name);
+            }
+            session.setDiagnosis(diagnosis);
+        }
+
+        try {
+            session.setPulse(Pulse.valueOf(in.readUTF()));
+            session.setStatus(PatientStatus.valueOf(in.readUTF()));
+            session.setTemperature(in.readDouble());
+            session.setOperationSite(OperationSite.valueOf(in.readUTF()));
+        } catch (IllegalArgumentException e) {
+            throw new IOException("unknown vital state", e);
+        }
+        session.setIncisions(in.readInt());
+        session.setSkillFail(in.readUTF());
+        session.setBleeding(in.readBoolean());
+        session.setBrokenBones(in.readInt());
+        session.setShatteredBones(in.readInt());
+        session.setRevealedBrokenBones(in.readInt());
+        session.setRevealedShatteredBones(in.readInt());
+        session.setDefibrillatorCountdown(in.readInt());
+        session.setCured(in.readBoolean());
+        session.setAntibioticsCounter(in.readInt());
+        session.setAntisepticProtection(in.readBoolean());
+        session.setSpongeEffect(in.readBoolean());
+        session.setMoveCount(in.readInt());
+        session.setMovesSinceLastSponge(in.readInt());
+        session.setWoundsExamined(in.readBoolean());
+        session.setUnconsciousTimer(in.readInt());
+        session.setHasRisingTemp(in.readBoolean());
+        session.setExtremelyWeakCounter(in.readInt());
+        session.setRedTempCounter(in.readInt());
+
+        return new SuspendedSession(session, surgeonName, savedAt);
+    }
+
+    private static void checkVersion(byte version) throws IOException {
+        if (version < 1 || version > VERSION) {
+            throw new IOException("unsupported record version " + version);
+        }
+    }
+
+    // ==============================================
+    // A decoded record: the session plus who it belongs to and when it was saved
+    // ==============================================
+    public static final class SuspendedSession {
+        private final SurgerySession session;
+        private final String surgeonName;
+        private final long savedAt;
+
+        private SuspendedSession(SurgerySession session, String surgeonName, long savedAt) {
+            this.session = session;
+            this.surgeonName = surgeonName;
+            this.savedAt = savedAt;
+        }
+
+        public SurgerySession getSession() { return session; }
+        public String getSurgeonName() { return surgeonName; }
+        public long getSavedAt() { return savedAt; }
+    }
+}
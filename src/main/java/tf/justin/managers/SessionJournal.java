@@ -0,0 +1,300 @@
+package tfmc.justin.managers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+// ==============================================
+// Append-only, write-behind journal of the surgeries in progress
+// Callers only hand over an encoded record, which never blocks. A background
+// thread appends the latest record per surgeon in batches, syncs the file,
+// and rewrites it from the live records once it has grown enough.
+// Each record carries a CRC, so a write torn by a crash is dropped on replay
+// ==============================================
+public class SessionJournal {
+
+    private static final int MAGIC = 0x53524a31;
+    private static final byte PUT = 1;
+    private static final byte REMOVE = 2;
+
+    // Type byte plus surgeon UUID
+    private static final int HEADER_BYTES = 17;
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+
+    // Rewrite once the file holds this many records that are no longer live
+    private static final int COMPACT_STALE_RECORDS = 1000;
+
+    private final File file;
+    private final Logger logger;
+    private final long flushIntervalMillis;
+
+    // Latest change per surgeon not yet written; empty means removed
+    private final ConcurrentHashMap<UUID, Optional<byte[]>> pending = new ConcurrentHashMap<>();
+    private ScheduledExecutorService writer;
+
+    // Only touched by the writer thread once it runs. The stream is null
+    // after a failed write, until a compaction has rewritten the file
+    private final Map<UUID, byte[]> live = new HashMap<>();
+    private FileOutputStream fileOut;
+    private DataOutputStream out;
+    private int recordsInFile;
+
+    public SessionJournal(File file, Logger logger, long flushIntervalMillis) {
+        this.file = file;
+        this.logger = logger;
+        this.flushIntervalMillis = flushIntervalMillis;
+    }
+
+    // ==============================================
+    // Replays and compacts the journal, then starts the writer thread
+    // Returns the records that were live when the server stopped
+    // ==============================================
+    public Map<UUID, byte[]> open() throws IOException {
+        replay();
+        compact();
+
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Surgery-Journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::writePending, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        return new HashMap<>(live);
+    }
+
+    // ==============================================
+    // Queues the latest state of a surgeon's session
+    // ==============================================
+    public void save(UUID surgeonId, byte[] record) {
+        pending.put(surgeonId, Optional.of(record));
+    }
+
+    // ==============================================
+    // Queues the removal of a finished session
+    // ==============================================
+    public void remove(UUID surgeonId) {
+        pending.put(surgeonId, Optional.empty());
+    }
+
+    // ==============================================
+    // Stops the writer thread and writes what is still pending
+    // Blocks, so it is only used while the plugin disables
+    // ==============================================
+    public void close() {
+        if (writer == null) {
+            return;
+        }
+
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                logger.warning("[Surgery] Session journal writer did not stop, the last changes may be lost");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        // The writer has stopped, so its state is safe to use from here
+        writePending();
+        if (out == null) {
+            logger.warning("[Surgery] Session journal could not be written, the last changes may be lost");
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            logger.warning("[Surgery] Could not close the session journal: " + e.getMessage());
+        }
+    }
+
+    // ==============================================
+    // Writer thread: appends every pending change and syncs the file
+    // ==============================================
+    private void writePending() {
+        if (pending.isEmpty() && out != null) {
+            return;
+        }
+
+        try {
+            // A failed write left the file unknown; rewriting it from the live
+            // records makes it whole again before anything is appended
+            if (out == null) {
+                compact();
+            }
+            appendPending();
+
+            if (recordsInFile - live.size() >= COMPACT_STALE_RECORDS) {
+                compact();
+            }
+        } catch (IOException | RuntimeException e) {
+            // Never let an exception cancel the scheduled writes
+            logger.warning("[Surgery] Could not write the session journal: " + e);
+        }
+    }
+
+    private void appendPending() throws IOException {
+        try {
+            for (UUID surgeonId : pending.keySet()) {
+                Optional<byte[]> change = pending.remove(surgeonId);
+                if (change == null) {
+                    continue;
+                }
+                if (change.isPresent()) {
+                    live.put(surgeonId, change.get());
+                    append(PUT, surgeonId, change.get());
+                } else if (live.remove(surgeonId) != null) {
+                    append(REMOVE, surgeonId, new byte[0]);
+                }
+            }
+            out.flush();
+            fileOut.getChannel().force(false);
+        } catch (IOException e) {
+            // The changes taken from pending are already live, so dropping the
+            // stream makes the next write rewrite the file with them
+            discardStream();
+            throw e;
+        }
+    }
+
+    private void discardStream() {
+        try {
+            out.close();
+        } catch (IOException ignored) {
+            // Everything it held is rewritten from the live records
+        }
+        out = null;
+        fileOut = null;
+    }
+
+    private void append(byte type, UUID surgeonId, byte[] record) throws IOException {
+        writeRecord(out, type, surgeonId, record);
+        recordsInFile++;
+    }
+
+    private static void writeRecord(DataOutputStream stream, byte type, UUID surgeonId, byte[] record) throws IOException {
+        ByteBuffer payload = ByteBuffer.allocate(HEADER_BYTES + record.length);
+        payload.put(type);
+        payload.putLong(surgeonId.getMostSignificantBits());
+        payload.putLong(surgeonId.getLeastSignificantBits());
+        payload.put(record);
+
+        CRC32 crc = new CRC32();
+        crc.update(payload.array());
+        stream.writeInt(payload.capacity());
+        stream.writeInt((int) crc.getValue());
+        stream.write(payload.array());
+    }
+
+    // ==============================================
+    // Rebuilds the live records from the file, stopping at the first bad record
+    // ==============================================
+    private void replay() throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                logger.warning("[Surgery] " + file.getName() + " is not a session journal, ignoring it");
+                return;
+            }
+
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return;
+                }
+
+                int expectedCrc = in.readInt();
+                if (length < HEADER_BYTES || length > MAX_RECORD_BYTES) {
+                    logger.warning("[Surgery] Session journal is damaged, ignoring the rest of it");
+                    return;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != expectedCrc) {
+                    logger.warning("[Surgery] Session journal is damaged, ignoring the rest of it");
+                    return;
+                }
+
+                ByteBuffer buffer = ByteBuffer.wrap(payload);
+                byte type = buffer.get();
+                UUID surgeonId = new UUID(buffer.getLong(), buffer.getLong());
+                if (type == PUT) {
+                    byte[] record = new byte[buffer.remaining()];
+                    buffer.get(record);
+                    live.put(surgeonId, record);
+                } else {
+                    live.remove(surgeonId);
+                }
+            }
+        } catch (EOFException e) {
+            // The server stopped in the middle of a write
+            logger.warning("[Surgery] Ignoring a partly written record at the end of the session journal");
+        }
+    }
+
+    // ==============================================
+    // Writes the live records to a new file and swaps it in atomically
+    // If the swap fails the old file and stream are kept; if reopening
+    // fails the stream stays null and the next write compacts again
+    // ==============================================
+    private void compact() throws IOException {
+        File parent = file.getParentFile();
+        if (parent != null) {
+            parent.mkdirs();
+        }
+
+        File temp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream tempOut = new FileOutputStream(temp);
+             DataOutputStream stream = new DataOutputStream(new BufferedOutputStream(tempOut))) {
+            stream.writeInt(MAGIC);
+            for (Map.Entry<UUID, byte[]> entry : live.entrySet()) {
+                writeRecord(stream, PUT, entry.getKey(), entry.getValue());
+            }
+            stream.flush();
+            tempOut.getChannel().force(false);
+        }
+
+        try {
+            Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            Files.deleteIfExists(temp.toPath());
+            throw e;
+        }
+
+        // The old stream points at the replaced file now
+        if (out != null) {
+            discardStream();
+        }
+        fileOut = new FileOutputStream(file, true);
+        out = new DataOutputStream(new BufferedOutputStream(fileOut));
+        recordsInFile = live.size();
+    }
+}
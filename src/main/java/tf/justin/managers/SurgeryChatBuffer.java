@@ -0,0 +1,43 @@
+package tfmc.justin.managers;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// ==============================================
+// Collects the chat lines of one move so they go out as a single message
+// Repeated lines are kept once and lines past the cap are only counted
+// ==============================================
+public final class SurgeryChatBuffer {
+
+    private final List<String> lines = new ArrayList<>();
+    private int dropped;
+
+    // ==============================================
+    // Adds a line unless it was already added this move or the cap is reached
+    // ==============================================
+    public void add(String line, int maxLines) {
+        if (lines.contains(line)) {
+            return;
+        }
+        if (lines.size() >= maxLines) {
+            dropped++;
+            return;
+        }
+        lines.add(line);
+    }
+
+    public boolean isEmpty() {
+        return lines.isEmpty();
+    }
+
+    // ==============================================
+    // Getters
+    // ==============================================
+    public List<String> getLines() { return lines; }
+    public int getDropped() { return dropped; }
+
+    public void clear() {
+        lines.clear();
+        dropped = 0;
+    }
+}
@@ -0,0 +1,118 @@
+package tfmc.justin.managers;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+import tfmc.justin.rules.SurgeryRules;
+
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+// ==============================================
+// Beats the vitals of real-time surgeries on the wall clock. One repeating
+// task turns a hashed timing wheel with a bucket per tick, and each
+// session waiting for a beat sits in the bucket of the tick it is due, so
+// a tick only looks at the sessions due then. The task only runs while
+// a beat is pending. Main thread only
+// ==============================================
+public class SurgeryClock {
+
+    // Ticks in one turn of the wheel; a beat further off waits extra turns
+    private static final int WHEEL_SIZE = 1024;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private final JavaPlugin plugin;
+    private final Consumer<SurgerySession> onBeat;
+
+    @SuppressWarnings("unchecked")
+    private final ArrayList<Beat>[] wheel = new ArrayList[WHEEL_SIZE];
+    private ArrayList<Beat> spare = new ArrayList<>();
+
+    private BukkitTask task;
+    private long now;
+    private int pending;
+
+    public SurgeryClock(JavaPlugin plugin, Consumer<SurgerySession> onBeat) {
+        this.plugin = plugin;
+        this.onBeat = onBeat;
+        for (int i = 0; i < WHEEL_SIZE; i++) {
+            wheel[i] = new ArrayList<>();
+        }
+    }
+
+    // ==============================================
+    // Schedules the session's next beat if it is real-time, has vitals
+    // running and isn't already waiting for one. Moves don't push back a
+    // beat that is already due
+    // ==============================================
+    public void watch(SurgerySession session) {
+        if (!session.isRealTime() || session.isEnded() || session.isOver() || session.getNextBeat() != 0
+            || !SurgeryRules.hasRunningVitals(session)) {
+            return;
+        }
+
+        long due = now + session.getTuning().getBeatTicks();
+        session.setNextBeat(due);
+        wheel[(int) (due & WHEEL_MASK)].add(new Beat(session, due));
+        pending++;
+
+        if (task == null) {
+            task = Bukkit.getScheduler().runTaskTimer(plugin, this::tick, 1, 1);
+        }
+    }
+
+    public void shutdown() {
+        if (task != null) {
+            task.cancel();
+            task = null;
+        }
+    }
+
+    // ==============================================
+    // Beats the sessions due this tick. A beat whose session ended or was
+    // rescheduled is dropped here rather than searched for when it happens
+    // ==============================================
+    private void tick() {
+        now++;
+        int index = (int) (now & WHEEL_MASK);
+        ArrayList<Beat> bucket = wheel[index];
+        if (!bucket.isEmpty()) {
+            // Beats scheduled while this bucket is handled go into the spare
+            wheel[index] = spare;
+            for (Beat beat : bucket) {
+                if (beat.due > now) {
+                    wheel[index].add(beat);
+                    continue;
+                }
+                pending--;
+                SurgerySession session = beat.session;
+                if (session.isEnded() || session.getNextBeat() != beat.due) {
+                    continue;
+                }
+                session.setNextBeat(0);
+                onBeat.accept(session);
+            }
+            bucket.clear();
+            spare = bucket;
+        }
+
+        if (pending == 0) {
+            shutdown();
+        }
+    }
+
+    // ==============================================
+    // Getters
+    // ==============================================
+    public int getPending() { return pending; }
+
+    private static final class Beat {
+        private final SurgerySession session;
+        private final long due;
+
+        private Beat(SurgerySession session, long due) {
+            this.session = session;
+            this.due = due;
+        }
+    }
+}
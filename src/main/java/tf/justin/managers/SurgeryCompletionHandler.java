@@ -1,10 +1,10 @@
 package tfmc.justin.managers;
 
 import org.bukkit.Bukkit;
-import org.bukkit.ChatColor;
 import org.bukkit.Sound;
 import org.bukkit.entity.Player;
-import org.bukkit.plugin.java.JavaPlugin;
+import tfmc.justin.rules.DiagnosisProfile;
+import tfmc.justin.rules.SurgeryRules;
 
 import java.util.UUID;
 
@@ -13,109 +13,147 @@ import java.util.UUID;
 // ==============================================
 public class SurgeryCompletionHandler {
     
-    private final JavaPlugin plugin;
     private final SurgeryStateManager stateManager;
     private final SurgeryUIUpdater uiUpdater;
+    private final SurgeryOutcomeBus outcomeBus;
+    private final SurgeryHistory history;
+    private final SurgeryMetrics metrics;
     
-    public SurgeryCompletionHandler(JavaPlugin plugin, SurgeryStateManager stateManager, SurgeryUIUpdater uiUpdater) {
-        this.plugin = plugin;
+    public SurgeryCompletionHandler(SurgeryStateManager stateManager, SurgeryUIUpdater uiUpdater, SurgeryOutcomeBus outcomeBus,
+                                    SurgeryHistory history, SurgeryMetrics metrics) {
         this.stateManager = stateManager;
         this.uiUpdater = uiUpdater;
+        this.outcomeBus = outcomeBus;
+        this.history = history;
+        this.metrics = metrics;
     }
     
     // ==============================================
-    // Checks if all success conditions are met
+    // Ends a surgery the rules have decided, as success or failure
     // ==============================================
-    public boolean isSurgerySuccessful(UUID playerId) {
-        // 1. Check if diagnosis is cured
-        if (!stateManager.isCured(playerId)) { return false; }
-        
-        // 2. Pulse must be "Strong" (LIME)
-        if (!stateManager.getPulse(playerId).equals("Strong")) { return false; }
-        
-        // 3. Status must be "Unconscious" (LIME)
-        if (!stateManager.getStatus(playerId).equals("Unconscious")) { return false; }
-        
-        // 4. Temperature must be <= 100°F (LIME)
-        if (stateManager.getTemperature(playerId) > 100.0) { return false; }
-        
-        // 5. Operation site must be "Clean" (LIME)
-        if (!stateManager.getOperationSite(playerId).equals("Clean")) { return false; }
-        
-        // 6. Incisions must be 0 (LIME)
-        if (stateManager.getIncisions(playerId) != 0) { return false; }
-        
-        // 7. All bones must be fixed
-        if (stateManager.getBrokenBones(playerId) != 0 || stateManager.getShatteredBones(playerId) != 0) { return false; }
-        
-        // 8. No bleeding
-        if (stateManager.isBleeding(playerId)) { return false; }
-        
-        return true;
+    public void finish(Player player, SurgerySession session) {
+        String resultKey = session.getResultKey();
+        if (SurgeryRules.SUCCESS_KEY.equals(resultKey)) {
+            handleSuccess(player, session);
+        } else {
+            failSurgery(player, session, resultKey);
+        }
     }
     
     // ==============================================
     // Handles successful surgery completion
     // ==============================================
-    public void handleSuccess(Player player) {
-        UUID playerId = player.getUniqueId();
+    public void handleSuccess(Player player, SurgerySession session) {
+        // Check the session is still running (prevent duplicate messages)
+        if (session.isEnded()) { return; }
         
-        executeCompletionCommand(player, true);
-    
-        stateManager.cleanup(playerId);
+        // Send what happened during the winning move before the result
+        uiUpdater.flushMessages(player, session);
+        publishOutcome(player, session, null);
+        
+        stateManager.cleanup(player.getUniqueId());
         
         player.closeInventory();
         player.playSound(player.getLocation(), Sound.UI_TOAST_CHALLENGE_COMPLETE, 1.0f, 1.0f);
         player.sendMessage(uiUpdater.getMessage("surgery-successful"));
         player.sendMessage(uiUpdater.getMessage("surgery-successful-subtitle"));
+        sendReplayId(player, session);
     }
     
     // ==============================================
-    // Fails the surgery with a message
+    // Fails the surgery with the failure-* message under messageKey
     // ==============================================
-    public void failSurgery(Player player, String message) {
-        UUID playerId = player.getUniqueId();
-        
-        // Check if player is actually in surgery (prevent duplicate messages)
-        if (!stateManager.hasPulse(playerId)) { return; }
+    public void failSurgery(Player player, SurgerySession session, String messageKey) {
+        // Check the session is still running (prevent duplicate messages)
+        if (session.isEnded()) { return; }
         
-        executeCompletionCommand(player, false);
+        // Send what happened during the fatal move before the result
+        uiUpdater.flushMessages(player, session);
+        publishOutcome(player, session, messageKey);
         
-        stateManager.cleanup(playerId);
+        stateManager.cleanup(player.getUniqueId());
         
         player.closeInventory();
         player.playSound(player.getLocation(), Sound.ENTITY_WITHER_DEATH, 1.0f, 0.8f);
         player.sendMessage(uiUpdater.getMessage("surgery-failed"));
-        player.sendMessage(message);
+        player.sendMessage(uiUpdater.getMessage(messageKey));
+        sendReplayId(player, session);
     }
     
     // ==============================================
     // Handles player giving up on surgery (only if they didn't complete it successfully)
     // ==============================================
-    public void handleAbandonment(Player player) {
-        UUID playerId = player.getUniqueId();
+    public void handleAbandonment(Player player, SurgerySession session) {
+        // Closing the menu after success, failure or a replacement menu is not abandonment
+        if (session.isEnded()) { return; }
 
-        // Only fail if player still has active surgery data (not cleaned up from success)
-        if (stateManager.hasDiagnosis(playerId)) {
-            failSurgery(player, uiUpdater.getMessage("failure-gave-up"));
+        // Only fail if the patient was diagnosed, otherwise just drop the session
+        if (session.hasDiagnosis()) {
+            failSurgery(player, session, "failure-gave-up");
+        } else {
+            stateManager.cleanup(player.getUniqueId());
         }
     }
     
     // ==============================================
-    // Executes the configured command for surgery completion (success or failure)
+    // Ends a suspended surgery whose surgeon did not come back in time
+    // Counts as giving up, so it only fails if the patient was diagnosed
     // ==============================================
-    private void executeCompletionCommand(Player surgeon, boolean success) {
-        UUID surgeonId = surgeon.getUniqueId();
-        String patientName = stateManager.getPatientName(surgeonId);
+    public void expireSuspended(SurgerySession session, String surgeonName) {
+        if (session.hasDiagnosis()) {
+            publishOutcome(session.getSurgeonId(), surgeonName, session, "failure-gave-up");
+        }
+        stateManager.cleanupSuspended(session);
+    }
+    
+    // ==============================================
+    // Stops a surgery on an admin's orders. Neither success nor failure,
+    // so nothing is recorded and no completion actions run
+    // ==============================================
+    public void abort(SurgerySession session) {
+        if (session.isEnded()) { return; }
         
-        String configKey = success ? "commands.surgery-success" : "commands.surgery-failure";
-        String command = plugin.getConfig().getString(configKey, "");
+        stateManager.cleanup(session.getSurgeonId());
         
-        if (command != null && !command.isEmpty()) {
-            command = command.replace("%surgeon%", surgeon.getName());
-            command = command.replace("%player%", patientName);
-
-            Bukkit.dispatchCommand(Bukkit.getConsoleSender(), command);
+        Player surgeon = Bukkit.getPlayer(session.getSurgeonId());
+        if (surgeon != null) {
+            // The session has ended, so closing the menu is not abandonment
+            surgeon.closeInventory();
+            surgeon.sendMessage(uiUpdater.getMessage("surgery-aborted", "&cYour surgery was stopped by an admin."));
+        }
+    }
+    
+    // ==============================================
+    // Tells the surgeon how to look this surgery up with /surgery replay
+    // Real-time surgeries can't be replayed, so they get no id
+    // ==============================================
+    private void sendReplayId(Player player, SurgerySession session) {
+        if (session.isRealTime()) {
+            return;
         }
+        player.sendMessage(uiUpdater.getMessage("surgery-replay-id", "&7Replay id: %id%")
+            .replace("%id%", SurgeryReplayer.formatId(session.getSeed())));
+    }
+    
+    // ==============================================
+    // Records the outcome and queues the configured completion actions
+    // They run a tick or more later, outside the click that ended the surgery
+    // failureKey is null for a successful surgery
+    // ==============================================
+    private void publishOutcome(Player surgeon, SurgerySession session, String failureKey) {
+        publishOutcome(surgeon.getUniqueId(), surgeon.getName(), session, failureKey);
+    }
+    
+    private void publishOutcome(UUID surgeonId, String surgeonName, SurgerySession session, String failureKey) {
+        DiagnosisProfile diagnosis = session.getDiagnosis();
+        boolean success = failureKey == null;
+        long now = System.currentTimeMillis();
+        SurgeryOutcome outcome = new SurgeryOutcome(surgeonId, surgeonName, session.getPatientName(),
+            diagnosis != null ? diagnosis.getName() : null, success, failureKey,
+            session.getMoveCount(), now - session.getStartedAt(), now,
+            session.getSeed(), session.getMoves().toByteArray(), session.isRealTime());
+        history.record(outcome);
+        metrics.recordOutcome(outcome.getDiagnosis(), failureKey);
+        outcomeBus.publish(outcome, session.getSnapshot().getOutcomeCommands().get(success));
     }
 }
@@ -0,0 +1,301 @@
+package tfmc.justin.managers;
+
+import me.Plugins.TLibs.Objects.API.ItemAPI;
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.InvalidConfigurationException;
+import org.bukkit.configuration.file.YamlConfiguration;
+import org.bukkit.plugin.java.JavaPlugin;
+import tfmc.justin.rules.DiagnosisIndex;
+import tfmc.justin.rules.SurgeryTuning;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+// ==============================================
+// Loads config.yml, messages.yml and surgeryItemsConfig.yml into snapshots
+// Files are parsed and the info blocks built off the main thread; only the
+// TLibs item lookups and the swap itself run on it. Can also watch the
+// data folder for edits
+// ==============================================
+public class SurgeryConfigManager {
+
+    private static final Set<String> WATCHED_FILES = Set.of("config.yml", "messages.yml", "surgeryItemsConfig.yml");
+
+    // Editors often save a file in several writes; wait for them to settle
+    private static final long WATCH_SETTLE_MILLIS = 500;
+
+    private final JavaPlugin plugin;
+    private final ItemAPI api;
+    private final SurgicalToolRegistry toolRegistry;
+    private final AtomicInteger versions = new AtomicInteger();
+    private final AtomicBoolean reloading = new AtomicBoolean();
+    private final List<Consumer<SurgerySnapshot>> reloadListeners = new ArrayList<>();
+
+    private volatile SurgerySnapshot snapshot;
+
+    // Only touched from the main thread
+    private WatchService watchService;
+    private Thread watcherThread;
+    private boolean changedDuringReload;
+
+    public SurgeryConfigManager(JavaPlugin plugin, ItemAPI api, SurgicalToolRegistry toolRegistry) {
+        this.plugin = plugin;
+        this.api = api;
+        this.toolRegistry = toolRegistry;
+    }
+
+    // ==============================================
+    // Loads the first snapshot synchronously while the plugin enables
+    // ==============================================
+    public SurgerySnapshot load(SurgeryItemsConfig itemsConfig) {
+        try {
+            YamlConfiguration config = loadYaml("config.yml", false);
+            YamlConfiguration messages = loadYaml("messages.yml", false);
+            snapshot = buildSnapshot(new ParsedFiles(config, messages, itemsConfig));
+        } catch (IOException | InvalidConfigurationException e) {
+            throw new IllegalStateException("Could not read the surgery configuration", e);
+        }
+        return snapshot;
+    }
+
+    // ==============================================
+    // Re-reads every file off the main thread, then swaps the snapshot on it
+    // Returns false if a reload is already running
+    // ==============================================
+    public boolean reloadAsync(Consumer<SurgerySnapshot> onApplied, Consumer<Exception> onFailed) {
+        if (!reloading.compareAndSet(false, true)) {
+            return false;
+        }
+
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            ParsedFiles parsed;
+            try {
+                parsed = new ParsedFiles(loadYaml("config.yml", true), loadYaml("messages.yml", true),
+                    new SurgeryItemsConfig(plugin));
+            } catch (IOException | InvalidConfigurationException | RuntimeException e) {
+                Bukkit.getScheduler().runTask(plugin, () -> {
+                    try {
+                        onFailed.accept(e);
+                    } finally {
+                        finishReload();
+                    }
+                });
+                return;
+            }
+
+            // finishReload() runs even if a listener throws, or no reload
+            // could ever start again
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                try {
+                    try {
+                        snapshot = buildSnapshot(parsed);
+                    } catch (RuntimeException e) {
+                        onFailed.accept(e);
+                        return;
+                    }
+                    for (Consumer<SurgerySnapshot> listener : reloadListeners) {
+                        listener.accept(snapshot);
+                    }
+                    onApplied.accept(snapshot);
+                } finally {
+                    finishReload();
+                }
+            });
+        });
+        return true;
+    }
+
+    // ==============================================
+    // Main thread, once a reload has been applied or has failed. A change
+    // seen while it ran may have come after the files were read, so they
+    // are read again
+    // ==============================================
+    private void finishReload() {
+        reloading.set(false);
+        if (changedDuringReload) {
+            changedDuringReload = false;
+            reloadChangedFiles();
+        }
+    }
+
+    // ==============================================
+    // Main thread: reloads after the watcher saw a change, or remembers the
+    // change if a reload is already running
+    // ==============================================
+    private void reloadChangedFiles() {
+        boolean started = reloadAsync(
+            loaded -> plugin.getLogger().info("[Surgery] Config files changed, loaded version " + loaded.getVersion()),
+            e -> plugin.getLogger().warning("[Surgery] Could not reload changed config files: " + e.getMessage()));
+        if (!started) {
+            changedDuringReload = true;
+        }
+    }
+
+    // ==============================================
+    // Registers a callback run on the main thread after every successful swap
+    // ==============================================
+    public void addReloadListener(Consumer<SurgerySnapshot> listener) {
+        reloadListeners.add(listener);
+    }
+
+    public SurgerySnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    // ==============================================
+    // Starts watching the data folder for edits to the config files
+    // ==============================================
+    public void startWatching() {
+        if (watcherThread != null) {
+            return;
+        }
+
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            plugin.getDataFolder().toPath().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            plugin.getLogger().warning("[Surgery] Could not watch config files: " + e.getMessage());
+            return;
+        }
+
+        watcherThread = new Thread(() -> watchLoop(watchService), "Surgery-ConfigWatcher");
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+        plugin.getLogger().info("[Surgery] Watching config files for changes");
+    }
+
+    // ==============================================
+    // Stops the watcher thread, if running
+    // ==============================================
+    public void stopWatching() {
+        if (watcherThread == null) {
+            return;
+        }
+
+        try {
+            watchService.close();
+        } catch (IOException ignored) {
+            // The watcher thread exits either way
+        }
+        watcherThread.interrupt();
+        watcherThread = null;
+        watchService = null;
+    }
+
+    // ==============================================
+    // Watcher thread: reloads whenever one of the config files changes
+    // ==============================================
+    private void watchLoop(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                boolean changed = pollWatchedChanges(key);
+
+                if (changed) {
+                    Thread.sleep(WATCH_SETTLE_MILLIS);
+                    WatchKey extra;
+                    while ((extra = service.poll()) != null) {
+                        pollWatchedChanges(extra);
+                    }
+
+                    Bukkit.getScheduler().runTask(plugin, this::reloadChangedFiles);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // stopWatching() was called
+        }
+    }
+
+    private boolean pollWatchedChanges(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            Object context = event.context();
+            if (context instanceof Path && WATCHED_FILES.contains(context.toString())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    // ==============================================
+    // Reads a YAML file from the data folder, copying the default if missing
+    // Strict loading throws on syntax errors so a bad edit keeps the old snapshot
+    // ==============================================
+    private YamlConfiguration loadYaml(String name, boolean strict) throws IOException, InvalidConfigurationException {
+        File file = new File(plugin.getDataFolder(), name);
+        if (!file.exists()) {
+            plugin.saveResource(name, false);
+        }
+
+        YamlConfiguration yaml;
+        if (strict) {
+            yaml = new YamlConfiguration();
+            yaml.load(file);
+        } else {
+            yaml = YamlConfiguration.loadConfiguration(file);
+        }
+
+        // Fall back to the bundled file for keys missing from older copies
+        try (InputStream in = plugin.getResource(name)) {
+            if (in != null) {
+                yaml.setDefaults(YamlConfiguration.loadConfiguration(new InputStreamReader(in, StandardCharsets.UTF_8)));
+            }
+        }
+        return yaml;
+    }
+
+    // ==============================================
+    // Main-thread part of a load: resolves the tool items through TLibs,
+    // which builds them from the live server, so this part blocks
+    // ==============================================
+    private SurgerySnapshot buildSnapshot(ParsedFiles parsed) {
+        if (!parsed.diagnoses.canDiagnose()) {
+            plugin.getLogger().warning("[Surgery] No diagnoses are configured, the ultrasound cannot diagnose anything");
+        }
+        SurgeryItemTemplates itemTemplates = new SurgeryItemTemplates(plugin, api, parsed.itemsConfig, toolRegistry);
+        return new SurgerySnapshot(versions.incrementAndGet(), parsed.config, parsed.tuning, parsed.diagnoses, parsed.messages,
+            parsed.outcomeCommands, itemTemplates, parsed.renderCache);
+    }
+
+    // ==============================================
+    // Everything that can be built without the main thread. The info blocks
+    // are plain items that only need the item factory, so they are built here
+    // ==============================================
+    private static final class ParsedFiles {
+        private final YamlConfiguration config;
+        private final SurgeryTuning tuning;
+        private final DiagnosisIndex diagnoses;
+        private final SurgeryMessages messages;
+        private final SurgeryOutcomeCommands outcomeCommands;
+        private final SurgeryItemsConfig itemsConfig;
+        private final SurgeryRenderCache renderCache;
+
+        private ParsedFiles(YamlConfiguration config, YamlConfiguration messages, SurgeryItemsConfig itemsConfig) {
+            this.config = config;
+            this.tuning = SurgeryTuning.fromConfig(config);
+            this.diagnoses = DiagnosisIndex.fromConfig(config);
+            this.messages = new SurgeryMessages(messages);
+            this.outcomeCommands = SurgeryOutcomeCommands.fromConfig(config);
+            this.itemsConfig = itemsConfig;
+            this.renderCache = new SurgeryRenderCache(this.messages, tuning);
+        }
+    }
+}
@@ -1,88 +1,97 @@
 package tfmc.justin.managers;
 
 import org.bukkit.Material;
+import tfmc.justin.rules.OperationSite;
+import tfmc.justin.rules.PatientStatus;
+import tfmc.justin.rules.Pulse;
+import tfmc.justin.rules.SurgeryTuning;
+
+import java.util.Arrays;
 
 // ==============================================
 // Constants for the surgery system
 // ==============================================
 public class SurgeryConstants {
     
-    // List of possible patient statuses (with corresponding colors)
-    public static final String[] PATIENT_STATUSES = {
-        "Awake",         // YELLOW_CONCRETE
-        "Unconscious",   // LIME_CONCRETE
-        "Heart Stopped", // RED_CONCRETE
-        "Coming to"      // ORANGE_CONCRETE
-    };
+    // ==============================================
+    // Render colours for the vitals, indexed by ordinal(). Anything not
+    // listed is red. Kept here rather than on the enums, which live in the
+    // rules package and have no Bukkit dependency
+    // ==============================================
+    private static final Material[] PULSE_COLORS = colorTable(Pulse.values().length);
+    private static final Material[] STATUS_COLORS = colorTable(PatientStatus.values().length);
+    private static final Material[] SITE_COLORS = colorTable(OperationSite.values().length);
     
-    // List of possible operation site statuses (with corresponding colors)
-    public static final String[] OPERATION_SITE_STATUSES = {
-        "Clean",         // LIME_CONCRETE
-        "Not sanitized", // YELLOW_CONCRETE
-        "Unclean",       // ORANGE_CONCRETE
-        "Unsanitary"     // RED_CONCRETE
-    };
+    static {
+        PULSE_COLORS[Pulse.STRONG.ordinal()] = Material.LIME_CONCRETE;
+        PULSE_COLORS[Pulse.STEADY.ordinal()] = Material.YELLOW_CONCRETE;
+        PULSE_COLORS[Pulse.WEAK.ordinal()] = Material.ORANGE_CONCRETE;
+        
+        STATUS_COLORS[PatientStatus.AWAKE.ordinal()] = Material.YELLOW_CONCRETE;
+        STATUS_COLORS[PatientStatus.UNCONSCIOUS.ordinal()] = Material.LIME_CONCRETE;
+        STATUS_COLORS[PatientStatus.COMING_TO.ordinal()] = Material.ORANGE_CONCRETE;
+        
+        SITE_COLORS[OperationSite.CLEAN.ordinal()] = Material.LIME_CONCRETE;
+        SITE_COLORS[OperationSite.NOT_SANITIZED.ordinal()] = Material.YELLOW_CONCRETE;
+        SITE_COLORS[OperationSite.UNCLEAN.ordinal()] = Material.ORANGE_CONCRETE;
+    }
     
-    // List of possible pulse statuses (with corresponding colors)
-    public static final String[] PULSE_STATUSES = {
-        "Strong",        // LIME_CONCRETE
-        "Steady",        // YELLOW_CONCRETE
-        "Weak",          // ORANGE_CONCRETE
-        "Extremely Weak" // RED_CONCRETE
-    };
+    private static Material[] colorTable(int size) {
+        Material[] table = new Material[size];
+        Arrays.fill(table, Material.RED_CONCRETE);
+        return table;
+    }
     
     // ==============================================
-    // Gets the material color for pulse status
+    // Gets the material color for a pulse
     // ==============================================
-    public static Material getPulseColor(String pulseStatus) {
-        return switch (pulseStatus) {
-            case "Strong" -> Material.LIME_CONCRETE;
-            case "Steady" -> Material.YELLOW_CONCRETE;
-            case "Weak" -> Material.ORANGE_CONCRETE;
-            case "Extremely Weak" -> Material.RED_CONCRETE;
-            default -> Material.GRAY_CONCRETE;
-        };
+    public static Material getPulseColor(Pulse pulse) {
+        return PULSE_COLORS[pulse.ordinal()];
     }
     
     // ==============================================
-    // Gets the material color for patient status
+    // Gets the material color for a patient status
     // ==============================================
-    public static Material getStatusColor(String status) {
-        return switch (status) {
-            case "Awake" -> Material.YELLOW_CONCRETE;
-            case "Unconscious" -> Material.LIME_CONCRETE;
-            case "Heart Stopped" -> Material.RED_CONCRETE;
-            case "Coming to" -> Material.ORANGE_CONCRETE;
-            default -> Material.GRAY_CONCRETE;
-        };
+    public static Material getStatusColor(PatientStatus status) {
+        return STATUS_COLORS[status.ordinal()];
     }
     
     // ==============================================
-    // Gets the material color for temperature (Fahrenheit)
+    // Gets the material color for the operation site
     // ==============================================
-    public static Material getTemperatureColor(double tempF) {
-        if (tempF <= 100) {
-            return Material.LIME_CONCRETE;
-        } else if (tempF <= 104) {
-            return Material.YELLOW_CONCRETE;
-        } else if (tempF <= 106) {
-            return Material.ORANGE_CONCRETE;
-        } else {
-            return Material.RED_CONCRETE;
-        }
+    public static Material getSiteColor(OperationSite site) {
+        return SITE_COLORS[site.ordinal()];
     }
     
     // ==============================================
-    // Gets the material color for operation site status
+    // Temperature colours from coolest to hottest, indexed by band
+    // ==============================================
+    public static final Material[] TEMPERATURE_COLORS = {
+        Material.LIME_CONCRETE, Material.YELLOW_CONCRETE, Material.ORANGE_CONCRETE, Material.RED_CONCRETE
+    };
+    
+    // Temperatures this close below the red threshold show orange
+    private static final double ORANGE_TEMP_MARGIN = 2.0;
+    
     // ==============================================
-    public static Material getOperationSiteColor(String status) {
-        return switch (status) {
-            case "Clean" -> Material.LIME_CONCRETE;
-            case "Not sanitized" -> Material.YELLOW_CONCRETE;
-            case "Unclean" -> Material.ORANGE_CONCRETE;
-            case "Unsanitary" -> Material.RED_CONCRETE;
-            default -> Material.GRAY_CONCRETE;
-        };
+    // Gets the colour band for temperature (Fahrenheit), checked the same
+    // way the rules check it: lime while it would pass the success check,
+    // red once it counts towards a high fever
+    // ==============================================
+    public static int getTemperatureBand(double tempF, SurgeryTuning tuning) {
+        if (tempF <= tuning.getSuccessTempThreshold()) {
+            return 0;
+        } else if (tempF > tuning.getRedTempThreshold()) {
+            return 3;
+        } else if (tempF > tuning.getRedTempThreshold() - ORANGE_TEMP_MARGIN) {
+            return 2;
+        } else {
+            return 1;
+        }
+    }
+    
+    public static Material getTemperatureColor(double tempF, SurgeryTuning tuning) {
+        return TEMPERATURE_COLORS[getTemperatureBand(tempF, tuning)];
     }
     
     // ==============================================
@@ -99,28 +108,4 @@ public class SurgeryConstants {
         double tempC = (tempF - 32) * 5 / 9;
         return String.format("%.1f\u00b0F / %.1f\u00b0C", tempF, tempC);
     }
-    
-    // ==============================================
-    // Improves pulse to next better status
-    // ==============================================
-    public static String improvePulse(String currentPulse) {
-        return switch (currentPulse) {
-            case "Extremely Weak" -> "Weak";
-            case "Weak" -> "Steady";
-            case "Steady" -> "Strong";
-            default -> "Strong";
-        };
-    }
-    
-    // ==============================================
-    // Worsens pulse to next worse status
-    // ==============================================
-    public static String worsenPulse(String currentPulse) {
-        return switch (currentPulse) {
-            case "Strong" -> "Steady";
-            case "Steady" -> "Weak";
-            case "Weak" -> "Extremely Weak";
-            default -> "Extremely Weak";
-        };
-    }
 }
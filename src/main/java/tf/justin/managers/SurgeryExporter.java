@@ -0,0 +1,180 @@
+package tfmc.justin.managers;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// ==============================================
+// Serves the surgery metrics in the Prometheus text format on a local
+// port, for scraping. Requests are answered on the HTTP server's own
+// thread from snapshots of the lock-free counters, so a scrape never
+// waits for the main thread and the main thread never waits for it
+// ==============================================
+public class SurgeryExporter {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    // Histogram bounds are the powers of two from about 1µs to 1s, which
+    // line up with the histogram's own buckets
+    private static final int FIRST_BOUND_EXPONENT = 10;
+    private static final int LAST_BOUND_EXPONENT = 30;
+
+    private final JavaPlugin plugin;
+    private final SurgeryMetrics metrics;
+    private final SurgeryStateManager stateManager;
+
+    // Only touched from the main thread
+    private HttpServer server;
+    private InetSocketAddress address;
+
+    public SurgeryExporter(JavaPlugin plugin, SurgeryMetrics metrics, SurgeryStateManager stateManager) {
+        this.plugin = plugin;
+        this.metrics = metrics;
+        this.stateManager = stateManager;
+    }
+
+    // ==============================================
+    // Starts, moves or stops the endpoint for a newly applied snapshot
+    // ==============================================
+    public void configure(SurgerySnapshot snapshot) {
+        FileConfiguration config = snapshot.getConfig();
+        InetSocketAddress wanted = null;
+        if (config.getBoolean("metrics.exporter.enabled", false)) {
+            wanted = new InetSocketAddress(config.getString("metrics.exporter.bind-address", "127.0.0.1"),
+                config.getInt("metrics.exporter.port", 9464));
+        }
+        if (wanted == null ? server == null : wanted.equals(address)) {
+            return;
+        }
+
+        shutdown();
+        if (wanted == null) {
+            return;
+        }
+        if (wanted.isUnresolved() || wanted.getPort() <= 0 || wanted.getPort() > 65535) {
+            plugin.getLogger().warning("[Surgery] Metrics exporter is off, can't listen on " + wanted);
+            return;
+        }
+        try {
+            server = HttpServer.create(wanted, 0);
+        } catch (IOException e) {
+            plugin.getLogger().warning("[Surgery] Metrics exporter is off, can't listen on " + wanted + ": " + e.getMessage());
+            return;
+        }
+        server.createContext("/metrics", this::handle);
+        server.start();
+        address = wanted;
+        plugin.getLogger().info("[Surgery] Serving metrics on http://" + wanted.getHostString() + ":" + wanted.getPort() + "/metrics");
+    }
+
+    public void shutdown() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+            address = null;
+        }
+    }
+
+    // ==============================================
+    // Exporter thread
+    // ==============================================
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("GET") && !exchange.getRequestMethod().equals("HEAD")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if (exchange.getRequestMethod().equals("HEAD")) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private String scrape() {
+        StringBuilder out = new StringBuilder(8192);
+
+        header(out, "surgery_sessions_active", "gauge", "Surgeries in progress");
+        out.append("surgery_sessions_active ").append(stateManager.getSessionCount()).append('\n');
+
+        header(out, "surgery_moves_total", "counter", "Tools used in surgeries; rate() gives moves per second");
+        out.append("surgery_moves_total ").append(metrics.getMoves()).append('\n');
+
+        header(out, "surgery_latency_seconds", "histogram", "Time taken by each part of the click path");
+        for (SurgeryMetrics.Phase phase : SurgeryMetrics.Phase.values()) {
+            histogram(out, phase.name().toLowerCase(Locale.ROOT), metrics.getLatency(phase).snapshot());
+        }
+
+        header(out, "surgery_outcomes_total", "counter", "Finished surgeries by diagnosis and result");
+        for (Map.Entry<String, SurgeryMetrics.Outcomes> entry : metrics.getOutcomes().entrySet()) {
+            String diagnosis = entry.getKey().isEmpty() ? "undiagnosed" : escape(entry.getKey());
+            out.append("surgery_outcomes_total{diagnosis=\"").append(diagnosis).append("\",result=\"success\"} ")
+                .append(entry.getValue().getSuccesses()).append('\n');
+            out.append("surgery_outcomes_total{diagnosis=\"").append(diagnosis).append("\",result=\"failure\"} ")
+                .append(entry.getValue().getFailures()).append('\n');
+        }
+
+        header(out, "surgery_failures_total", "counter", "Failed surgeries by cause");
+        for (Map.Entry<String, LongAdder> entry : metrics.getFailures().entrySet()) {
+            out.append("surgery_failures_total{cause=\"").append(escape(entry.getKey().replace("failure-", "")))
+                .append("\"} ").append(entry.getValue().sum()).append('\n');
+        }
+        return out.toString();
+    }
+
+    // ==============================================
+    // Cumulative buckets at each power-of-two bound, then +Inf. A bucket
+    // counts the durations below its bound; one of exactly the bound is
+    // counted a bucket up, a nanosecond out
+    // ==============================================
+    private static void histogram(StringBuilder out, String phase, LatencyHistogram.Snapshot snapshot) {
+        long cumulative = 0;
+        int bucket = 0;
+        for (int exponent = FIRST_BOUND_EXPONENT; exponent <= LAST_BOUND_EXPONENT; exponent++) {
+            long bound = 1L << exponent;
+            for (int end = LatencyHistogram.bucket(bound); bucket < end; bucket++) {
+                cumulative += snapshot.getCount(bucket);
+            }
+            out.append("surgery_latency_seconds_bucket{phase=\"").append(phase).append("\",le=\"")
+                .append(seconds(bound)).append("\"} ").append(cumulative).append('\n');
+        }
+        // +Inf and the count come from the same copied counts, so they always agree
+        for (; bucket < LatencyHistogram.BUCKETS; bucket++) {
+            cumulative += snapshot.getCount(bucket);
+        }
+        out.append("surgery_latency_seconds_bucket{phase=\"").append(phase).append("\",le=\"+Inf\"} ")
+            .append(cumulative).append('\n');
+        out.append("surgery_latency_seconds_sum{phase=\"").append(phase).append("\"} ")
+            .append(seconds(snapshot.getSum())).append('\n');
+        out.append("surgery_latency_seconds_count{phase=\"").append(phase).append("\"} ")
+            .append(cumulative).append('\n');
+    }
+
+    private static void header(StringBuilder out, String name, String type, String help) {
+        out.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        out.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / 1e9);
+    }
+
+    private static String escape(String label) {
+        return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,87 @@
+package tfmc.justin.managers;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.plugin.java.JavaPlugin;
+import tfmc.justin.rules.PolicyTable;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// ==============================================
+// Suggests the best tool for a surgery in progress, from a policy table
+// the solver worked out offline. The table is read off the main thread
+// whenever a snapshot is applied. A table solved for a different config
+// is refused, so after a balance change hints stay off until the solver
+// has been run again
+// ==============================================
+public class SurgeryHints {
+
+    private final JavaPlugin plugin;
+
+    // Bumped on every load, so a slow read can't replace a newer one
+    private final AtomicInteger loads = new AtomicInteger();
+
+    // Only touched from the main thread
+    private boolean enabled;
+    private PolicyTable table;
+    private long fingerprint;
+
+    public SurgeryHints(JavaPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    // ==============================================
+    // Reads the policy table for a newly applied snapshot, if hints are on
+    // ==============================================
+    public void configure(SurgerySnapshot snapshot) {
+        FileConfiguration config = snapshot.getConfig();
+        int load = loads.incrementAndGet();
+        enabled = config.getBoolean("hints.enabled", false);
+        table = null;
+        if (!enabled) {
+            return;
+        }
+
+        File file = new File(plugin.getDataFolder(), config.getString("hints.policy-file", "policy.bin"));
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            PolicyTable read;
+            try {
+                read = PolicyTable.read(file, snapshot.getTuning(), snapshot.getDiagnoses());
+            } catch (IOException e) {
+                plugin.getLogger().warning("[Surgery] Hints are off, could not read " + file.getName() + ": " + e.getMessage());
+                return;
+            }
+
+            Bukkit.getScheduler().runTask(plugin, () -> {
+                if (loads.get() != load) {
+                    return;
+                }
+                table = read;
+                fingerprint = PolicyTable.fingerprint(snapshot.getTuning(), snapshot.getDiagnoses());
+                plugin.getLogger().info("[Surgery] Loaded hints for " + read.size() + " states");
+            });
+        });
+    }
+
+    // ==============================================
+    // The best tool for the session, or null if the table has none: the
+    // session started under a config the table wasn't solved for, it
+    // reached a state the table's surgeon never does, or it runs in real
+    // time, which the solver doesn't model
+    // ==============================================
+    public PolicyTable.Entry getHint(SurgerySession session) {
+        if (table == null || session.isOver() || session.isRealTime()) {
+            return null;
+        }
+        SurgerySnapshot snapshot = session.getSnapshot();
+        if (PolicyTable.fingerprint(snapshot.getTuning(), snapshot.getDiagnoses()) != fingerprint) {
+            return null;
+        }
+        return table.lookup(session);
+    }
+
+    public boolean isEnabled() { return enabled; }
+    public boolean isLoaded() { return table != null; }
+}
@@ -0,0 +1,444 @@
+package tfmc.justin.managers;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.plugin.java.JavaPlugin;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+// ==============================================
+// Append-only history of every finished surgery
+// Records go to numbered segment files under history/, written in batches
+// by a background thread; a segment is closed once it reaches its size limit.
+// Per-surgeon and per-diagnosis totals are kept in memory, built once from
+// the segments on enable and then updated as surgeries finish
+// ==============================================
+public class SurgeryHistory {
+
+    private static final int MAGIC = 0x53524831;
+    // Version 1 records have no seed or moves, versions 1 and 2 no real-time flag
+    private static final byte VERSION = 3;
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final int MAX_RECORD_BYTES = 64 * 1024;
+
+    private final JavaPlugin plugin;
+    private final File directory;
+
+    // Encoded records not yet written
+    private final ConcurrentLinkedQueue<byte[]> pending = new ConcurrentLinkedQueue<>();
+    private ScheduledExecutorService writer;
+    private long segmentBytes;
+
+    // Only touched by the writer thread once it runs
+    private int segmentNumber;
+    private DataOutputStream out;
+    private long segmentSize;
+
+    // Main thread only
+    private Index index = new Index();
+    private boolean loaded;
+
+    public SurgeryHistory(JavaPlugin plugin) {
+        this.plugin = plugin;
+        this.directory = new File(plugin.getDataFolder(), "history");
+    }
+
+    // ==============================================
+    // Starts the writer thread, which first reads the existing segments
+    // Totals are available once that read has finished
+    // ==============================================
+    public void start(SurgerySnapshot snapshot) {
+        FileConfiguration config = snapshot.getConfig();
+        if (!config.getBoolean("history.enabled", true)) {
+            return;
+        }
+
+        segmentBytes = Math.max(16L, config.getLong("history.segment-size-kb", 1024L)) * 1024L;
+        long flushInterval = Math.max(100L, config.getLong("history.flush-interval-ms", 1000L));
+
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Surgery-History");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.execute(this::loadSegments);
+        writer.scheduleWithFixedDelay(this::writePending, flushInterval, flushInterval, TimeUnit.MILLISECONDS);
+    }
+
+    // ==============================================
+    // Counts a finished surgery and queues it for writing; never blocks
+    // ==============================================
+    public void record(SurgeryOutcome outcome) {
+        if (writer == null) {
+            return;
+        }
+        index.add(outcome);
+        pending.add(encode(outcome));
+    }
+
+    // ==============================================
+    // Stops the writer thread and writes what is still pending
+    // ==============================================
+    public void shutdown() {
+        if (writer == null) {
+            return;
+        }
+
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+                plugin.getLogger().warning("[Surgery] History writer did not stop, the last outcomes may be lost");
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        // The writer has stopped, so its state is safe to use from here
+        writePending();
+        try {
+            if (out != null) {
+                out.close();
+            }
+        } catch (IOException e) {
+            plugin.getLogger().warning("[Surgery] Could not close the history segment: " + e.getMessage());
+        }
+        writer = null;
+    }
+
+    // ==============================================
+    // Queries, answered from the running totals
+    // Null if nothing was recorded under that name
+    // ==============================================
+    public SurgeryStats getSurgeonStats(String surgeonName) {
+        UUID surgeonId = index.surgeonsByName.get(surgeonName.toLowerCase(Locale.ROOT));
+        return surgeonId != null ? index.bySurgeon.get(surgeonId) : null;
+    }
+
+    public SurgeryStats getDiagnosisStats(String diagnosis) {
+        return index.byDiagnosis.get(diagnosis.toLowerCase(Locale.ROOT));
+    }
+
+    // ==============================================
+    // Looks up the most recent surgery with the given seed
+    // Scans the segments on the writer thread; the callback runs on the main
+    // thread, with null if no such surgery was recorded
+    // ==============================================
+    public void findBySeed(long seed, Consumer<SurgeryOutcome> callback) {
+        writer.execute(() -> {
+            // Write what is pending first, so a surgery that just ended is found
+            writePending();
+
+            SurgeryOutcome[] found = new SurgeryOutcome[1];
+            File[] files = listSegments();
+            for (File file : files) {
+                try {
+                    readSegment(file, outcome -> {
+                        if (outcome.getSeed() == seed) {
+                            found[0] = outcome;
+                        }
+                    });
+                } catch (IOException e) {
+                    plugin.getLogger().warning("[Surgery] Could not read history segment " + file.getName() + ": " + e.getMessage());
+                }
+            }
+            Bukkit.getScheduler().runTask(plugin, () -> callback.accept(found[0]));
+        });
+    }
+
+    public boolean isEnabled() { return writer != null; }
+    public boolean isLoaded() { return loaded; }
+
+    // ==============================================
+    // Writer thread: reads every segment into totals, then hands them over
+    // Appends continue in the last segment unless it is full or damaged
+    // ==============================================
+    private void loadSegments() {
+        Index scanned = new Index();
+        int records = 0;
+        boolean lastClean = false;
+
+        directory.mkdirs();
+        File[] files = listSegments();
+
+        for (File file : files) {
+            segmentNumber = Math.max(segmentNumber, parseSegmentNumber(file.getName()));
+            try {
+                lastClean = readSegment(file, scanned::add);
+            } catch (IOException e) {
+                plugin.getLogger().warning("[Surgery] Could not read history segment " + file.getName() + ": " + e.getMessage());
+                lastClean = false;
+            }
+        }
+        for (SurgeryStats stats : scanned.bySurgeon.values()) {
+            records += stats.getTotal();
+        }
+
+        try {
+            File last = files.length > 0 ? files[files.length - 1] : null;
+            if (last != null && lastClean && last.length() < segmentBytes) {
+                openSegment(last, false);
+            } else {
+                openSegment(segmentFile(++segmentNumber), true);
+            }
+        } catch (IOException e) {
+            // writePending tries a new segment each time until one opens
+            plugin.getLogger().warning("[Surgery] Could not open a history segment, outcomes are kept until one opens: " + e.getMessage());
+            abandonSegment();
+        }
+
+        int loadedRecords = records;
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            // Outcomes recorded while loading were counted live, after the ones on disk
+            scanned.addAll(index);
+            index = scanned;
+            loaded = true;
+            plugin.getLogger().info("[Surgery] Loaded " + loadedRecords + " surgeries from the history");
+        });
+    }
+
+    // ==============================================
+    // Reads one segment, handing every record to the consumer
+    // Returns false if it ended in a damaged or partly written record
+    // ==============================================
+    private boolean readSegment(File file, Consumer<SurgeryOutcome> consumer) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                plugin.getLogger().warning("[Surgery] " + file.getName() + " is not a history segment, skipping it");
+                return false;
+            }
+
+            while (true) {
+                int length;
+                try {
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    return true;
+                }
+
+                int expectedCrc = in.readInt();
+                if (length <= 0 || length > MAX_RECORD_BYTES) {
+                    return false;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                if ((int) crc.getValue() != expectedCrc) {
+                    return false;
+                }
+                consumer.accept(decode(payload));
+            }
+        } catch (EOFException e) {
+            // The server stopped in the middle of a write
+            return false;
+        }
+    }
+
+    // ==============================================
+    // Writer thread: appends every pending record, rolling to a new segment when full
+    // A record only leaves the queue once it is written, so a failed write
+    // keeps it for the next attempt
+    // ==============================================
+    private void writePending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        try {
+            if (out == null) {
+                openSegment(segmentFile(++segmentNumber), true);
+            }
+
+            byte[] record;
+            while ((record = pending.peek()) != null) {
+                CRC32 crc = new CRC32();
+                crc.update(record);
+                out.writeInt(record.length);
+                out.writeInt((int) crc.getValue());
+                out.write(record);
+                out.flush();
+                pending.poll();
+                segmentSize += 8 + record.length;
+            }
+
+            if (segmentSize >= segmentBytes) {
+                out.close();
+                out = null;
+                openSegment(segmentFile(++segmentNumber), true);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Never let an exception cancel the scheduled writes
+            plugin.getLogger().warning("[Surgery] Could not write the surgery history: " + e);
+            // The segment may now end in half a record, which would hide every
+            // record after it from readers, so the next write starts a new one
+            abandonSegment();
+        }
+    }
+
+    private void abandonSegment() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException ignored) {
+            // Nothing more is written to it either way
+        }
+        out = null;
+    }
+
+    private File[] listSegments() {
+        File[] files = directory.listFiles((dir, name) -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX));
+        if (files == null) {
+            return new File[0];
+        }
+        Arrays.sort(files);
+        return files;
+    }
+
+    private void openSegment(File file, boolean fresh) throws IOException {
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, !fresh)));
+        if (fresh) {
+            out.writeInt(MAGIC);
+            out.flush();
+        }
+        segmentSize = file.length();
+    }
+
+    private File segmentFile(int number) {
+        return new File(directory, String.format("%s%06d%s", SEGMENT_PREFIX, number, SEGMENT_SUFFIX));
+    }
+
+    private static int parseSegmentNumber(String name) {
+        try {
+            return Integer.parseInt(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // ==============================================
+    // Record encoding
+    // ==============================================
+    private static byte[] encode(SurgeryOutcome outcome) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(96);
+        try (DataOutputStream data = new DataOutputStream(bytes)) {
+            data.writeByte(VERSION);
+            data.writeLong(outcome.getEndedAt());
+            data.writeLong(outcome.getSurgeonId().getMostSignificantBits());
+            data.writeLong(outcome.getSurgeonId().getLeastSignificantBits());
+            data.writeUTF(outcome.getSurgeonName());
+            data.writeUTF(outcome.getPatientName());
+            writeOptional(data, outcome.getDiagnosis());
+            data.writeBoolean(outcome.isSuccess());
+            writeOptional(data, outcome.getFailureKey());
+            data.writeInt(outcome.getMoveCount());
+            data.writeLong(outcome.getDurationMillis());
+            data.writeLong(outcome.getSeed());
+            byte[] moves = outcome.getMoves().toByteArray();
+            data.writeInt(moves.length);
+            data.write(moves);
+            data.writeBoolean(outcome.isRealTime());
+        } catch (IOException e) {
+            // Writing to memory cannot fail
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static SurgeryOutcome decode(byte[] payload) throws IOException {
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(payload));
+        byte version = data.readByte();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("unsupported record version " + version);
+        }
+
+        long endedAt = data.readLong();
+        UUID surgeonId = new UUID(data.readLong(), data.readLong());
+        String surgeonName = data.readUTF();
+        String patientName = data.readUTF();
+        String diagnosis = readOptional(data);
+        boolean success = data.readBoolean();
+        String failureKey = readOptional(data);
+        int moveCount = data.readInt();
+        long durationMillis = data.readLong();
+
+        long seed = 0;
+        byte[] moves = new byte[0];
+        if (version >= 2) {
+            seed = data.readLong();
+            int length = data.readInt();
+            if (length < 0 || length > payload.length) {
+                throw new IOException("bad move count " + length);
+            }
+            moves = new byte[length];
+            data.readFully(moves);
+        }
+        // Real-time mode came with version 3
+        boolean realTime = version >= 3 && data.readBoolean();
+        return new SurgeryOutcome(surgeonId, surgeonName, patientName, diagnosis, success, failureKey,
+            moveCount, durationMillis, endedAt, seed, moves, realTime);
+    }
+
+    private static void writeOptional(DataOutputStream data, String value) throws IOException {
+        data.writeBoolean(value != null);
+        if (value != null) {
+            data.writeUTF(value);
+        }
+    }
+
+    private static String readOptional(DataInputStream data) throws IOException {
+        return data.readBoolean() ? data.readUTF() : null;
+    }
+
+    // ==============================================
+    // Totals by surgeon and by diagnosis, plus a name lookup for surgeons
+    // ==============================================
+    private static final class Index {
+        private final Map<UUID, SurgeryStats> bySurgeon = new HashMap<>();
+        private final Map<String, SurgeryStats> byDiagnosis = new HashMap<>();
+        private final Map<String, UUID> surgeonsByName = new HashMap<>();
+
+        private void add(SurgeryOutcome outcome) {
+            bySurgeon.computeIfAbsent(outcome.getSurgeonId(), id -> new SurgeryStats(outcome.getSurgeonName())).add(outcome);
+            surgeonsByName.put(outcome.getSurgeonName().toLowerCase(Locale.ROOT), outcome.getSurgeonId());
+            if (outcome.getDiagnosis() != null) {
+                byDiagnosis.computeIfAbsent(outcome.getDiagnosis().toLowerCase(Locale.ROOT),
+                    key -> new SurgeryStats(outcome.getDiagnosis())).add(outcome);
+            }
+        }
+
+        private void addAll(Index other) {
+            other.bySurgeon.forEach((id, stats) ->
+                bySurgeon.computeIfAbsent(id, key -> new SurgeryStats(stats.getName())).merge(stats));
+            other.byDiagnosis.forEach((name, stats) ->
+                byDiagnosis.computeIfAbsent(name, key -> new SurgeryStats(stats.getName())).merge(stats));
+            surgeonsByName.putAll(other.surgeonsByName);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package tfmc.justin.managers;
+
+import me.Plugins.TLibs.Objects.API.ItemAPI;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.plugin.java.JavaPlugin;
+
+// ==============================================
+// Resolves the surgery tool items through TLibs once per load
+// Menus receive the shared templates; Inventory.setItem copies them,
+// so the templates themselves must never be mutated
+// ==============================================
+public final class SurgeryItemTemplates {
+
+    private final JavaPlugin plugin;
+    private final ItemAPI api;
+    private final SurgeryItemsConfig itemsConfig;
+    private final SurgicalToolRegistry toolRegistry;
+
+    // Indexed by menu slot. resolvedFor remembers which tool each template
+    // was built for, so tools registered or replaced after the load resolve lazily
+    private final ItemStack[] templates = new ItemStack[SurgicalToolRegistry.MENU_SIZE];
+    private final SurgicalTool[] resolvedFor = new SurgicalTool[SurgicalToolRegistry.MENU_SIZE];
+
+    // ==============================================
+    // Resolves every registered tool's item, reporting missing items once
+    // Must run on the main thread since TLibs builds real items
+    // ==============================================
+    public SurgeryItemTemplates(JavaPlugin plugin, ItemAPI api, SurgeryItemsConfig itemsConfig,
+                                SurgicalToolRegistry toolRegistry) {
+        this.plugin = plugin;
+        this.api = api;
+        this.itemsConfig = itemsConfig;
+        this.toolRegistry = toolRegistry;
+
+        int loaded = 0;
+        for (SurgicalTool tool : toolRegistry.getTools()) {
+            if (resolve(tool) != null) {
+                loaded++;
+            }
+        }
+
+        plugin.getLogger().info("[Surgery] Loaded " + loaded + "/" + toolRegistry.getTools().size() + " surgery items");
+    }
+
+    // ==============================================
+    // Gets the template for the tool in a menu slot, or null if there is none
+    // ==============================================
+    public ItemStack get(int slot) {
+        SurgicalTool tool = toolRegistry.get(slot);
+        if (tool == null) {
+            return null;
+        }
+        if (resolvedFor[slot] != tool) {
+            return resolve(tool);
+        }
+        return templates[slot];
+    }
+
+    private ItemStack resolve(SurgicalTool tool) {
+        int slot = tool.getSlot();
+        String path = itemsConfig.getItemPath(tool);
+        ItemStack item = path == null ? null : api.getCreator().getItemFromPath(path);
+        if (item == null) {
+            plugin.getLogger().warning("[Surgery] Could not load item: " + path);
+        }
+
+        templates[slot] = item;
+        resolvedFor[slot] = tool;
+        return item;
+    }
+}
@@ -17,9 +17,6 @@ public class SurgeryItemsConfig {
     private final JavaPlugin plugin;
     private FileConfiguration config;
     
-    // Item paths array (index matches original SURGERY_ITEMS)
-    private final String[] itemPaths = new String[14];
-    
     public SurgeryItemsConfig(JavaPlugin plugin) {
         this.plugin = plugin;
         loadConfig();
@@ -45,38 +42,12 @@ public class SurgeryItemsConfig {
         
         // Load the config
         config = YamlConfiguration.loadConfiguration(configFile);
-        
-        // Load item paths into array
-        itemPaths[0] = config.getString("items.sponge", "m.surgery.sponge");
-        itemPaths[1] = config.getString("items.scalpel", "m.surgery.scalpel");
-        itemPaths[2] = config.getString("items.stitches", "m.surgery.stitches");
-        itemPaths[3] = config.getString("items.antibiotics", "m.surgery.antibiotics");
-        itemPaths[4] = config.getString("items.antiseptic", "m.surgery.antiseptic");
-        itemPaths[5] = config.getString("items.surgical-glove", "m.surgery.surgical_glove");
-        itemPaths[6] = config.getString("items.ultrasound", "m.surgery.ultrasound");
-        itemPaths[7] = config.getString("items.lab-kit", "m.surgery.lab_kit");
-        itemPaths[8] = config.getString("items.anesthetic", "m.surgery.anesthetic");
-        itemPaths[9] = config.getString("items.defibrillator", "m.surgery.defibrillator");
-        itemPaths[10] = config.getString("items.pins", "m.surgery.pins");
-        itemPaths[11] = config.getString("items.splint", "m.surgery.splint");
-        itemPaths[12] = config.getString("items.clamp", "m.surgery.clamp");
-        itemPaths[13] = config.getString("items.transfusion", "m.surgery.transfusion");
     }
     
     // ==============================================
-    // Get the item paths array
+    // Get the item path for a tool, falling back to the tool's default
     // ==============================================
-    public String[] getItemPaths() {
-        return itemPaths;
-    }
-    
-    // ==============================================
-    // Get a specific item path by index
-    // ==============================================
-    public String getItemPath(int index) {
-        if (index >= 0 && index < itemPaths.length) {
-            return itemPaths[index];
-        }
-        return null;
+    public String getItemPath(SurgicalTool tool) {
+        return config.getString("items." + tool.getId(), tool.getDefaultItemPath());
     }
 }
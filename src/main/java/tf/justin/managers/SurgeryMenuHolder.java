@@ -0,0 +1,29 @@
+package tfmc.justin.managers;
+
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+
+// ==============================================
+// Marks an inventory as a surgery menu and links it to its session
+// Lets the listener recognise the menu with one instanceof check
+// ==============================================
+public class SurgeryMenuHolder implements InventoryHolder {
+
+    private final SurgerySession session;
+    private Inventory inventory;
+
+    public SurgeryMenuHolder(SurgerySession session) {
+        this.session = session;
+    }
+
+    // ==============================================
+    // Getters and setters
+    // ==============================================
+    public SurgerySession getSession() { return session; }
+    public void setInventory(Inventory inventory) { this.inventory = inventory; }
+
+    @Override
+    public Inventory getInventory() {
+        return inventory;
+    }
+}
@@ -3,9 +3,14 @@ package tfmc.justin.managers;
 import me.Plugins.TLibs.Enums.APIType;
 import me.Plugins.TLibs.Objects.API.ItemAPI;
 import me.Plugins.TLibs.TLibs;
+import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.plugin.java.JavaPlugin;
+import tfmc.justin.rules.SurgeryTuning;
+
+import java.util.function.Consumer;
 
 // ==============================================
 // Main file for the surgery menu system
@@ -18,13 +23,21 @@ public class SurgeryMenuManager {
     private ItemAPI api;
     
     // Specialized managers
-    private DiagnosisChecker diagnosisChecker;
+    private SurgicalToolRegistry toolRegistry;
+    private SurgeryOutcomeBus outcomeBus;
+    private SurgeryHistory history;
+    private SurgeryConfigManager configManager;
     private SurgeryStateManager stateManager;
     private SurgeryUIUpdater uiUpdater;
     private SurgeryMenuBuilder menuBuilder;
     private SurgeryCompletionHandler completionHandler;
     private SurgeryItemHandler itemHandler;
-    private SurgeryMechanicsManager mechanicsManager;
+    private SurgeryPersistenceManager persistenceManager;
+    private SurgeryReplayer replayer;
+    private SurgeryHints hints;
+    private SurgeryMetrics metrics;
+    private SurgeryExporter exporter;
+    private SurgeryClock clock;
     
     public SurgeryMenuManager(JavaPlugin plugin, SurgeryItemsConfig itemsConfig) {
         this.plugin = plugin;
@@ -38,51 +51,208 @@ public class SurgeryMenuManager {
         plugin.getLogger().info("[Surgery] Loading TLibs API...");
         api = (ItemAPI) TLibs.getApiInstance(APIType.ITEM_API);
         
-        // Initialize all managers in dependency order
-        diagnosisChecker = new DiagnosisChecker(plugin);
+        // Initialize all managers in dependency order. The item handler registers
+        // the built-in tools, so the first snapshot is loaded after it
+        toolRegistry = new SurgicalToolRegistry();
+        outcomeBus = new SurgeryOutcomeBus(plugin);
+        history = new SurgeryHistory(plugin);
+        metrics = new SurgeryMetrics(plugin);
+        configManager = new SurgeryConfigManager(plugin, api, toolRegistry);
         stateManager = new SurgeryStateManager();
-        uiUpdater = new SurgeryUIUpdater(plugin, stateManager, diagnosisChecker);
-        completionHandler = new SurgeryCompletionHandler(plugin, stateManager, uiUpdater);
-        mechanicsManager = new SurgeryMechanicsManager(plugin, api, stateManager, uiUpdater, completionHandler, diagnosisChecker, itemsConfig);
-        menuBuilder = new SurgeryMenuBuilder(plugin, api, stateManager, uiUpdater, itemsConfig);
-        itemHandler = new SurgeryItemHandler(plugin, api, stateManager, uiUpdater, mechanicsManager, completionHandler, diagnosisChecker, itemsConfig);
+        uiUpdater = new SurgeryUIUpdater(plugin, configManager);
+        completionHandler = new SurgeryCompletionHandler(stateManager, uiUpdater, outcomeBus, history, metrics);
+        menuBuilder = new SurgeryMenuBuilder(plugin, uiUpdater, toolRegistry, metrics);
+        itemHandler = new SurgeryItemHandler(plugin, uiUpdater, completionHandler, toolRegistry, metrics);
+        clock = new SurgeryClock(plugin, this::handleBeat);
+        persistenceManager = new SurgeryPersistenceManager(plugin, configManager, stateManager, menuBuilder,
+            completionHandler, uiUpdater, clock);
+        replayer = new SurgeryReplayer(configManager, itemHandler, uiUpdater, toolRegistry);
+        hints = new SurgeryHints(plugin);
+        exporter = new SurgeryExporter(plugin, metrics, stateManager);
+        SurgerySnapshot snapshot = configManager.load(itemsConfig);
+        
+        // Apply config-driven settings, again after every reload
+        applySnapshot(snapshot);
+        configManager.addReloadListener(this::applySnapshot);
         
-        // Initialize any managers that need config
-        mechanicsManager.initialize();
-        itemHandler.initialize();
+        // Read the surgery history, then restore surgeries that were in progress
+        // when the server stopped; one may expire straight into the history
+        history.start(snapshot);
+        persistenceManager.start(snapshot);
         
         plugin.getLogger().info("[Surgery] Surgery menu manager initialized!");
     }
     
     // ==============================================
-    // Opens the surgery menu for the surgeon, operating on the specified patient
+    // Applies the settings of a newly loaded snapshot that live outside sessions
+    // ==============================================
+    private void applySnapshot(SurgerySnapshot snapshot) {
+        SurgeryTuning tuning = snapshot.getTuning();
+        outcomeBus.configure(tuning.getOutcomesPerTick(), tuning.getOutcomeQueueCapacity());
+        hints.configure(snapshot);
+        metrics.configure(Math.max(0, snapshot.getConfig().getInt("metrics.log-interval-seconds", 0)));
+        exporter.configure(snapshot);
+        
+        if (snapshot.getConfig().getBoolean("reload.watch-files", false)) {
+            configManager.startWatching();
+        } else {
+            configManager.stopWatching();
+        }
+    }
+    
+    // ==============================================
+    // Reloads all config files without blocking the main thread
+    // Surgeries in progress keep the snapshot they started with
+    // ==============================================
+    public boolean reload(Consumer<SurgerySnapshot> onApplied, Consumer<Exception> onFailed) {
+        return configManager.reloadAsync(onApplied, onFailed);
+    }
+    
+    // ==============================================
+    // Stops background work when the plugin disables
     // ==============================================
-    public void openSurgeryMenu(Player surgeon, Player patient) {
-        stateManager.setPatientName(surgeon.getUniqueId(), patient.getName());
-        menuBuilder.buildAndOpenMenu(surgeon);
+    public void shutdown() {
+        if (configManager != null) {
+            configManager.stopWatching();
+        }
+        
+        if (clock != null) {
+            clock.shutdown();
+        }
+        
+        // Surgeries in progress are saved before anything else stops
+        if (persistenceManager != null) {
+            persistenceManager.shutdown();
+        }
+        
+        // Completion actions still queued run now rather than being lost
+        if (outcomeBus != null) {
+            outcomeBus.shutdown();
+        }
+        
+        if (history != null) {
+            history.shutdown();
+        }
+        
+        if (metrics != null) {
+            metrics.shutdown();
+        }
+        
+        if (exporter != null) {
+            exporter.shutdown();
+        }
     }
     
     // ==============================================
-    // Checks if an inventory title matches the surgery menu
+    // Opens the surgery menu for the surgeon, operating on the specified patient
+    // Does nothing unless the caps admit the surgery and the surgeon has no
+    // suspended surgery waiting to resume
     // ==============================================
-    public boolean isSurgeryMenu(String title) {
-        return title.equals("Surgery Menu");
+    public SurgeryStateManager.Admission openSurgeryMenu(Player surgeon, Player patient) {
+        if (persistenceManager.hasSuspended(surgeon.getUniqueId())) {
+            return SurgeryStateManager.Admission.RESUME_HELD;
+        }
+        
+        SurgerySnapshot snapshot = configManager.getSnapshot();
+        SurgeryStateManager.Admission admission = stateManager.admit(surgeon.getUniqueId(), patient.getUniqueId(),
+            snapshot.getTuning());
+        if (admission != SurgeryStateManager.Admission.ADMITTED) {
+            return admission;
+        }
+        
+        SurgerySession session = stateManager.createSession(surgeon.getUniqueId(), patient.getUniqueId(),
+            patient.getName(), snapshot);
+        menuBuilder.buildAndOpenMenu(surgeon, session);
+        persistenceManager.save(surgeon, session);
+        clock.watch(session);
+        return admission;
     }
     
     // ==============================================
     // Handles item clicks within the surgery menu
-    // Delegates to the item handler
+    // Delegates to the item handler. Returns whether the click played a move
     // ==============================================
-    public void handleItemClick(Player player, ItemStack clickedItem, int slot) {
-        itemHandler.handleItemClick(player, clickedItem, slot);
+    public boolean handleItemClick(Player player, SurgeryMenuHolder holder, ItemStack clickedItem, int slot) {
+        SurgerySession session = holder.getSession();
+        int moveCount = session.getMoveCount();
+        itemHandler.handleItemClick(player, session, clickedItem, slot);
+        
+        // Only moves change the state; the journal is written off the main thread
+        if (session.getMoveCount() == moveCount) {
+            return false;
+        }
+        persistenceManager.save(player, session);
+        clock.watch(session);
+        return true;
+    }
+    
+    // ==============================================
+    // Advances a real-time surgery by one beat
+    // Called by the clock
+    // ==============================================
+    private void handleBeat(SurgerySession session) {
+        // Sessions of surgeons who left are suspended, so the surgeon is online
+        Player surgeon = Bukkit.getPlayer(session.getSurgeonId());
+        if (surgeon == null) {
+            return;
+        }
+        
+        itemHandler.handleBeat(surgeon, session);
+        if (!session.isEnded()) {
+            persistenceManager.save(surgeon, session);
+            clock.watch(session);
+        }
     }
     
     // ==============================================
     // Handles menu abandonment (player closed menu early)
     // Called from PlayerListener
     // ==============================================
-    public void handleSurgeryAbandonment(Player player) {
-        completionHandler.handleAbandonment(player);
+    public void handleSurgeryAbandonment(Player player, SurgeryMenuHolder holder) {
+        completionHandler.handleAbandonment(player, holder.getSession());
+    }
+    
+    // ==============================================
+    // Stops mirroring moves into a view once its last viewer has left
+    // Called from PlayerListener
+    // ==============================================
+    public void handleViewClose(SurgeryViewHolder holder) {
+        SurgerySession session = holder.getSession();
+        Inventory view = holder.getInventory();
+        // The closing viewer is still counted while the event runs
+        if (session.getView() == view && view.getViewers().size() <= 1) {
+            session.setView(null);
+        }
+    }
+    
+    // ==============================================
+    // Suspends the surgery of a surgeon who disconnected with the menu open
+    // Counts as abandonment when persistence is off
+    // Called from PlayerListener
+    // ==============================================
+    public void handleSurgeonDisconnect(Player player, SurgeryMenuHolder holder) {
+        if (!persistenceManager.suspend(player, holder.getSession())) {
+            completionHandler.handleAbandonment(player, holder.getSession());
+        }
+    }
+    
+    // ==============================================
+    // Gives a rejoining surgeon their suspended surgery back
+    // Called from PlayerListener
+    // ==============================================
+    public void handlePlayerJoin(Player player) {
+        persistenceManager.handleJoin(player);
+    }
+    
+    // ==============================================
+    // Forgets where a surgeon's tools are after their inventory changed
+    // Called from PlayerListener
+    // ==============================================
+    public void handleInventoryChange(Player player) {
+        SurgerySession session = stateManager.getSession(player.getUniqueId());
+        if (session != null) {
+            session.invalidateToolInventorySlots();
+        }
     }
     
     // ==============================================
@@ -95,10 +265,17 @@ public class SurgeryMenuManager {
     // ==============================================
     // Getters for accessing individual managers
     // ==============================================
+    public SurgicalToolRegistry getToolRegistry() { return toolRegistry; }
+    public SurgeryOutcomeBus getOutcomeBus() { return outcomeBus; }
+    public SurgeryHistory getHistory() { return history; }
+    public SurgeryConfigManager getConfigManager() { return configManager; }
     public SurgeryStateManager getStateManager() { return stateManager; }
     public SurgeryUIUpdater getUiUpdater() { return uiUpdater; }
     public SurgeryMenuBuilder getMenuBuilder() { return menuBuilder; }
     public SurgeryCompletionHandler getCompletionHandler() { return completionHandler; }
     public SurgeryItemHandler getItemHandler() { return itemHandler; }
-    public SurgeryMechanicsManager getMechanicsManager() { return mechanicsManager; }
+    public SurgeryPersistenceManager getPersistenceManager() { return persistenceManager; }
+    public SurgeryReplayer getReplayer() { return replayer; }
+    public SurgeryHints getHints() { return hints; }
+    public SurgeryMetrics getMetrics() { return metrics; }
 }
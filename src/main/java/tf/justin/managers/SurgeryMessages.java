@@ -0,0 +1,124 @@
+package tfmc.justin.managers;
+
+import org.bukkit.configuration.Configuration;
+import org.bukkit.configuration.ConfigurationSection;
+import org.bukkit.configuration.file.FileConfiguration;
+import tfmc.justin.rules.OperationSite;
+import tfmc.justin.rules.PatientStatus;
+import tfmc.justin.rules.Pulse;
+import tfmc.justin.utils.Utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// ==============================================
+// Parsed messages.yml, shared by the command and the surgery UI
+// Every message is colourised once here, off the main thread, and never
+// modified after construction
+// ==============================================
+public final class SurgeryMessages {
+
+    private static final String SKILL_FAIL_PREFIX = "skill-fail-";
+
+    // Colourised messages and lists by path
+    private final Map<String, String> colored = new HashMap<>();
+    private final Map<String, List<String>> coloredLists = new HashMap<>();
+
+    // Every skill fail line the built-in tools can show
+    private final List<String> skillFailTexts;
+
+    // Display names from messages.yml, indexed by enum ordinal
+    private final String[] pulseNames = new String[Pulse.values().length];
+    private final String[] statusNames = new String[PatientStatus.values().length];
+    private final String[] siteNames = new String[OperationSite.values().length];
+
+    public SurgeryMessages(FileConfiguration messages) {
+        // Bundled defaults first so the server's own file overrides them
+        Configuration defaults = messages.getDefaults();
+        if (defaults != null) {
+            colorizeAll(defaults);
+        }
+        colorizeAll(messages);
+        loadDisplayNames();
+        skillFailTexts = collectSkillFailTexts();
+    }
+
+    // ==============================================
+    // Colourises every message and list in a file
+    // ==============================================
+    private void colorizeAll(ConfigurationSection section) {
+        for (String path : section.getKeys(true)) {
+            if (section.isConfigurationSection(path)) {
+                continue;
+            }
+            if (section.isList(path)) {
+                List<String> list = new ArrayList<>();
+                for (String line : section.getStringList(path)) {
+                    list.add(Utils.colorize(line));
+                }
+                coloredLists.put(path, List.copyOf(list));
+            } else {
+                colored.put(path, Utils.colorize(section.getString(path)));
+            }
+        }
+    }
+
+    // ==============================================
+    // Resolves vital display names once so updates never look them up
+    // ==============================================
+    private void loadDisplayNames() {
+        for (Pulse pulse : Pulse.values()) {
+            pulseNames[pulse.ordinal()] = get(pulse.getMessageKey(), pulse.getDefaultName());
+        }
+        for (PatientStatus status : PatientStatus.values()) {
+            statusNames[status.ordinal()] = get(status.getMessageKey(), status.getDefaultName());
+        }
+        for (OperationSite site : OperationSite.values()) {
+            siteNames[site.ordinal()] = get(site.getMessageKey(), site.getDefaultName());
+        }
+    }
+
+    // ==============================================
+    // Collects the skill-fail-* messages and lists, so their info blocks
+    // can be built up front
+    // ==============================================
+    private List<String> collectSkillFailTexts() {
+        List<String> texts = new ArrayList<>();
+        for (Map.Entry<String, String> entry : colored.entrySet()) {
+            if (entry.getKey().startsWith(SKILL_FAIL_PREFIX)) {
+                texts.add(entry.getValue());
+            }
+        }
+        for (Map.Entry<String, List<String>> entry : coloredLists.entrySet()) {
+            if (entry.getKey().startsWith(SKILL_FAIL_PREFIX)) {
+                texts.addAll(entry.getValue());
+            }
+        }
+        return List.copyOf(texts);
+    }
+
+    // ==============================================
+    // Display names for vitals
+    // ==============================================
+    public String getDisplayName(Pulse pulse) { return pulseNames[pulse.ordinal()]; }
+    public String getDisplayName(PatientStatus status) { return statusNames[status.ordinal()]; }
+    public String getDisplayName(OperationSite site) { return siteNames[site.ordinal()]; }
+    public List<String> getSkillFailTexts() { return skillFailTexts; }
+
+    // ==============================================
+    // Gets a colourised message, or the colourised fallback if it is missing
+    // ==============================================
+    public String get(String path, String def) {
+        String message = colored.get(path);
+        return message != null ? message : Utils.colorize(def);
+    }
+
+    // ==============================================
+    // Gets a colourised list of messages; the returned list is shared and unmodifiable
+    // ==============================================
+    public List<String> getList(String path) {
+        return coloredLists.getOrDefault(path, List.of());
+    }
+}
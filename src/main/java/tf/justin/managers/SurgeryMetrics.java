@@ -0,0 +1,181 @@
+package tfmc.justin.managers;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+import tfmc.justin.rules.MoveResult;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// ==============================================
+// How long the click path takes and what surgeries do, for /surgery stats
+// and an optional log line. Recording is lock-free and doesn't allocate
+// once a tool or diagnosis has been seen, so it is always on. Everything
+// is recorded on the main thread and can be read from any thread
+// ==============================================
+public class SurgeryMetrics {
+
+    private static final int SLOTS = SurgicalToolRegistry.MENU_SIZE;
+    private static final long TICKS_PER_SECOND = 20;
+
+    // ==============================================
+    // Timed parts of the click path; move effects include the dynamic tools
+    // ==============================================
+    public enum Phase {
+        CLICK("click"),
+        MOVE_EFFECTS("move effects"),
+        DYNAMIC_TOOLS("dynamic tools"),
+        MENU_OPEN("menu open");
+
+        private final String displayName;
+
+        Phase(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() { return displayName; }
+    }
+
+    private final JavaPlugin plugin;
+    private final long startedAt = System.currentTimeMillis();
+    private final Map<Phase, LatencyHistogram> latency = new EnumMap<>(Phase.class);
+    private final AtomicReferenceArray<LatencyHistogram> toolLatency = new AtomicReferenceArray<>(SLOTS);
+    private final LongAdder moves = new LongAdder();
+    private final AtomicLongArray skillFails = new AtomicLongArray(SLOTS);
+    private final Map<String, Outcomes> outcomes = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> failures = new ConcurrentHashMap<>();
+
+    // Only touched from the main thread
+    private BukkitTask logTask;
+    private int logIntervalSeconds;
+
+    // Only touched by the log task
+    private final Map<Phase, LatencyHistogram.Snapshot> logged = new EnumMap<>(Phase.class);
+    private long loggedMoves;
+
+    public SurgeryMetrics(JavaPlugin plugin) {
+        this.plugin = plugin;
+        for (Phase phase : Phase.values()) {
+            latency.put(phase, new LatencyHistogram());
+        }
+    }
+
+    // ==============================================
+    // Starts, changes or stops the periodic log line (0 = off)
+    // ==============================================
+    public void configure(int logIntervalSeconds) {
+        if (logIntervalSeconds == this.logIntervalSeconds) {
+            return;
+        }
+        this.logIntervalSeconds = logIntervalSeconds;
+        if (logTask != null) {
+            logTask.cancel();
+            logTask = null;
+        }
+        if (logIntervalSeconds > 0) {
+            long ticks = logIntervalSeconds * TICKS_PER_SECOND;
+            logTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, this::logWindow, ticks, ticks);
+        }
+    }
+
+    public void shutdown() {
+        configure(0);
+    }
+
+    // ==============================================
+    // Recording, from the main thread
+    // ==============================================
+    public void recordLatency(Phase phase, long nanos) {
+        latency.get(phase).record(nanos);
+    }
+
+    public void recordMove(int slot, MoveResult result) {
+        moves.increment();
+        if (slot < 0 || slot >= SLOTS) {
+            return;
+        }
+        if (result.isSkillFail()) {
+            skillFails.incrementAndGet(slot);
+        }
+        if (result.isTimed()) {
+            latency.get(Phase.MOVE_EFFECTS).record(result.getEffectsNanos());
+            latency.get(Phase.DYNAMIC_TOOLS).record(result.getDynamicToolsNanos());
+            toolHistogram(slot).record(result.getToolNanos());
+        }
+    }
+
+    // failureKey is null for a successful surgery, diagnosis null if there was none
+    public void recordOutcome(String diagnosis, String failureKey) {
+        Outcomes tally = outcomes.computeIfAbsent(diagnosis != null ? diagnosis : "", name -> new Outcomes());
+        if (failureKey == null) {
+            tally.successes.increment();
+        } else {
+            tally.failures.increment();
+            failures.computeIfAbsent(failureKey, key -> new LongAdder()).increment();
+        }
+    }
+
+    private LatencyHistogram toolHistogram(int slot) {
+        LatencyHistogram histogram = toolLatency.get(slot);
+        if (histogram == null) {
+            toolLatency.compareAndSet(slot, null, new LatencyHistogram());
+            histogram = toolLatency.get(slot);
+        }
+        return histogram;
+    }
+
+    // ==============================================
+    // Log task: p50, p99 and max of each phase since the last line
+    // ==============================================
+    private void logWindow() {
+        long movesNow = moves.sum();
+        StringBuilder line = new StringBuilder("[Surgery] Last ").append(logIntervalSeconds).append("s: ")
+            .append(movesNow - loggedMoves).append(" moves");
+        loggedMoves = movesNow;
+
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram.Snapshot now = latency.get(phase).snapshot();
+            LatencyHistogram.Snapshot previous = logged.put(phase, now);
+            LatencyHistogram.Snapshot window = previous != null ? now.since(previous) : now;
+            if (window.getCount() > 0) {
+                line.append(", ").append(phase.getDisplayName())
+                    .append(" p50 ").append(formatMillis(window.percentile(0.5)))
+                    .append(" p99 ").append(formatMillis(window.percentile(0.99)))
+                    .append(" max ").append(formatMillis(window.getMax()));
+            }
+        }
+        plugin.getLogger().info(line.toString());
+    }
+
+    public static String formatMillis(long nanos) {
+        return String.format("%.2fms", nanos / 1_000_000.0);
+    }
+
+    // ==============================================
+    // Getters; the maps are live views
+    // ==============================================
+    public long getStartedAt() { return startedAt; }
+    public LatencyHistogram getLatency(Phase phase) { return latency.get(phase); }
+    public LatencyHistogram getToolLatency(int slot) { return toolLatency.get(slot); }
+    public long getMoves() { return moves.sum(); }
+    public long getSkillFails(int slot) { return skillFails.get(slot); }
+    public Map<String, Outcomes> getOutcomes() { return outcomes; }
+    public Map<String, LongAdder> getFailures() { return failures; }
+
+    // ==============================================
+    // Finished surgeries of one diagnosis ("" for none)
+    // ==============================================
+    public static final class Outcomes {
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        public long getSuccesses() { return successes.sum(); }
+        public long getFailures() { return failures.sum(); }
+        public long getTotal() { return getSuccesses() + getFailures(); }
+    }
+}
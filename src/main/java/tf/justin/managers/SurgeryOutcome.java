@@ -0,0 +1,62 @@
+package tfmc.justin.managers;
+
+import tfmc.justin.rules.SurgeryMoveLog;
+
+import java.util.UUID;
+
+// ==============================================
+// The result of one finished surgery, as handed to completion actions
+// ==============================================
+public final class SurgeryOutcome {
+
+    private final UUID surgeonId;
+    private final String surgeonName;
+    private final String patientName;
+    private final String diagnosis;
+    private final boolean success;
+    private final String failureKey;
+    private final int moveCount;
+    private final long durationMillis;
+    private final long endedAt;
+    private final long seed;
+    private final byte[] moves;
+    private final boolean realTime;
+
+    public SurgeryOutcome(UUID surgeonId, String surgeonName, String patientName, String diagnosis, boolean success,
+                          String failureKey, int moveCount, long durationMillis, long endedAt, long seed, byte[] moves,
+                          boolean realTime) {
+        this.surgeonId = surgeonId;
+        this.surgeonName = surgeonName;
+        this.patientName = patientName;
+        this.diagnosis = diagnosis;
+        this.success = success;
+        this.failureKey = failureKey;
+        this.moveCount = moveCount;
+        this.durationMillis = durationMillis;
+        this.endedAt = endedAt;
+        this.seed = seed;
+        this.moves = moves;
+        this.realTime = realTime;
+    }
+
+    // ==============================================
+    // Getters
+    // ==============================================
+    public UUID getSurgeonId() { return surgeonId; }
+    public String getSurgeonName() { return surgeonName; }
+    public String getPatientName() { return patientName; }
+    public String getDiagnosis() { return diagnosis; }
+    public boolean isSuccess() { return success; }
+    public String getFailureKey() { return failureKey; }
+    public int getMoveCount() { return moveCount; }
+    public long getDurationMillis() { return durationMillis; }
+    public long getEndedAt() { return endedAt; }
+    public long getSeed() { return seed; }
+    public SurgeryMoveLog getMoves() { return SurgeryMoveLog.of(moves); }
+    public boolean isRealTime() { return realTime; }
+
+    // ==============================================
+    // The message key the surgery ended with, as replays report it
+    // ==============================================
+    public String getResultKey() { return success ? "surgery-successful" : failureKey; }
+}
@@ -0,0 +1,134 @@
+package tfmc.justin.managers;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+// ==============================================
+// Queues surgery outcomes and runs their completion actions a few per tick
+// Keeps a burst of finished surgeries from dispatching every console
+// command inside the click that ended them, up to the queue's capacity.
+// Main thread only
+// ==============================================
+public class SurgeryOutcomeBus {
+
+    private final JavaPlugin plugin;
+    private final ArrayDeque<PendingOutcome> queue = new ArrayDeque<>();
+    private final List<SurgeryOutcomeListener> listeners = new ArrayList<>();
+
+    private int maxPerTick = 20;
+    private int capacity = 1000;
+    private int ranInline;
+    private BukkitTask drainTask;
+
+    public SurgeryOutcomeBus(JavaPlugin plugin) {
+        this.plugin = plugin;
+    }
+
+    // ==============================================
+    // Applies the outcomes settings from config.yml
+    // ==============================================
+    public void configure(int maxPerTick, int capacity) {
+        this.maxPerTick = maxPerTick;
+        this.capacity = capacity;
+    }
+
+    // ==============================================
+    // Registers a callback run for every outcome, after its commands
+    // ==============================================
+    public void addListener(SurgeryOutcomeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(SurgeryOutcomeListener listener) {
+        listeners.remove(listener);
+    }
+
+    // ==============================================
+    // Queues an outcome with the commands it should run
+    // Once the queue is full, outcomes run straight away instead, so a
+    // burst slows down the clicks that cause it but never loses a reward
+    // ==============================================
+    public void publish(SurgeryOutcome outcome, List<CommandTemplate> commands) {
+        if (queue.size() >= capacity) {
+            ranInline++;
+            run(new PendingOutcome(outcome, commands));
+            return;
+        }
+
+        queue.add(new PendingOutcome(outcome, commands));
+        if (drainTask == null) {
+            drainTask = Bukkit.getScheduler().runTaskTimer(plugin, this::drainTick, 1L, 1L);
+        }
+    }
+
+    // ==============================================
+    // Runs up to maxPerTick outcomes, stopping the task once the queue is empty
+    // ==============================================
+    private void drainTick() {
+        if (ranInline > 0) {
+            plugin.getLogger().warning("[Surgery] Outcome queue was full, ran " + ranInline + " surgery outcomes as they finished");
+            ranInline = 0;
+        }
+
+        for (int i = 0; i < maxPerTick && !queue.isEmpty(); i++) {
+            run(queue.poll());
+        }
+
+        if (queue.isEmpty()) {
+            drainTask.cancel();
+            drainTask = null;
+        }
+    }
+
+    // ==============================================
+    // Runs everything still queued, used when the plugin disables
+    // ==============================================
+    public void shutdown() {
+        if (drainTask != null) {
+            drainTask.cancel();
+            drainTask = null;
+        }
+        while (!queue.isEmpty()) {
+            run(queue.poll());
+        }
+    }
+
+    private void run(PendingOutcome pending) {
+        // One failing command must not cost the outcome its other commands,
+        // its listeners or the outcomes queued behind it
+        for (CommandTemplate command : pending.commands) {
+            String rendered = command.render(pending.outcome);
+            try {
+                Bukkit.dispatchCommand(Bukkit.getConsoleSender(), rendered);
+            } catch (RuntimeException e) {
+                plugin.getLogger().warning("[Surgery] Completion command \"" + rendered + "\" failed: " + e);
+            }
+        }
+
+        for (SurgeryOutcomeListener listener : listeners) {
+            try {
+                listener.onOutcome(pending.outcome);
+            } catch (RuntimeException e) {
+                plugin.getLogger().warning("[Surgery] Outcome listener " + listener.getClass().getName() + " failed: " + e);
+            }
+        }
+    }
+
+    // ==============================================
+    // An outcome together with the commands of the snapshot it finished under
+    // ==============================================
+    private static final class PendingOutcome {
+        private final SurgeryOutcome outcome;
+        private final List<CommandTemplate> commands;
+
+        private PendingOutcome(SurgeryOutcome outcome, List<CommandTemplate> commands) {
+            this.outcome = outcome;
+            this.commands = commands;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package tfmc.justin.managers;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// ==============================================
+// The compiled commands.surgery-success and commands.surgery-failure lists
+// Each may be a single command or a list of commands
+// ==============================================
+public final class SurgeryOutcomeCommands {
+
+    private final List<CommandTemplate> successCommands;
+    private final List<CommandTemplate> failureCommands;
+
+    private SurgeryOutcomeCommands(List<CommandTemplate> successCommands, List<CommandTemplate> failureCommands) {
+        this.successCommands = successCommands;
+        this.failureCommands = failureCommands;
+    }
+
+    // ==============================================
+    // Compiles the command lists from a loaded config.yml
+    // ==============================================
+    public static SurgeryOutcomeCommands fromConfig(ConfigurationSection config) {
+        return new SurgeryOutcomeCommands(compile(config, "commands.surgery-success"),
+            compile(config, "commands.surgery-failure"));
+    }
+
+    private static List<CommandTemplate> compile(ConfigurationSection config, String path) {
+        List<String> commands = new ArrayList<>();
+        if (config.isList(path)) {
+            commands.addAll(config.getStringList(path));
+        } else {
+            String command = config.getString(path, "");
+            if (command != null) {
+                commands.add(command);
+            }
+        }
+
+        List<CommandTemplate> templates = new ArrayList<>();
+        for (String command : commands) {
+            if (!command.isEmpty()) {
+                templates.add(CommandTemplate.compile(command));
+            }
+        }
+        return List.copyOf(templates);
+    }
+
+    // ==============================================
+    // Gets the commands to run for a success or a failure
+    // ==============================================
+    public List<CommandTemplate> get(boolean success) {
+        return success ? successCommands : failureCommands;
+    }
+}
@@ -0,0 +1,10 @@
+package tfmc.justin.managers;
+
+// ==============================================
+// Callback for other plugins that want to reward or penalise surgeons
+// directly instead of through a console command. Runs on the main thread
+// ==============================================
+@FunctionalInterface
+public interface SurgeryOutcomeListener {
+    void onOutcome(SurgeryOutcome outcome);
+}
@@ -0,0 +1,246 @@
+package tfmc.justin.managers;
+
+import org.bukkit.Bukkit;
+import org.bukkit.configuration.file.FileConfiguration;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+// ==============================================
+// Keeps surgeries in progress across restarts, crashes and disconnects
+// Every move hands a small encoded record to the journal, which writes it
+// on its own thread. Surgeons who leave mid-surgery are suspended and get
+// their menu back when they rejoin, within the configured timeout and as
+// long as the admission caps allow it
+// ==============================================
+public class SurgeryPersistenceManager {
+
+    private static final String JOURNAL_FILE = "sessions.journal";
+
+    // Give the client time to finish joining before opening a menu
+    private static final long RESUME_DELAY_TICKS = 10L;
+    private static final long EXPIRY_CHECK_TICKS = 1200L;
+
+    private final JavaPlugin plugin;
+    private final SurgeryConfigManager configManager;
+    private final SurgeryStateManager stateManager;
+    private final SurgeryMenuBuilder menuBuilder;
+    private final SurgeryCompletionHandler completionHandler;
+    private final SurgeryUIUpdater uiUpdater;
+    private final SurgeryClock clock;
+
+    // Records of surgeons who are offline, by surgeon
+    private final Map<UUID, byte[]> suspended = new HashMap<>();
+
+    private SessionJournal journal;
+    private BukkitTask expiryTask;
+
+    public SurgeryPersistenceManager(JavaPlugin plugin, SurgeryConfigManager configManager, SurgeryStateManager stateManager,
+                                     SurgeryMenuBuilder menuBuilder, SurgeryCompletionHandler completionHandler,
+                                     SurgeryUIUpdater uiUpdater, SurgeryClock clock) {
+        this.plugin = plugin;
+        this.configManager = configManager;
+        this.stateManager = stateManager;
+        this.menuBuilder = menuBuilder;
+        this.completionHandler = completionHandler;
+        this.uiUpdater = uiUpdater;
+        this.clock = clock;
+    }
+
+    // ==============================================
+    // Opens the journal and restores the surgeries it holds
+    // Surgeons already online (after a reload) get their menu back right away
+    // ==============================================
+    public void start(SurgerySnapshot snapshot) {
+        FileConfiguration config = snapshot.getConfig();
+        if (!config.getBoolean("persistence.enabled", true)) {
+            return;
+        }
+
+        long flushInterval = Math.max(10L, config.getLong("persistence.flush-interval-ms", 200L));
+        SessionJournal opened = new SessionJournal(new File(plugin.getDataFolder(), JOURNAL_FILE), plugin.getLogger(), flushInterval);
+        try {
+            suspended.putAll(opened.open());
+        } catch (IOException e) {
+            plugin.getLogger().warning("[Surgery] Could not open the session journal, surgeries will not be saved: " + e.getMessage());
+            return;
+        }
+
+        journal = opened;
+        stateManager.setJournal(journal);
+        if (!suspended.isEmpty()) {
+            plugin.getLogger().info("[Surgery] Restored " + suspended.size() + " surgeries in progress");
+        }
+
+        for (Player player : Bukkit.getOnlinePlayers()) {
+            resume(player, true);
+        }
+        expiryTask = Bukkit.getScheduler().runTaskTimer(plugin, this::expireSuspended, EXPIRY_CHECK_TICKS, EXPIRY_CHECK_TICKS);
+    }
+
+    // ==============================================
+    // Queues the session's current state for writing; never blocks
+    // ==============================================
+    public void save(Player surgeon, SurgerySession session) {
+        if (journal == null || session.isEnded()) {
+            return;
+        }
+        journal.save(session.getSurgeonId(), encode(surgeon, session));
+    }
+
+    // ==============================================
+    // Saves and stops tracking the session of a surgeon who is leaving
+    // Returns false if persistence is off, so the caller can end it instead
+    // ==============================================
+    public boolean suspend(Player surgeon, SurgerySession session) {
+        if (journal == null || session.isEnded()) {
+            return false;
+        }
+
+        byte[] record = encode(surgeon, session);
+        journal.save(session.getSurgeonId(), record);
+        suspended.put(session.getSurgeonId(), record);
+        stateManager.detach(session.getSurgeonId());
+        return true;
+    }
+
+    // ==============================================
+    // Whether the surgeon has a surgery waiting to be resumed. They can't
+    // start another until it is, since both would share one journal record
+    // ==============================================
+    public boolean hasSuspended(UUID surgeonId) {
+        return journal != null && suspended.containsKey(surgeonId);
+    }
+
+    // ==============================================
+    // Gives a rejoining surgeon their suspended surgery back
+    // ==============================================
+    public void handleJoin(Player player) {
+        if (journal == null || !suspended.containsKey(player.getUniqueId())) {
+            return;
+        }
+
+        Bukkit.getScheduler().runTaskLater(plugin, () -> {
+            if (player.isOnline()) {
+                resume(player, true);
+            }
+        }, RESUME_DELAY_TICKS);
+    }
+
+    // ==============================================
+    // Suspends every surgery in progress and closes the journal
+    // ==============================================
+    public void shutdown() {
+        if (journal == null) {
+            return;
+        }
+
+        if (expiryTask != null) {
+            expiryTask.cancel();
+            expiryTask = null;
+        }
+
+        for (SurgerySession session : stateManager.getSessions()) {
+            Player surgeon = Bukkit.getPlayer(session.getSurgeonId());
+            if (surgeon != null && suspend(surgeon, session)) {
+                // The session has ended, so closing the menu is not abandonment
+                surgeon.closeInventory();
+            }
+        }
+
+        stateManager.setJournal(null);
+        journal.close();
+        journal = null;
+    }
+
+    // ==============================================
+    // Restores a suspended surgery and reopens its menu
+    // A surgery the caps don't admit stays suspended; the expiry check tries
+    // again while the surgeon is online. Only the first try tells them
+    // ==============================================
+    private void resume(Player player, boolean announceHold) {
+        UUID playerId = player.getUniqueId();
+        byte[] record = suspended.remove(playerId);
+        if (record == null) {
+            return;
+        }
+
+        // Restored against the current config; the one it started with is gone
+        SessionCodec.SuspendedSession restored;
+        try {
+            restored = SessionCodec.decode(record, playerId, configManager.getSnapshot());
+        } catch (IOException e) {
+            plugin.getLogger().warning("[Surgery] Could not restore the surgery of " + player.getName() + ": " + e.getMessage());
+            journal.remove(playerId);
+            return;
+        }
+
+        SurgerySession session = restored.getSession();
+        if (isExpired(restored.getSavedAt())) {
+            completionHandler.expireSuspended(session, restored.getSurgeonName());
+            return;
+        }
+
+        SurgeryStateManager.Admission admission = stateManager.admit(playerId, session.getPatientId(),
+            configManager.getSnapshot().getTuning());
+        if (admission != SurgeryStateManager.Admission.ADMITTED) {
+            suspended.put(playerId, record);
+            if (announceHold) {
+                player.sendMessage(uiUpdater.getMessage("surgery-resume-held",
+                    "&eYour surgery on %patient% is on hold until there is room for it.")
+                    .replace("%patient%", session.getPatientName()));
+            }
+            return;
+        }
+
+        stateManager.addSession(session);
+        menuBuilder.reopenMenu(player, session);
+        player.sendMessage(uiUpdater.getMessage("surgery-resumed").replace("%patient%", session.getPatientName()));
+        clock.watch(session);
+
+        // Restart the timeout in case the surgeon leaves again
+        save(player, session);
+    }
+
+    // ==============================================
+    // Ends suspended surgeries whose surgeon did not come back in time, and
+    // retries those held back by the caps while their surgeon is online
+    // ==============================================
+    private void expireSuspended() {
+        for (Map.Entry<UUID, byte[]> entry : new ArrayList<>(suspended.entrySet())) {
+            UUID surgeonId = entry.getKey();
+            try {
+                if (!isExpired(SessionCodec.readSavedAt(entry.getValue()))) {
+                    Player surgeon = Bukkit.getPlayer(surgeonId);
+                    if (surgeon != null) {
+                        resume(surgeon, false);
+                    }
+                    continue;
+                }
+                SessionCodec.SuspendedSession restored = SessionCodec.decode(entry.getValue(), surgeonId, configManager.getSnapshot());
+                suspended.remove(surgeonId);
+                completionHandler.expireSuspended(restored.getSession(), restored.getSurgeonName());
+            } catch (IOException e) {
+                plugin.getLogger().warning("[Surgery] Dropping an unreadable suspended surgery: " + e.getMessage());
+                suspended.remove(surgeonId);
+                journal.remove(surgeonId);
+            }
+        }
+    }
+
+    private boolean isExpired(long savedAt) {
+        int timeoutMinutes = configManager.getSnapshot().getTuning().getResumeTimeoutMinutes();
+        return timeoutMinutes > 0 && System.currentTimeMillis() - savedAt > timeoutMinutes * 60_000L;
+    }
+
+    private byte[] encode(Player surgeon, SurgerySession session) {
+        return SessionCodec.encode(session, surgeon.getName(), System.currentTimeMillis());
+    }
+}
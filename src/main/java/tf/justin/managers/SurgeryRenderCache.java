@@ -0,0 +1,137 @@
+package tfmc.justin.managers;
+
+import org.bukkit.ChatColor;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import tfmc.justin.rules.OperationSite;
+import tfmc.justin.rules.PatientStatus;
+import tfmc.justin.rules.Pulse;
+import tfmc.justin.rules.SurgeryTuning;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// ==============================================
+// Prebuilt info blocks for every finite vital state
+// Built once per snapshot; the stacks are shared templates
+// and must never be mutated (Inventory.setItem copies them)
+// ==============================================
+public class SurgeryRenderCache {
+
+    // Incision counts above this are rare enough to build on demand
+    private static final int MAX_CACHED_INCISIONS = 16;
+
+    private final ItemStack[] pulseBlocks = new ItemStack[Pulse.values().length];
+    private final ItemStack[] statusBlocks = new ItemStack[PatientStatus.values().length];
+    private final ItemStack[] siteBlocks = new ItemStack[OperationSite.values().length];
+    private final ItemStack[] incisionBlocks = new ItemStack[MAX_CACHED_INCISIONS + 1];
+
+    // Temperature is shown to 0.1°F, but coloured by the exact value the
+    // rules check, so a tenth that holds a threshold has a block per colour
+    // band it spans, indexed [tenth][band]
+    private final SurgeryTuning tuning;
+    private final int minTempTenths;
+    private final ItemStack[][] temperatureBlocks;
+
+    // Skill fail lines from messages.yml; text from other plugins' tools
+    // is built when shown, so the map can't grow
+    private final Map<String, ItemStack> skillFailBlocks = new HashMap<>();
+
+    private final ItemStack undiagnosedBlock;
+    private final ItemStack noSkillFailBlock;
+
+    public SurgeryRenderCache(SurgeryMessages messages, SurgeryTuning tuning) {
+        this.tuning = tuning;
+        for (Pulse pulse : Pulse.values()) {
+            pulseBlocks[pulse.ordinal()] = SurgeryUIUpdater.createInfoBlock(SurgeryConstants.getPulseColor(pulse),
+                ChatColor.GOLD + "Pulse", ChatColor.GRAY + messages.getDisplayName(pulse));
+        }
+        for (PatientStatus status : PatientStatus.values()) {
+            statusBlocks[status.ordinal()] = SurgeryUIUpdater.createInfoBlock(SurgeryConstants.getStatusColor(status),
+                ChatColor.GOLD + "Status", ChatColor.GRAY + messages.getDisplayName(status));
+        }
+        for (OperationSite site : OperationSite.values()) {
+            siteBlocks[site.ordinal()] = SurgeryUIUpdater.createInfoBlock(SurgeryConstants.getSiteColor(site),
+                ChatColor.GOLD + "Operation Site", ChatColor.GRAY + messages.getDisplayName(site));
+        }
+        for (int i = 0; i <= MAX_CACHED_INCISIONS; i++) {
+            incisionBlocks[i] = buildIncisionBlock(i);
+        }
+
+        minTempTenths = toTenths(tuning.getMinDisplayTemp());
+        int maxTempTenths = Math.max(minTempTenths, toTenths(tuning.getMaxDisplayTemp()));
+        temperatureBlocks = new ItemStack[maxTempTenths - minTempTenths + 1][SurgeryConstants.TEMPERATURE_COLORS.length];
+        for (int i = 0; i < temperatureBlocks.length; i++) {
+            // Every value in [tenth - 0.05, tenth + 0.05) is shown as this tenth
+            int tenths = minTempTenths + i;
+            int lowest = SurgeryConstants.getTemperatureBand((tenths - 0.5) / 10.0, tuning);
+            int highest = SurgeryConstants.getTemperatureBand(Math.nextDown((tenths + 0.5) / 10.0), tuning);
+            for (int band = lowest; band <= highest; band++) {
+                temperatureBlocks[i][band] = buildTemperatureBlock(tenths, band);
+            }
+        }
+
+        for (String text : messages.getSkillFailTexts()) {
+            skillFailBlocks.computeIfAbsent(text, SurgeryRenderCache::buildSkillFailBlock);
+        }
+
+        undiagnosedBlock = SurgeryUIUpdater.createInfoBlock(Material.RED_CONCRETE,
+            ChatColor.GOLD + "Diagnosis", ChatColor.GRAY + "The patient has not been diagnosed.");
+        noSkillFailBlock = SurgeryUIUpdater.createInfoBlock(Material.LIME_CONCRETE,
+            ChatColor.GOLD + "Skill Fail", ChatColor.GRAY + "Nothing to show here");
+    }
+
+    // ==============================================
+    // Cached lookups
+    // ==============================================
+    public ItemStack pulseBlock(Pulse pulse) { return pulseBlocks[pulse.ordinal()]; }
+    public ItemStack statusBlock(PatientStatus status) { return statusBlocks[status.ordinal()]; }
+    public ItemStack siteBlock(OperationSite site) { return siteBlocks[site.ordinal()]; }
+    public ItemStack undiagnosedBlock() { return undiagnosedBlock; }
+
+    public ItemStack incisionBlock(int incisions) {
+        if (incisions >= 0 && incisions <= MAX_CACHED_INCISIONS) {
+            return incisionBlocks[incisions];
+        }
+        return buildIncisionBlock(incisions);
+    }
+
+    public ItemStack temperatureBlock(double tempF) {
+        int tenths = toTenths(tempF);
+        int band = SurgeryConstants.getTemperatureBand(tempF, tuning);
+        int index = tenths - minTempTenths;
+        if (index >= 0 && index < temperatureBlocks.length && temperatureBlocks[index][band] != null) {
+            return temperatureBlocks[index][band];
+        }
+        return buildTemperatureBlock(tenths, band);
+    }
+
+    public ItemStack skillFailBlock(String message) {
+        if (message.isEmpty()) {
+            return noSkillFailBlock;
+        }
+        ItemStack block = skillFailBlocks.get(message);
+        return block != null ? block : buildSkillFailBlock(message);
+    }
+
+    // ==============================================
+    // Builders for values outside the cached ranges
+    // ==============================================
+    private ItemStack buildIncisionBlock(int incisions) {
+        return SurgeryUIUpdater.createInfoBlock(SurgeryConstants.getIncisionColor(incisions),
+            ChatColor.GOLD + "Incisions", ChatColor.GRAY + String.valueOf(incisions));
+    }
+
+    private static ItemStack buildTemperatureBlock(int tenths, int band) {
+        return SurgeryUIUpdater.createInfoBlock(SurgeryConstants.TEMPERATURE_COLORS[band],
+            ChatColor.GOLD + "Temperature", ChatColor.GRAY + SurgeryConstants.formatTemperature(tenths / 10.0));
+    }
+
+    private static ItemStack buildSkillFailBlock(String message) {
+        return SurgeryUIUpdater.createInfoBlock(Material.RED_CONCRETE, ChatColor.GOLD + "Skill Fail", ChatColor.GRAY + message);
+    }
+
+    private static int toTenths(double tempF) {
+        return (int) Math.round(tempF * 10);
+    }
+}
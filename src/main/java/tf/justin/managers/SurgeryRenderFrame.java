@@ -0,0 +1,83 @@
+package tfmc.justin.managers;
+
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+// ==============================================
+// Buffers a session's menu changes until the end of the move
+// Writes only mark slots dirty; flush() then sets each dirty slot at most once
+// and skips slots that end the move holding the item already shown.
+// Items are compared by reference, which works because info blocks and
+// tool items come from the snapshot's shared caches
+// ==============================================
+public final class SurgeryRenderFrame {
+
+    // What the menu shows, as of the last flush
+    private final ItemStack[] rendered = new ItemStack[SurgicalToolRegistry.MENU_SIZE];
+    private final ItemStack[] pending = new ItemStack[SurgicalToolRegistry.MENU_SIZE];
+
+    // Menu slots 0-53 fit in a single long
+    private long dirty;
+
+    // ==============================================
+    // Queues an item (or null to clear) for a slot
+    // ==============================================
+    public void set(int slot, ItemStack item) {
+        pending[slot] = item;
+        dirty |= 1L << slot;
+    }
+
+    // ==============================================
+    // Gets what the slot will show after the next flush
+    // ==============================================
+    public ItemStack get(int slot) {
+        return (dirty & (1L << slot)) != 0 ? pending[slot] : rendered[slot];
+    }
+
+    public boolean isEmpty(int slot) {
+        return get(slot) == null;
+    }
+
+    // ==============================================
+    // Writes the slots that changed into the menu
+    // Returns how many slots were actually written
+    // ==============================================
+    public int flush(Inventory menu) {
+        return flush(menu, null);
+    }
+
+    // ==============================================
+    // Same, also writing each changed slot into the shared view (if any),
+    // so a move is rendered once however many players watch it
+    // ==============================================
+    public int flush(Inventory menu, Inventory view) {
+        int written = 0;
+        long slots = dirty;
+        while (slots != 0) {
+            int slot = Long.numberOfTrailingZeros(slots);
+            slots &= slots - 1;
+
+            ItemStack item = pending[slot];
+            pending[slot] = null;
+            if (item != rendered[slot]) {
+                menu.setItem(slot, item);
+                if (view != null) {
+                    view.setItem(slot, item);
+                }
+                rendered[slot] = item;
+                written++;
+            }
+        }
+        dirty = 0;
+        return written;
+    }
+
+    // ==============================================
+    // Fills a newly opened view with what the menu shows
+    // ==============================================
+    public void copyTo(Inventory view) {
+        for (int slot = 0; slot < rendered.length; slot++) {
+            view.setItem(slot, rendered[slot]);
+        }
+    }
+}
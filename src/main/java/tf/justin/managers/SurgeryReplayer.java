@@ -0,0 +1,121 @@
+package tfmc.justin.managers;
+
+import org.bukkit.command.CommandSender;
+import tfmc.justin.rules.MoveResult;
+import tfmc.justin.rules.SurgeryMoveLog;
+import tfmc.justin.rules.SurgeryRules;
+
+import java.util.Locale;
+
+// ==============================================
+// Re-runs a recorded surgery from its seed and moves, one move at a time
+// The replay has no surgeon or menu: it plays against the current config,
+// reports the vitals after every move and whether it ended the same way.
+// A replay that differs means the rules or the config changed since
+// ==============================================
+public class SurgeryReplayer {
+
+    private final SurgeryConfigManager configManager;
+    private final SurgeryItemHandler itemHandler;
+    private final SurgeryUIUpdater uiUpdater;
+    private final SurgicalToolRegistry toolRegistry;
+
+    public SurgeryReplayer(SurgeryConfigManager configManager, SurgeryItemHandler itemHandler,
+                           SurgeryUIUpdater uiUpdater, SurgicalToolRegistry toolRegistry) {
+        this.configManager = configManager;
+        this.itemHandler = itemHandler;
+        this.uiUpdater = uiUpdater;
+        this.toolRegistry = toolRegistry;
+    }
+
+    // ==============================================
+    // Replay ids are the session seed in base 36
+    // ==============================================
+    public static String formatId(long seed) {
+        return Long.toUnsignedString(seed, 36);
+    }
+
+    public static long parseId(String id) {
+        return Long.parseUnsignedLong(id.toLowerCase(Locale.ROOT), 36);
+    }
+
+    // ==============================================
+    // Replays a recorded surgery and reports each move to the viewer
+    // Returns true if it ended the same way as the recorded one
+    // ==============================================
+    public boolean replay(CommandSender viewer, SurgeryOutcome recorded) {
+        // How many beats fell between the moves isn't recorded, so the
+        // vitals of a real-time surgery can't be played back
+        if (recorded.isRealTime()) {
+            viewer.sendMessage(uiUpdater.getMessage("replay-real-time",
+                "&cSurgery %id% ran in real time and can't be replayed.").replace("%id%", formatId(recorded.getSeed())));
+            return false;
+        }
+
+        SurgeryMoveLog moves = recorded.getMoves();
+        SurgerySnapshot snapshot = configManager.getSnapshot();
+        SurgerySession session = new SurgerySession(recorded.getSurgeonId(), snapshot, recorded.getSeed(), new SurgeryMoveLog());
+        session.setPatientName(recorded.getPatientName());
+        session.setRealTime(false);
+        SurgeryRules.setUp(session, toolRegistry.getStartingTools());
+
+        viewer.sendMessage(uiUpdater.getMessage("replay-header", "&6Replay %id%: %surgeon% on %patient%, %moves% moves")
+            .replace("%id%", formatId(recorded.getSeed()))
+            .replace("%surgeon%", recorded.getSurgeonName())
+            .replace("%patient%", recorded.getPatientName())
+            .replace("%moves%", String.valueOf(moves.size())));
+
+        boolean diverged = false;
+        for (int i = 0; i < moves.size(); i++) {
+            int slot = moves.get(i);
+            SurgicalTool tool = toolRegistry.get(slot);
+            String toolName = tool != null ? tool.getId() : "slot " + slot;
+
+            MoveResult result = itemHandler.replayMove(session, slot);
+            if (result == null) {
+                viewer.sendMessage(uiUpdater.getMessage("replay-diverged", "&cMove %move% (%tool%) could not be played.")
+                    .replace("%move%", String.valueOf(i + 1))
+                    .replace("%tool%", toolName));
+                diverged = true;
+                break;
+            }
+
+            sendStep(viewer, session, result, i + 1, toolName);
+        }
+
+        // A surgeon who gave up left without a final move
+        String expected = recorded.getResultKey();
+        String result = session.getResultKey();
+        boolean matches = !diverged && (expected == null ? result == null
+            : expected.equals(result) || (result == null && expected.equals("failure-gave-up")));
+
+        viewer.sendMessage(uiUpdater.getMessage("replay-result", "&6Result: &f%result% &7(recorded: %recorded%)")
+            .replace("%result%", result != null ? result : "unfinished")
+            .replace("%recorded%", expected != null ? expected : "unknown"));
+        viewer.sendMessage(matches
+            ? uiUpdater.getMessage("replay-match", "&aThe replay matches the recorded surgery.")
+            : uiUpdater.getMessage("replay-mismatch", "&cThe replay differs from the recorded surgery."));
+        return matches;
+    }
+
+    // ==============================================
+    // Sends the vitals after a move, then the messages the move produced
+    // ==============================================
+    private void sendStep(CommandSender viewer, SurgerySession session, MoveResult result, int move, String toolName) {
+        SurgeryMessages messages = session.getSnapshot().getMessages();
+        viewer.sendMessage(uiUpdater.getMessage("replay-step", "&7#%move% &f%tool%&7: %pulse%, %status%, %temperature%, %incisions% incisions")
+            .replace("%move%", String.valueOf(move))
+            .replace("%tool%", toolName)
+            .replace("%pulse%", messages.getDisplayName(session.getPulse()))
+            .replace("%status%", messages.getDisplayName(session.getStatus()))
+            .replace("%temperature%", SurgeryConstants.formatTemperature(session.getTemperature()))
+            .replace("%incisions%", String.valueOf(session.getIncisions())));
+
+        if (result.isSkillFail()) {
+            viewer.sendMessage("  " + uiUpdater.getSkillFailMessage(session, result));
+        }
+        for (String messageKey : result.getMessageKeys()) {
+            viewer.sendMessage("  " + uiUpdater.getMessage(messageKey));
+        }
+    }
+}
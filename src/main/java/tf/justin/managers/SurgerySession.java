@@ -0,0 +1,96 @@
+package tfmc.justin.managers;
+
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.inventory.Inventory;
+import tfmc.justin.rules.SurgeryMoveLog;
+import tfmc.justin.rules.SurgeryState;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.UUID;
+
+// ==============================================
+// Holds all state for a single ongoing surgery
+// One instance per surgeon, looked up once per click
+// Keeps the config snapshot it was started with, even across reloads.
+// The game state itself lives in SurgeryState; this adds the menu around it
+// ==============================================
+public class SurgerySession extends SurgeryState {
+
+    // Marker for tools whose place in the surgeon's inventory is not known
+    public static final int NO_SLOT = -1;
+
+    private final UUID surgeonId;
+    private final SurgerySnapshot snapshot;
+    private UUID patientId;
+    private String patientName = "Unknown";
+    private Inventory menu;
+    // Shared by the patient and spectators; null while nobody watches
+    private Inventory view;
+    private final SurgeryRenderFrame frame = new SurgeryRenderFrame();
+    private final SurgeryChatBuffer chat = new SurgeryChatBuffer();
+    private boolean ended;
+    private long startedAt = System.currentTimeMillis();
+    private String skillFail = "";
+    // Tick of the real-time clock the next beat is due, 0 if none is
+    private long nextBeat;
+
+    // Surgeon inventory slot each tool was last taken from, indexed by menu slot
+    // Only a hint: it is checked before use and cleared when the inventory changes
+    private final int[] toolInventorySlots = new int[SurgicalToolRegistry.MENU_SIZE];
+
+    public SurgerySession(UUID surgeonId, SurgerySnapshot snapshot, long seed, SurgeryMoveLog moves) {
+        super(snapshot.getTuning(), snapshot.getDiagnoses(), seed, moves);
+        this.surgeonId = surgeonId;
+        this.snapshot = snapshot;
+        Arrays.fill(toolInventorySlots, NO_SLOT);
+        setRealTime(snapshot.getTuning().isRealTime());
+    }
+
+    // ==============================================
+    // Getters
+    // ==============================================
+    public UUID getSurgeonId() { return surgeonId; }
+    public SurgerySnapshot getSnapshot() { return snapshot; }
+    public UUID getPatientId() { return patientId; }
+    public String getPatientName() { return patientName; }
+    public Inventory getMenu() { return menu; }
+    public Inventory getView() { return view; }
+    public SurgeryRenderFrame getFrame() { return frame; }
+    public SurgeryChatBuffer getChat() { return chat; }
+    public boolean isEnded() { return ended; }
+    public long getStartedAt() { return startedAt; }
+    public String getSkillFail() { return skillFail; }
+    public long getNextBeat() { return nextBeat; }
+    public int getToolInventorySlot(int menuSlot) { return toolInventorySlots[menuSlot]; }
+
+    // ==============================================
+    // Setters
+    // ==============================================
+    public void setPatientId(UUID patientId) { this.patientId = patientId; }
+    public void setPatientName(String patientName) { this.patientName = patientName; }
+    public void setMenu(Inventory menu) { this.menu = menu; }
+    public void setView(Inventory view) { this.view = view; }
+    public void setStartedAt(long startedAt) { this.startedAt = startedAt; }
+    public void setSkillFail(String skillFail) { this.skillFail = skillFail; }
+    public void setNextBeat(long nextBeat) { this.nextBeat = nextBeat; }
+    public void setToolInventorySlot(int menuSlot, int inventorySlot) { toolInventorySlots[menuSlot] = inventorySlot; }
+    public void invalidateToolInventorySlots() { Arrays.fill(toolInventorySlots, NO_SLOT); }
+
+    public void markEnded() { this.ended = true; }
+
+    // ==============================================
+    // Sends anyone still watching the surgery away. The view is dropped
+    // first, so their close events don't look for it
+    // ==============================================
+    public void closeView() {
+        if (view == null) {
+            return;
+        }
+        Inventory watched = view;
+        view = null;
+        for (HumanEntity viewer : new ArrayList<>(watched.getViewers())) {
+            viewer.closeInventory();
+        }
+    }
+}
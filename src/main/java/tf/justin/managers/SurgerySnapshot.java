@@ -0,0 +1,46 @@
+package tfmc.justin.managers;
+
+import org.bukkit.configuration.file.FileConfiguration;
+import tfmc.justin.rules.DiagnosisIndex;
+import tfmc.justin.rules.SurgeryTuning;
+
+// ==============================================
+// One complete, immutable load of the plugin's configuration files
+// Swapped as a whole on reload; sessions keep the one they started with
+// ==============================================
+public final class SurgerySnapshot {
+
+    private final int version;
+    private final FileConfiguration config;
+    private final SurgeryTuning tuning;
+    private final DiagnosisIndex diagnoses;
+    private final SurgeryMessages messages;
+    private final SurgeryOutcomeCommands outcomeCommands;
+    private final SurgeryItemTemplates itemTemplates;
+    private final SurgeryRenderCache renderCache;
+
+    public SurgerySnapshot(int version, FileConfiguration config, SurgeryTuning tuning, DiagnosisIndex diagnoses,
+                           SurgeryMessages messages, SurgeryOutcomeCommands outcomeCommands,
+                           SurgeryItemTemplates itemTemplates, SurgeryRenderCache renderCache) {
+        this.version = version;
+        this.config = config;
+        this.tuning = tuning;
+        this.diagnoses = diagnoses;
+        this.messages = messages;
+        this.outcomeCommands = outcomeCommands;
+        this.itemTemplates = itemTemplates;
+        this.renderCache = renderCache;
+    }
+
+    // ==============================================
+    // Getters
+    // ==============================================
+    public int getVersion() { return version; }
+    public FileConfiguration getConfig() { return config; }
+    public SurgeryTuning getTuning() { return tuning; }
+    public DiagnosisIndex getDiagnoses() { return diagnoses; }
+    public SurgeryMessages getMessages() { return messages; }
+    public SurgeryOutcomeCommands getOutcomeCommands() { return outcomeCommands; }
+    public SurgeryItemTemplates getItemTemplates() { return itemTemplates; }
+    public SurgeryRenderCache getRenderCache() { return renderCache; }
+}
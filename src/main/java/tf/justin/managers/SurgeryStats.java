@@ -0,0 +1,75 @@
+package tfmc.justin.managers;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// ==============================================
+// Running totals for one surgeon or one diagnosis
+// Updated as surgeries finish, so queries never scan the history
+// ==============================================
+public final class SurgeryStats {
+
+    private String name;
+    private int total;
+    private int successes;
+    private long totalMoves;
+    private long totalDurationMillis;
+    private final Map<String, Integer> failures = new HashMap<>();
+
+    public SurgeryStats(String name) {
+        this.name = name;
+    }
+
+    // ==============================================
+    // Counts one finished surgery
+    // ==============================================
+    public void add(SurgeryOutcome outcome) {
+        total++;
+        totalMoves += outcome.getMoveCount();
+        totalDurationMillis += outcome.getDurationMillis();
+        if (outcome.isSuccess()) {
+            successes++;
+        } else if (outcome.getFailureKey() != null) {
+            failures.merge(outcome.getFailureKey(), 1, Integer::sum);
+        }
+    }
+
+    // ==============================================
+    // Adds another set of totals for the same surgeon or diagnosis
+    // The other name wins, as it is the more recent one
+    // ==============================================
+    public void merge(SurgeryStats other) {
+        name = other.name;
+        total += other.total;
+        successes += other.successes;
+        totalMoves += other.totalMoves;
+        totalDurationMillis += other.totalDurationMillis;
+        other.failures.forEach((key, count) -> failures.merge(key, count, Integer::sum));
+    }
+
+    // ==============================================
+    // Gets the failure message key seen most often, or null if none
+    // ==============================================
+    public String getTopFailure() {
+        String top = null;
+        int topCount = 0;
+        for (Map.Entry<String, Integer> entry : failures.entrySet()) {
+            if (entry.getValue() > topCount) {
+                top = entry.getKey();
+                topCount = entry.getValue();
+            }
+        }
+        return top;
+    }
+
+    // ==============================================
+    // Getters
+    // ==============================================
+    public String getName() { return name; }
+    public int getTotal() { return total; }
+    public int getSuccesses() { return successes; }
+    public int getFailureCount(String key) { return failures.getOrDefault(key, 0); }
+    public double getSuccessRate() { return total == 0 ? 0 : successes * 100.0 / total; }
+    public double getAverageMoves() { return total == 0 ? 0 : (double) totalMoves / total; }
+    public long getAverageDurationMillis() { return total == 0 ? 0 : totalDurationMillis / total; }
+}
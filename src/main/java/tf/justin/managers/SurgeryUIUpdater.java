@@ -2,49 +2,35 @@ package tfmc.justin.managers;
 
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
-import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.plugin.java.JavaPlugin;
-
-import java.io.File;
-import java.util.UUID;
+import tfmc.justin.rules.DiagnosisProfile;
+import tfmc.justin.rules.MoveResult;
+import tfmc.justin.rules.OperationSite;
+import tfmc.justin.rules.PatientStatus;
+import tfmc.justin.rules.Pulse;
 
 // ==============================================
 // Handles all UI updates for the surgery menu
+// Info blocks come from the session's pinned snapshot and are queued on its
+// render frame, chat messages come from the current snapshot
 // ==============================================
 public class SurgeryUIUpdater {
     
     private final JavaPlugin plugin;
-    private final SurgeryStateManager stateManager;
-    private final DiagnosisChecker diagnosisChecker;
-    private FileConfiguration messages;
+    private final SurgeryConfigManager configManager;
     
-    public SurgeryUIUpdater(JavaPlugin plugin, SurgeryStateManager stateManager, DiagnosisChecker diagnosisChecker) {
+    public SurgeryUIUpdater(JavaPlugin plugin, SurgeryConfigManager configManager) {
         this.plugin = plugin;
-        this.stateManager = stateManager;
-        this.diagnosisChecker = diagnosisChecker;
-        loadMessages();
-    }
-    
-    // ==============================================
-    // Loads the messages.yml file
-    // ==============================================
-    private void loadMessages() {
-        File messagesFile = new File(plugin.getDataFolder(), "messages.yml");
-        if (!messagesFile.exists()) {
-            plugin.saveResource("messages.yml", false);
-        }
-        messages = YamlConfiguration.loadConfiguration(messagesFile);
+        this.configManager = configManager;
     }
     
     // ==============================================
     // Creates an info block with material, name, and description
     // ==============================================
-    public ItemStack createInfoBlock(Material material, String name, String description) {
+    public static ItemStack createInfoBlock(Material material, String name, String description) {
         ItemStack block = new ItemStack(material);
         ItemMeta meta = block.getItemMeta();
         if (meta != null) {
@@ -58,7 +44,7 @@ public class SurgeryUIUpdater {
     // ==============================================
     // Creates an info block with material, name, and lore list
     // ==============================================
-    public ItemStack createInfoBlock(Material material, String name, java.util.List<String> lore) {
+    public static ItemStack createInfoBlock(Material material, String name, java.util.List<String> lore) {
         ItemStack block = new ItemStack(material);
         ItemMeta meta = block.getItemMeta();
         if (meta != null) {
@@ -69,69 +55,161 @@ public class SurgeryUIUpdater {
         return block;
     }
     
+    // ==============================================
+    // Queues what a move did: its chat messages, the skill fail, the info
+    // blocks and the tools that came or went since toolsBefore
+    // ==============================================
+    public void applyMove(SurgerySession session, MoveResult result, long toolsBefore) {
+        for (String messageKey : result.getMessageKeys()) {
+            queueMessage(session, getMessage(messageKey));
+        }
+        
+        String skillFailMsg = getSkillFailMessage(session, result);
+        session.setSkillFail(skillFailMsg);
+        updateSkillFailBlock(session, skillFailMsg);
+        
+        if (result.isDiagnosisRevealed()) {
+            ItemStack diagnosisBlock = createInfoBlock(Material.YELLOW_CONCRETE, ChatColor.GOLD + "Diagnosis",
+                ChatColor.GRAY + "The patient suffers from " + session.getDiagnosis().getName());
+            session.getFrame().set(10, diagnosisBlock);
+        } else if (result.isDiagnosisChanged()) {
+            updateDiagnosisBlock(session);
+        }
+        
+        updateVitals(session);
+        updateToolSlots(session, toolsBefore ^ session.getToolsInMenu());
+    }
+    
+    // ==============================================
+    // Queues what a beat of the real-time clock did: its chat messages and
+    // the vitals. The skill fail of the last move stays on show
+    // ==============================================
+    public void applyBeat(SurgerySession session, MoveResult result) {
+        for (String messageKey : result.getMessageKeys()) {
+            queueMessage(session, getMessage(messageKey));
+        }
+        updateVitals(session);
+    }
+    
+    // ==============================================
+    // Queues every info block and tool of a new or reopened menu
+    // ==============================================
+    public void renderState(SurgerySession session) {
+        if (session.hasDiagnosis()) {
+            updateDiagnosisBlock(session);
+        } else {
+            session.getFrame().set(10, session.getSnapshot().getRenderCache().undiagnosedBlock());
+        }
+        updateVitals(session);
+        updateSkillFailBlock(session, session.getSkillFail());
+        updateToolSlots(session, session.getToolsInMenu());
+    }
+    
+    // ==============================================
+    // Gets the skill fail message a move reported, or "" if it had none
+    // Listed messages are picked by the move's roll so replays pick the same one
+    // ==============================================
+    public String getSkillFailMessage(SurgerySession session, MoveResult result) {
+        if (!result.isSkillFail()) {
+            return "";
+        }
+        if (result.getSkillFailText() != null) {
+            return result.getSkillFailText();
+        }
+        
+        SurgeryMessages messages = session.getSnapshot().getMessages();
+        java.util.List<String> list = messages.getList(result.getSkillFailKey());
+        if (!list.isEmpty()) {
+            return list.get(Math.floorMod(result.getSkillFailRoll(), list.size()));
+        }
+        return messages.get(result.getSkillFailKey(), "Something went wrong!");
+    }
+    
+    // ==============================================
+    // Queues the vital blocks (slots 11-15) from the session state
+    // The frame only writes the ones that changed
+    // ==============================================
+    private void updateVitals(SurgerySession session) {
+        updatePulseBlock(session, session.getPulse());
+        updateStatusBlock(session, session.getStatus());
+        updateTemperatureBlock(session, session.getTemperature());
+        updateOperationSiteBlock(session, session.getOperationSite());
+        updateIncisionBlock(session, session.getIncisions());
+    }
+    
+    // ==============================================
+    // Puts the tools in the given slots into the menu or takes them out
+    // ==============================================
+    private void updateToolSlots(SurgerySession session, long slots) {
+        SurgeryItemTemplates itemTemplates = session.getSnapshot().getItemTemplates();
+        while (slots != 0) {
+            int slot = Long.numberOfTrailingZeros(slots);
+            slots &= slots - 1;
+            
+            // Missing items were already reported when the templates were loaded
+            session.getFrame().set(slot, session.isToolInMenu(slot) ? itemTemplates.get(slot) : null);
+        }
+    }
+    
     // ==============================================
     // Updates the incision block
     // ==============================================
-    public void updateIncisionBlock(Inventory menu, UUID playerId, int incisions) {
-        Material incisionColor = SurgeryConstants.getIncisionColor(incisions);
-        ItemStack incisionBlock = createInfoBlock(incisionColor, ChatColor.GOLD + "Incisions", ChatColor.GRAY + String.valueOf(incisions));
-        menu.setItem(15, incisionBlock);
+    public void updateIncisionBlock(SurgerySession session, int incisions) {
+        session.getFrame().set(15, session.getSnapshot().getRenderCache().incisionBlock(incisions));
     }
     
     // ==============================================
     // Updates the temperature block
     // ==============================================
-    public void updateTemperatureBlock(Inventory menu, UUID playerId, double temp) {
-        Material tempColor = SurgeryConstants.getTemperatureColor(temp);
-        String tempDisplay = SurgeryConstants.formatTemperature(temp);
-        ItemStack tempBlock = createInfoBlock(tempColor, ChatColor.GOLD + "Temperature", ChatColor.GRAY + tempDisplay);
-        menu.setItem(13, tempBlock);
+    public void updateTemperatureBlock(SurgerySession session, double temp) {
+        session.getFrame().set(13, session.getSnapshot().getRenderCache().temperatureBlock(temp));
     }
     
     // ==============================================
     // Updates the operation site block
     // ==============================================
-    public void updateOperationSiteBlock(Inventory menu, UUID playerId, String status) {
-        Material siteColor = SurgeryConstants.getOperationSiteColor(status);
-        ItemStack siteBlock = createInfoBlock(siteColor, ChatColor.GOLD + "Operation Site", ChatColor.GRAY + status);
-        menu.setItem(14, siteBlock);
+    public void updateOperationSiteBlock(SurgerySession session, OperationSite site) {
+        session.getFrame().set(14, session.getSnapshot().getRenderCache().siteBlock(site));
     }
     
     // ==============================================
     // Updates the status block
     // ==============================================
-    public void updateStatusBlock(Inventory menu, UUID playerId, String status) {
-        Material statusColor = SurgeryConstants.getStatusColor(status);
-        ItemStack statusBlock = createInfoBlock(statusColor, ChatColor.GOLD + "Status", ChatColor.GRAY + status);
-        menu.setItem(12, statusBlock);
+    public void updateStatusBlock(SurgerySession session, PatientStatus status) {
+        session.getFrame().set(12, session.getSnapshot().getRenderCache().statusBlock(status));
     }
     
     // ==============================================
     // Updates the pulse block
     // ==============================================
-    public void updatePulseBlock(Inventory menu, UUID playerId, String pulse) {
-        Material pulseColor = SurgeryConstants.getPulseColor(pulse);
-        ItemStack pulseBlock = createInfoBlock(pulseColor, ChatColor.GOLD + "Pulse", ChatColor.GRAY + pulse);
-        menu.setItem(11, pulseBlock);
+    public void updatePulseBlock(SurgerySession session, Pulse pulse) {
+        session.getFrame().set(11, session.getSnapshot().getRenderCache().pulseBlock(pulse));
+    }
+    
+    // ==============================================
+    // Updates the skill fail block (empty message means no skill fail)
+    // ==============================================
+    public void updateSkillFailBlock(SurgerySession session, String skillFailMsg) {
+        session.getFrame().set(16, session.getSnapshot().getRenderCache().skillFailBlock(skillFailMsg));
     }
     
     // ==============================================
     // Updates the diagnosis block
     // ==============================================
-    public void updateDiagnosisBlock(Inventory menu, UUID playerId) {
-        String diagnosis = stateManager.getDiagnosis(playerId);
-        boolean cured = stateManager.isCured(playerId);
+    public void updateDiagnosisBlock(SurgerySession session) {
+        DiagnosisProfile diagnosis = session.getDiagnosis();
+        boolean cured = session.isCured();
         
         Material diagnosisColor = cured ? Material.LIME_CONCRETE : Material.RED_CONCRETE;
-        String diagnosisText = diagnosis != null ? ChatColor.GRAY + diagnosis : ChatColor.GRAY + "The patient has not been diagnosed.";
+        String diagnosisText = diagnosis != null ? ChatColor.GRAY + diagnosis.getName() : ChatColor.GRAY + "The patient has not been diagnosed.";
         
         ItemStack diagnosisBlock;
-        if (diagnosis != null && diagnosisChecker.hasBones(diagnosis)) {
+        if (diagnosis != null && diagnosis.hasBones()) {
             // ==============================================
             // Show bone information in description
             // ==============================================
-            int brokenBones = stateManager.getRevealedBrokenBones(playerId);
-            int shatteredBones = stateManager.getRevealedShatteredBones(playerId);
+            int brokenBones = session.getRevealedBrokenBones();
+            int shatteredBones = session.getRevealedShatteredBones();
             
             java.util.List<String> lore = new java.util.ArrayList<>();
             lore.add(diagnosisText);
@@ -143,30 +221,62 @@ public class SurgeryUIUpdater {
             diagnosisBlock = createInfoBlock(diagnosisColor, ChatColor.GOLD + "Diagnosis", diagnosisText);
         }
         
-        menu.setItem(10, diagnosisBlock);
+        session.getFrame().set(10, diagnosisBlock);
+    }
+    
+    // ==============================================
+    // Queues a message; flushMessages() sends it, numbered, with the rest of
+    // the move's messages
+    // ==============================================
+    public void queueMessage(SurgerySession session, String message) {
+        session.getChat().add(message, session.getTuning().getMaxChatLinesPerMove());
     }
     
     // ==============================================
-    // Sends a numbered message to the player
+    // Sends everything queued this move as one multi-line chat message
     // ==============================================
-    public void sendNumberedMessage(Player player, String message) {
-        UUID playerId = player.getUniqueId();
-        int moveNumber = stateManager.getMoveCount(playerId) + 1;
+    public void flushMessages(Player player, SurgerySession session) {
+        SurgeryChatBuffer chat = session.getChat();
+        if (chat.isEmpty()) {
+            return;
+        }
+        
+        int moveNumber = session.getMoveCount() + 1;
         String prefix = ChatColor.GRAY + "" + ChatColor.BOLD + "[Move " + moveNumber + "] " + ChatColor.RESET;
-        player.sendMessage(prefix + message);
+        StringBuilder out = new StringBuilder();
+        for (String line : chat.getLines()) {
+            if (out.length() > 0) {
+                out.append('\n');
+            }
+            out.append(prefix).append(line);
+        }
+        if (chat.getDropped() > 0) {
+            String more = getMessage("chat-more-lines", "&7...and %count% more").replace("%count%", String.valueOf(chat.getDropped()));
+            out.append('\n').append(prefix).append(more);
+        }
+        
+        chat.clear();
+        player.sendMessage(out.toString());
     }
     
     // ==============================================
     // Gets a message from messages.yml and translates color codes
     // ==============================================
     public String getMessage(String path) {
-        return ChatColor.translateAlternateColorCodes('&', messages.getString(path, ""));
+        return getMessage(path, "");
+    }
+    
+    // ==============================================
+    // Gets a message with a fallback for keys missing from older messages.yml files
+    // ==============================================
+    public String getMessage(String path, String def) {
+        return configManager.getSnapshot().getMessages().get(path, def);
     }
     
     // ==============================================
     // Gets a list of messages from messages.yml
     // ==============================================
     public java.util.List<String> getMessageList(String path) {
-        return messages.getStringList(path);
+        return configManager.getSnapshot().getMessages().getList(path);
     }
 }
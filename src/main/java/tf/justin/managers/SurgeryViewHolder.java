@@ -0,0 +1,30 @@
+package tfmc.justin.managers;
+
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+
+// ==============================================
+// Marks an inventory as the read-only view of a live surgery, shared by
+// the patient and every spectator. Lets the listener turn viewers' clicks
+// away with one instanceof check
+// ==============================================
+public class SurgeryViewHolder implements InventoryHolder {
+
+    private final SurgerySession session;
+    private Inventory inventory;
+
+    public SurgeryViewHolder(SurgerySession session) {
+        this.session = session;
+    }
+
+    // ==============================================
+    // Getters and setters
+    // ==============================================
+    public SurgerySession getSession() { return session; }
+    public void setInventory(Inventory inventory) { this.inventory = inventory; }
+
+    @Override
+    public Inventory getInventory() {
+        return inventory;
+    }
+}
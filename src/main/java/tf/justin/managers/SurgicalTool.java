@@ -0,0 +1,55 @@
+package tfmc.justin.managers;
+
+import tfmc.justin.rules.BuiltInTool;
+import tfmc.justin.rules.ToolRule;
+
+// ==============================================
+// One clickable tool in the surgery menu
+// Its item path is read from surgeryItemsConfig.yml under items.<id> and
+// its skill fail messages from messages.yml under skill-fail-<id>.
+// Built-in tools play their rule from the rules engine; tools added by
+// other plugins run a handler with access to the surgeon and the menu
+// ==============================================
+public final class SurgicalTool {
+
+    private final String id;
+    private final int slot;
+    private final String defaultItemPath;
+    private final boolean startsInMenu;
+    private final String skillFailKey;
+    private final ToolRule rule;
+    private final SurgicalToolHandler handler;
+
+    // ==============================================
+    // Tools that don't start in the menu are placed by their own mechanics
+    // ==============================================
+    public SurgicalTool(String id, int slot, String defaultItemPath, boolean startsInMenu, SurgicalToolHandler handler) {
+        this(id, slot, defaultItemPath, startsInMenu, null, handler);
+    }
+
+    public SurgicalTool(BuiltInTool tool, String defaultItemPath) {
+        this(tool.getId(), tool.getSlot(), defaultItemPath, tool.startsInMenu(), tool, null);
+    }
+
+    private SurgicalTool(String id, int slot, String defaultItemPath, boolean startsInMenu,
+                         ToolRule rule, SurgicalToolHandler handler) {
+        this.id = id;
+        this.slot = slot;
+        this.defaultItemPath = defaultItemPath;
+        this.startsInMenu = startsInMenu;
+        this.skillFailKey = "skill-fail-" + id;
+        this.rule = rule;
+        this.handler = handler;
+    }
+
+    // ==============================================
+    // Getters
+    // ==============================================
+    public String getId() { return id; }
+    public int getSlot() { return slot; }
+    public String getDefaultItemPath() { return defaultItemPath; }
+    public boolean startsInMenu() { return startsInMenu; }
+    public String getSkillFailKey() { return skillFailKey; }
+    public ToolRule getRule() { return rule; }
+    public SurgicalToolHandler getHandler() { return handler; }
+}
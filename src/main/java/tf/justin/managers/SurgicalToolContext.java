@@ -0,0 +1,54 @@
+package tfmc.justin.managers;
+
+import org.bukkit.entity.Player;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+// ==============================================
+// Everything a tool handler needs for a single use
+// Handlers must roll dice through getRandom() so the move can be replayed,
+// and show or hide tools through showTool/hideTool so the menu is saved
+// and replayed with them. The player is null during a replay
+// ==============================================
+public final class SurgicalToolContext {
+
+    private final Player player;
+    private final SurgerySession session;
+    private final SurgicalTool tool;
+    private final boolean skillFail;
+
+    public SurgicalToolContext(Player player, SurgerySession session, SurgicalTool tool, boolean skillFail) {
+        this.player = player;
+        this.session = session;
+        this.tool = tool;
+        this.skillFail = skillFail;
+    }
+
+    // ==============================================
+    // Getters
+    // ==============================================
+    public Player getPlayer() { return player; }
+    public SurgerySession getSession() { return session; }
+    public SurgeryRenderFrame getFrame() { return session.getFrame(); }
+    public SurgicalTool getTool() { return tool; }
+    public boolean isSkillFail() { return skillFail; }
+    public SplittableRandom getRandom() { return session.getRandom(); }
+
+    // ==============================================
+    // Puts a tool into the menu or takes it out at the end of the move
+    // ==============================================
+    public void showTool(int slot) { session.showTool(slot); }
+    public void hideTool(int slot) { session.hideTool(slot); }
+
+    // ==============================================
+    // Picks a random message from this tool's skill fail table
+    // ==============================================
+    public String randomSkillFail() {
+        List<String> messages = session.getSnapshot().getMessages().getList(tool.getSkillFailKey());
+        if (messages.isEmpty()) {
+            return "Something went wrong!";
+        }
+        return messages.get(getRandom().nextInt(messages.size()));
+    }
+}
@@ -0,0 +1,11 @@
+package tfmc.justin.managers;
+
+// ==============================================
+// What happens when a surgical tool is used
+// Called after the tool was taken from the surgeon and the move effects ran.
+// Returns the skill fail message to show, or "" if the move succeeded
+// ==============================================
+@FunctionalInterface
+public interface SurgicalToolHandler {
+    String use(SurgicalToolContext context);
+}
@@ -0,0 +1,89 @@
+package tfmc.justin.managers;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// ==============================================
+// All tools that can be used in the surgery menu, looked up by slot or id
+// Other plugins can register their own tools here. Main thread only
+// ==============================================
+public class SurgicalToolRegistry {
+
+    public static final int MENU_SIZE = 54;
+
+    // Slots 10-16 hold the info blocks
+    private static final int FIRST_INFO_SLOT = 10;
+    private static final int LAST_INFO_SLOT = 16;
+
+    private final SurgicalTool[] bySlot = new SurgicalTool[MENU_SIZE];
+    private final Map<String, SurgicalTool> byId = new LinkedHashMap<>();
+
+    // ==============================================
+    // Registers a tool, failing if its slot or id is already taken
+    // ==============================================
+    public void register(SurgicalTool tool) {
+        int slot = tool.getSlot();
+        if (slot < 0 || slot >= MENU_SIZE) {
+            throw new IllegalArgumentException("Slot " + slot + " is outside the surgery menu");
+        }
+        if (slot >= FIRST_INFO_SLOT && slot <= LAST_INFO_SLOT) {
+            throw new IllegalArgumentException("Slot " + slot + " is reserved for an info block");
+        }
+        if (bySlot[slot] != null) {
+            throw new IllegalArgumentException("Slot " + slot + " is already used by " + bySlot[slot].getId());
+        }
+        if (byId.containsKey(tool.getId())) {
+            throw new IllegalArgumentException("A tool with id " + tool.getId() + " is already registered");
+        }
+
+        bySlot[slot] = tool;
+        byId.put(tool.getId(), tool);
+    }
+
+    // ==============================================
+    // Removes a tool. Menus that are already open keep its item
+    // ==============================================
+    public SurgicalTool unregister(String id) {
+        SurgicalTool tool = byId.remove(id);
+        if (tool != null) {
+            bySlot[tool.getSlot()] = null;
+        }
+        return tool;
+    }
+
+    // ==============================================
+    // Gets the tool in a menu slot, or null
+    // ==============================================
+    public SurgicalTool get(int slot) {
+        if (slot >= 0 && slot < MENU_SIZE) {
+            return bySlot[slot];
+        }
+        return null;
+    }
+
+    public SurgicalTool get(String id) {
+        return byId.get(id);
+    }
+
+    // ==============================================
+    // Bit mask of the slots of the tools that start in the menu
+    // ==============================================
+    public long getStartingTools() {
+        long slots = 0;
+        for (SurgicalTool tool : byId.values()) {
+            if (tool.startsInMenu()) {
+                slots |= 1L << tool.getSlot();
+            }
+        }
+        return slots;
+    }
+
+    // ==============================================
+    // All tools in registration order
+    // ==============================================
+    public Collection<SurgicalTool> getTools() {
+        return Collections.unmodifiableCollection(byId.values());
+    }
+}
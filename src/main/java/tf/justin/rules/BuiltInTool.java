@@ -0,0 +1,390 @@
+package tfmc.justin.rules;
+
+// ==============================================
+// The tools that ship with the plugin and what each one does
+// Tools that don't start in the menu are shown by the rules
+// ==============================================
+public enum BuiltInTool implements ToolRule {
+
+    // ==============================================
+    // Sponge: removes bleeding and provides temporary protection against skill fails
+    // ==============================================
+    SPONGE("sponge", 28, true) {
+        @Override
+        public void use(SurgeryState state, boolean skillFail, MoveResult result) {
+            if (skillFail) {
+                randomSkillFail(state, result);
+                return;
+            }
+            state.setBleeding(false);
+            state.setSpongeEffect(true);
+            state.setMovesSinceLastSponge(0);
+            result.addMessage("vision-cleared");
+        }
+    },
+
+    // ==============================================
+    // Scalpel: creates incisions and affects pulse
+    // ==============================================
+    SCALPEL("scalpel", 29, true) {
+        @Override
+        public void use(SurgeryState state, boolean skillFail, MoveResult result) {
+            if (skillFail) {
+                // On skill fail: lower pulse instead of creating incision
+                state.setPulse(state.getPulse().worsen());
+                result.addMessage("pulse-weakening");
+                randomSkillFail(state, result);
+                return;
+            }
+
+            int incisions = state.getIncisions() + 1;
+            state.setIncisions(incisions);
+
+            // Scalpel makes operation site unclean ("bleeding")
+            if (state.getOperationSite() == OperationSite.CLEAN) {
+                state.setOperationSite(OperationSite.UNCLEAN);
+            }
+
+            // Paper Cuts: Show examined message after 2 scalpel uses
+            DiagnosisProfile diagnosis = state.getDiagnosis();
+            if (diagnosis != null && diagnosis.getMechanic() == DiagnosisMechanic.PAPER_CUTS
+                    && incisions == state.getTuning().getPaperCutsScalpelUses()) {
+                state.setWoundsExamined(true);
+                result.addMessage("wounds-examined");
+            }
+
+            // Reveal bones at required incision count for bone-based diagnoses
+            if (diagnosis != null) {
+                SurgeryRules.handleBoneReveal(state, result, diagnosis, incisions);
+            }
+
+            // 50% chance for pulse to decrease when making incision
+            if (state.getDice().chance(state.getTuning().getScalpelPulseDecreaseChance())) {
+                state.setPulse(state.getPulse().worsen());
+                result.addMessage("pulse-weakening");
+            }
+
+            SurgeryRules.checkForFixItButton(state, result, incisions);
+        }
+    },
+
+    // ==============================================
+    // Stitches: closes incisions and can stop bleeding
+    // ==============================================
+    STITCHES("stitches", 30, true) {
+        @Override
+        public void use(SurgeryState state, boolean skillFail, MoveResult result) {
+            if (skillFail) {
+                randomSkillFail(state, result);
+                return;
+            }
+            int incisions = Math.max(0, state.getIncisions() - 1);
+            state.setIncisions(incisions);
+            if (incisions == 0) {
+                state.setBleeding(false);
+            }
+            SurgeryRules.updateDynamicTools(state, result);
+        }
+    },
+
+    // ==============================================
+    // Antibiotics: reduces temperature by 5.4°F (3.0°C) by default
+    // ==============================================
+    ANTIBIOTICS("antibiotics", 31, false) {
+        @Override
+        public void use(SurgeryState state, boolean skillFail, MoveResult result) {
+            SurgeryTuning tuning = state.getTuning();
+            if (skillFail) {
+                double temp = state.getTemperature() + tuning.getAntibioticsTempChange();
+                state.setTemperature(Math.min(temp, tuning.getInstantDeathTemp()));
+                randomSkillFail(state, result);
+                return;
+            }
+            double temp = state.getTemperature() - tuning.getAntibioticsTempChange();
+            state.setTemperature(Math.max(temp, tuning.getNormalTemp()));
+            result.addMessage("temperature-reduced");
+            SurgeryRules.checkForFixItButton(state, result, 0);
+        }
+    },
+
+    // ==============================================
+    // Antiseptic: cleans the operation site and provides temperature protection
+    // ==============================================
+    ANTISEPTIC("antiseptic", 32, true) {
+        @Override
+        public void use(SurgeryState state, boolean skillFail, MoveResult result) {
+            if (skillFail) {
+                randomSkillFail(state, result);
+                return;
+            }
+            state.setOperationSite(OperationSite.CLEAN);
+            state.setAntisepticProtection(true);
+            result.addMessage("operation-clean");
+        }
+    },
+
+    // ==============================================
+    // Surgical Glove: "Fixes" the patient
+    // ==============================================
+    SURGICAL_GLOVE("surgical-glove", 33, false) {
+        @Override
+        public void use(SurgeryState state, boolean skillFail, MoveResult result) {
+            if (skillFail) {
+                randomSkillFail(state, result);
+                return;
+            }
+            state.setCured(true);
+            state.hideTool(getSlot());
+            result.changeDiagnosis();
+
+            // Don't show incomplete message if surgery is already successful
+            if (!SurgeryRules.isSuccessful(state)) {
+                result.addMessage("condition-treated-incomplete");
+                result.addMessage("check-remaining");
+            }
+        }
+    },
+
+    // ==============================================
+    // Ultrasound: reveals diagnosis and sets temperature for flu diagnoses
+    // ==============================================
+    ULTRASOUND("ultrasound", 34, true) {
+        @Override
+        public void use(SurgeryState state, boolean skillFail, MoveResult result) {
+            if (skillFail) {
+                randomSkillFail(state, result);
+                return;
+            }
+
+            // Nothing to find without configured diagnoses; reported when the config loads
+            DiagnosisProfile diagnosis = state.getDiagnoses().randomDiagnosis(state.getDice());
+            if (diagnosis == null) {
+                return;
+            }
+            state.hideTool(getSlot());
+            state.setDiagnosis(diagnosis);
+            result.revealDiagnosis();
+
+            // If diagnosis is a flu, set initial high temperature (99-104°F)
+            if (diagnosis.isFlu()) {
+                state.setTemperature(state.getDice().between(99.0, 104.0));
+            }
+
+            // Assign bones only for bone-related diagnoses
+            if (diagnosis.hasBones()) {
+                // Get bone counts from config, or use random if not specified
+                int brokenBones = diagnosis.rollBrokenBones(state.getDice());
+                int shatteredBones = diagnosis.rollShatteredBones(state.getDice());
+                state.setBrokenBones(brokenBones);
+                state.setShatteredBones(shatteredBones);
+            }
+
+            // Check if surgical glove should appear
+            SurgeryRules.checkForFixItButton(state, result, 0);
+        }
+    },
+
+    // ==============================================
+    // Lab kit: reveals antibiotics
+    // ==============================================
+    LAB_KIT("lab-kit", 37, true) {
+        @Override
+        public void use(SurgeryState state, boolean skillFail, MoveResult result) {
+            if (skillFail) {
+                randomSkillFail(state, result);
+                return;
+            }
+            state.hideTool(getSlot());
+            state.showTool(ANTIBIOTICS.getSlot());
+        }
+    },
+
+    // ==============================================
+    // Anesthetic: unconsciousness for the patient
+    // ==============================================
+    ANESTHETIC("anesthetic", 38, true) {
+        @Override
+        public void use(SurgeryState state, boolean skillFail, MoveResult result) {
+            if (skillFail) {
+                randomSkillFail(state, result);
+                return;
+            }
+            if (state.getStatus().isSedated() && state.hasUnconsciousTimer()
+                    && state.getUnconsciousTimer() < state.getTuning().getAnestheticReuseCooldown()) {
+                state.setResultKey("failure-anesthetic-misuse");
+                return;
+            }
+            state.setStatus(PatientStatus.UNCONSCIOUS);
+            state.setUnconsciousTimer(0);
+        }
+    },
+
+    // ==============================================
+    // Defibrillator: revives the patient from a stopped heart
+    // ==============================================
+    DEFIBRILLATOR("defibrillator", 39, false) {
+        @Override
+        public void use(SurgeryState state, boolean skillFail, MoveResult result) {
+            if (skillFail) {
+                randomSkillFail(state, result);
+                return;
+            }
+            if (state.getStatus() == PatientStatus.HEART_STOPPED) {
+                state.setStatus(PatientStatus.UNCONSCIOUS);
+                state.removeDefibrillatorCountdown();
+                state.hideTool(getSlot());
+            }
+        }
+    },
+
+    // ==============================================
+    // Pins: fixes shattered bones
+    // ==============================================
+    PINS("pins", 40, false) {
+        @Override
+        public void use(SurgeryState state, boolean skillFail, MoveResult result) {
+            if (skillFail) {
+                DiagnosisProfile diagnosis = state.getDiagnosis();
+                if (diagnosis != null && diagnosis.getMechanic() == DiagnosisMechanic.ECTO_BONES) {
+                    state.setShatteredBones(state.getShatteredBones() + 1);
+                    state.setRevealedShatteredBones(state.getRevealedShatteredBones() + 1);
+                    result.failWith("skill-fail-pins-ecto-bones", 0);
+                } else {
+                    state.setBleeding(true);
+                    randomSkillFail(state, result);
+                }
+                return;
+            }
+
+            int shatteredBones = state.getShatteredBones();
+            if (shatteredBones > 0) {
+                state.setBrokenBones(state.getBrokenBones() + 1);
+                state.setShatteredBones(shatteredBones - 1);
+
+                int revealedShattered = state.getRevealedShatteredBones();
+                if (revealedShattered > 0) {
+                    state.setRevealedShatteredBones(revealedShattered - 1);
+                }
+                state.setRevealedBrokenBones(state.getRevealedBrokenBones() + 1);
+
+                result.changeDiagnosis();
+                SurgeryRules.updateDynamicTools(state, result);
+
+                if (shatteredBones - 1 == 0) {
+                    state.hideTool(getSlot());
+                }
+            }
+        }
+    },
+
+    // ==============================================
+    // Splint: fixes broken bones
+    // ==============================================
+    SPLINT("splint", 41, false) {
+        @Override
+        public void use(SurgeryState state, boolean skillFail, MoveResult result) {
+            if (skillFail) {
+                state.setBleeding(true);
+                randomSkillFail(state, result);
+                return;
+            }
+
+            int brokenBones = state.getBrokenBones();
+            if (brokenBones > 0) {
+                state.setBrokenBones(brokenBones - 1);
+                int revealedBroken = state.getRevealedBrokenBones();
+                if (revealedBroken > 0) {
+                    state.setRevealedBrokenBones(revealedBroken - 1);
+                }
+                result.changeDiagnosis();
+                if (brokenBones - 1 == 0) {
+                    state.hideTool(getSlot());
+                }
+            }
+        }
+    },
+
+    // ==============================================
+    // Clamp: stops bleeding
+    // ==============================================
+    CLAMP("clamp", 42, false) {
+        @Override
+        public void use(SurgeryState state, boolean skillFail, MoveResult result) {
+            if (skillFail) {
+                randomSkillFail(state, result);
+                return;
+            }
+            if (state.getIncisions() > 0 && state.isBleeding()) {
+                state.setBleeding(false);
+                SurgeryRules.updateDynamicTools(state, result);
+            }
+        }
+    },
+
+    // ==============================================
+    // Transfusion: improves pulse
+    // ==============================================
+    TRANSFUSION("transfusion", 43, true) {
+        @Override
+        public void use(SurgeryState state, boolean skillFail, MoveResult result) {
+            if (skillFail) {
+                state.setOperationSite(OperationSite.UNSANITARY);
+                randomSkillFail(state, result);
+                return;
+            }
+            state.setPulse(state.getPulse().improve());
+        }
+    };
+
+    // Cached so lookups don't clone values() every time
+    private static final BuiltInTool[] VALUES = values();
+
+    private final String id;
+    private final int slot;
+    private final boolean startsInMenu;
+    private final String skillFailKey;
+
+    BuiltInTool(String id, int slot, boolean startsInMenu) {
+        this.id = id;
+        this.slot = slot;
+        this.startsInMenu = startsInMenu;
+        this.skillFailKey = "skill-fail-" + id;
+    }
+
+    public String getId() { return id; }
+    public int getSlot() { return slot; }
+    public boolean startsInMenu() { return startsInMenu; }
+    public String getSkillFailKey() { return skillFailKey; }
+
+    // ==============================================
+    // Reports a skill fail; the roll picks one of the tool's messages
+    // ==============================================
+    void randomSkillFail(SurgeryState state, MoveResult result) {
+        result.failWith(skillFailKey, state.getDice().roll());
+    }
+
+    // ==============================================
+    // Gets the built-in tool in a menu slot, or null
+    // ==============================================
+    public static BuiltInTool bySlot(int slot) {
+        for (BuiltInTool tool : VALUES) {
+            if (tool.slot == slot) {
+                return tool;
+            }
+        }
+        return null;
+    }
+
+    // ==============================================
+    // Bit mask of the tools that start in the menu
+    // ==============================================
+    public static long startingTools() {
+        long slots = 0;
+        for (BuiltInTool tool : VALUES) {
+            if (tool.startsInMenu) {
+                slots |= 1L << tool.slot;
+            }
+        }
+        return slots;
+    }
+}
@@ -0,0 +1,100 @@
+package tfmc.justin.rules;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// ==============================================
+// All diagnosis profiles of one config load, indexed by name
+// Replaces the per-check config lookups of the old DiagnosisChecker
+// ==============================================
+public final class DiagnosisIndex {
+
+    private final Map<String, DiagnosisProfile> profiles;
+
+    // Diagnoses the ultrasound can assign, in config order
+    private final List<DiagnosisProfile> assignable;
+
+    private DiagnosisIndex(Map<String, DiagnosisProfile> profiles, List<DiagnosisProfile> assignable) {
+        this.profiles = profiles;
+        this.assignable = assignable;
+    }
+
+    // ==============================================
+    // Compiles every diagnosis named anywhere in config.yml
+    // ==============================================
+    public static DiagnosisIndex fromConfig(ConfigurationSection config) {
+        List<String> diagnoses = config.getStringList("diagnoses");
+        Set<String> fluDiagnoses = new HashSet<>(config.getStringList("flu-diagnoses"));
+        ConfigurationSection incisions = config.getConfigurationSection("required-incisions");
+        ConfigurationSection bones = config.getConfigurationSection("bone-counts");
+
+        // Diagnoses only listed in a section still get a profile
+        Set<String> names = new LinkedHashSet<>(diagnoses);
+        names.addAll(fluDiagnoses);
+        if (incisions != null) {
+            names.addAll(incisions.getKeys(false));
+        }
+        if (bones != null) {
+            names.addAll(bones.getKeys(false));
+        }
+
+        Map<String, DiagnosisProfile> profiles = new HashMap<>();
+        for (String name : names) {
+            int required = incisions != null && incisions.contains(name) ? incisions.getInt(name) : DiagnosisProfile.UNSET;
+
+            ConfigurationSection boneCounts = bones != null ? bones.getConfigurationSection(name) : null;
+            boolean hasBones = boneCounts != null;
+            int broken = hasBones && boneCounts.contains("broken") ? boneCounts.getInt("broken") : DiagnosisProfile.UNSET;
+            int shattered = hasBones && boneCounts.contains("shattered") ? boneCounts.getInt("shattered") : DiagnosisProfile.UNSET;
+
+            profiles.put(name, new DiagnosisProfile(name, fluDiagnoses.contains(name), required, hasBones, broken, shattered));
+        }
+
+        List<DiagnosisProfile> assignable = new ArrayList<>(diagnoses.size());
+        for (String name : diagnoses) {
+            assignable.add(profiles.get(name));
+        }
+
+        return new DiagnosisIndex(profiles, Collections.unmodifiableList(assignable));
+    }
+
+    // ==============================================
+    // Gets the profile for a diagnosis name, or null if unknown
+    // ==============================================
+    public DiagnosisProfile get(String name) {
+        return profiles.get(name);
+    }
+
+    // ==============================================
+    // True if the ultrasound has any diagnosis to assign
+    // ==============================================
+    public boolean canDiagnose() {
+        return !assignable.isEmpty();
+    }
+
+    // ==============================================
+    // Diagnoses the ultrasound can assign, in config order; a name listed
+    // twice is twice as likely
+    // ==============================================
+    public List<DiagnosisProfile> getAssignable() {
+        return assignable;
+    }
+
+    // ==============================================
+    // Picks a random diagnosis for the ultrasound, or null if none are configured
+    // ==============================================
+    public DiagnosisProfile randomDiagnosis(SurgeryDice dice) {
+        if (assignable.isEmpty()) {
+            return null;
+        }
+        return assignable.get(dice.pick(assignable.size()));
+    }
+}
@@ -0,0 +1,42 @@
+package tfmc.justin.rules;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// ==============================================
+// Special per-move or per-tool behaviour tied to a diagnosis
+// Resolved once per diagnosis when the config is loaded
+// ==============================================
+public enum DiagnosisMechanic {
+    NONE(null),
+    MOLDY_GUTS("Moldy Guts"),
+    FATTY_LIVER("Fatty Liver"),
+    BROKEN_HEART("Broken Heart"),
+    ARCANE_INFECTION("Arcane Infection"),
+    LUPUS("Lupus"),
+    PAPER_CUTS("Paper Cuts"),
+    ECTO_BONES("Ecto-Bones");
+
+    private static final Map<String, DiagnosisMechanic> BY_DIAGNOSIS = new HashMap<>();
+
+    static {
+        for (DiagnosisMechanic mechanic : values()) {
+            if (mechanic.diagnosis != null) {
+                BY_DIAGNOSIS.put(mechanic.diagnosis, mechanic);
+            }
+        }
+    }
+
+    private final String diagnosis;
+
+    DiagnosisMechanic(String diagnosis) {
+        this.diagnosis = diagnosis;
+    }
+
+    // ==============================================
+    // Gets the mechanic for a diagnosis name, or NONE
+    // ==============================================
+    public static DiagnosisMechanic forDiagnosis(String diagnosis) {
+        return BY_DIAGNOSIS.getOrDefault(diagnosis, NONE);
+    }
+}
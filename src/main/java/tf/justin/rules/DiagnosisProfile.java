@@ -0,0 +1,70 @@
+package tfmc.justin.rules;
+
+import java.util.Objects;
+
+// ==============================================
+// Everything the surgery needs to know about one diagnosis
+// Compiled from config.yml once per load; one shared instance per name
+// ==============================================
+public final class DiagnosisProfile {
+
+    // Marker for values the config does not set
+    public static final int UNSET = -1;
+
+    private final String name;
+    private final boolean flu;
+    private final int requiredIncisions;
+    private final boolean hasBones;
+    private final int brokenBones;
+    private final int shatteredBones;
+    private final DiagnosisMechanic mechanic;
+
+    public DiagnosisProfile(String name, boolean flu, int requiredIncisions, boolean hasBones,
+                            int brokenBones, int shatteredBones) {
+        this.name = name;
+        this.flu = flu;
+        this.requiredIncisions = requiredIncisions;
+        this.hasBones = hasBones;
+        this.brokenBones = brokenBones;
+        this.shatteredBones = shatteredBones;
+        this.mechanic = DiagnosisMechanic.forDiagnosis(name);
+    }
+
+    // ==============================================
+    // Getters
+    // ==============================================
+    public String getName() { return name; }
+    public boolean isFlu() { return flu; }
+    public int getRequiredIncisions() { return requiredIncisions; }
+    public boolean hasRequiredIncisions() { return requiredIncisions != UNSET; }
+    public boolean hasBones() { return hasBones; }
+    public DiagnosisMechanic getMechanic() { return mechanic; }
+
+    // ==============================================
+    // True if the rules treat both diagnoses the same; only the name differs
+    // ==============================================
+    public boolean playsLike(DiagnosisProfile other) {
+        return flu == other.flu && requiredIncisions == other.requiredIncisions && hasBones == other.hasBones
+            && brokenBones == other.brokenBones && shatteredBones == other.shatteredBones && mechanic == other.mechanic;
+    }
+
+    // ==============================================
+    // Hash of what playsLike compares, the same on every run (an enum's own
+    // hash isn't), so it can be saved with solver results
+    // ==============================================
+    public int rulesHash() {
+        return Objects.hash(flu, requiredIncisions, hasBones, brokenBones, shatteredBones,
+            mechanic != null ? mechanic.name() : null);
+    }
+
+    // ==============================================
+    // Bone counts, rolled when a bone diagnosis leaves one out
+    // ==============================================
+    public int rollBrokenBones(SurgeryDice dice) {
+        return brokenBones != UNSET ? brokenBones : dice.pick(3);
+    }
+
+    public int rollShatteredBones(SurgeryDice dice) {
+        return shatteredBones != UNSET ? shatteredBones : dice.pick(2);
+    }
+}
@@ -0,0 +1,119 @@
+package tfmc.justin.rules;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// ==============================================
+// What a move did besides changing the state: the chat messages it
+// produced and the info blocks the state alone can't tell apart.
+// Messages are message keys; the plugin looks the text up, the
+// simulator ignores them. Reusable through clear()
+//
+// A timed result also measures how long the phases of the move took, for
+// the plugin's metrics; the simulator leaves timing off
+// ==============================================
+public final class MoveResult {
+
+    private final List<String> messageKeys = new ArrayList<>();
+
+    // A skill fail is either a message key plus the roll that picks one of
+    // its messages, or the ready text returned by a custom tool
+    private boolean skillFail;
+    private String skillFailKey;
+    private int skillFailRoll;
+    private String skillFailText;
+
+    private boolean diagnosisRevealed;
+    private boolean diagnosisChanged;
+
+    // Nanoseconds spent in each phase; kept across clear()
+    private boolean timed;
+    private long effectsNanos;
+    private long toolNanos;
+    private long dynamicToolsNanos;
+
+    // ==============================================
+    // Queues a chat message for the surgeon
+    // ==============================================
+    public void addMessage(String messageKey) {
+        messageKeys.add(messageKey);
+    }
+
+    // ==============================================
+    // Reports a skill fail whose message is picked from a list by the roll
+    // ==============================================
+    public void failWith(String messageKey, int roll) {
+        this.skillFail = true;
+        this.skillFailKey = messageKey;
+        this.skillFailRoll = roll;
+    }
+
+    // ==============================================
+    // Reports a skill fail with a ready message
+    // ==============================================
+    public void failWithText(String text) {
+        this.skillFail = true;
+        this.skillFailText = text;
+    }
+
+    // ==============================================
+    // The ultrasound found the diagnosis
+    // ==============================================
+    public void revealDiagnosis() {
+        this.diagnosisRevealed = true;
+    }
+
+    // ==============================================
+    // Bones or the cure changed what the diagnosis block shows
+    // ==============================================
+    public void changeDiagnosis() {
+        this.diagnosisChanged = true;
+    }
+
+    // ==============================================
+    // Phase timings, added up over the move
+    // ==============================================
+    public void addEffectsNanos(long nanos) {
+        effectsNanos += nanos;
+    }
+
+    public void addToolNanos(long nanos) {
+        toolNanos += nanos;
+    }
+
+    public void addDynamicToolsNanos(long nanos) {
+        dynamicToolsNanos += nanos;
+    }
+
+    public void setTimed(boolean timed) {
+        this.timed = timed;
+    }
+
+    public void clear() {
+        messageKeys.clear();
+        skillFail = false;
+        skillFailKey = null;
+        skillFailRoll = 0;
+        skillFailText = null;
+        diagnosisRevealed = false;
+        diagnosisChanged = false;
+        effectsNanos = 0;
+        toolNanos = 0;
+        dynamicToolsNanos = 0;
+    }
+
+    // ==============================================
+    // Getters
+    // ==============================================
+    public List<String> getMessageKeys() { return messageKeys; }
+    public boolean isSkillFail() { return skillFail; }
+    public String getSkillFailKey() { return skillFailKey; }
+    public int getSkillFailRoll() { return skillFailRoll; }
+    public String getSkillFailText() { return skillFailText; }
+    public boolean isDiagnosisRevealed() { return diagnosisRevealed; }
+    public boolean isDiagnosisChanged() { return diagnosisChanged; }
+    public boolean isTimed() { return timed; }
+    public long getEffectsNanos() { return effectsNanos; }
+    public long getToolNanos() { return toolNanos; }
+    public long getDynamicToolsNanos() { return dynamicToolsNanos; }
+}
@@ -0,0 +1,22 @@
+package tfmc.justin.rules;
+
+// ==============================================
+// Cleanliness of the operation site
+// ==============================================
+public enum OperationSite {
+    CLEAN("site-clean", "Clean"),
+    NOT_SANITIZED("site-not-sanitized", "Not sanitized"),
+    UNCLEAN("site-unclean", "Unclean"),
+    UNSANITARY("site-unsanitary", "Unsanitary");
+
+    private final String messageKey;
+    private final String defaultName;
+
+    OperationSite(String messageKey, String defaultName) {
+        this.messageKey = messageKey;
+        this.defaultName = defaultName;
+    }
+
+    public String getMessageKey() { return messageKey; }
+    public String getDefaultName() { return defaultName; }
+}
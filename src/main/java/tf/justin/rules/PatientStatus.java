@@ -0,0 +1,40 @@
+package tfmc.justin.rules;
+
+// ==============================================
+// Patient consciousness status
+// ==============================================
+public enum PatientStatus {
+    AWAKE("status-awake", "Awake"),
+    UNCONSCIOUS("status-unconscious", "Unconscious"),
+    HEART_STOPPED("status-heart-stopped", "Heart Stopped"),
+    COMING_TO("status-coming-to", "Coming to");
+
+    // Cached so random picks don't clone values() every time
+    private static final PatientStatus[] VALUES = values();
+
+    private final String messageKey;
+    private final String defaultName;
+
+    PatientStatus(String messageKey, String defaultName) {
+        this.messageKey = messageKey;
+        this.defaultName = defaultName;
+    }
+
+    public String getMessageKey() { return messageKey; }
+    public String getDefaultName() { return defaultName; }
+
+    // ==============================================
+    // True while anesthetic is keeping the patient under
+    // ==============================================
+    public boolean isSedated() {
+        return this == UNCONSCIOUS || this == COMING_TO;
+    }
+
+    public static PatientStatus byOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    public static int count() {
+        return VALUES.length;
+    }
+}
@@ -0,0 +1,194 @@
+package tfmc.justin.rules;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// ==============================================
+// The best tool for surgery states, as worked out by the solver, with the
+// chance of success when every move after it is the best one too
+// Holds the states a surgeon who follows the table can reach; a state
+// off that path has no entry. Written by the solver, read by the plugin
+// for hints. A table only fits the config it was solved for, which is
+// checked through a fingerprint of the rules' settings when it is read
+// ==============================================
+public final class PolicyTable {
+
+    // "SRGP"
+    private static final int MAGIC = 0x53524750;
+    private static final int VERSION = 1;
+
+    private final long fingerprint;
+    private final StateKey stateKey;
+
+    // Layers by diagnosis name, plus the one before the ultrasound
+    private final Map<String, Layer> byDiagnosis = new HashMap<>();
+    private final List<Layer> layers = new ArrayList<>();
+    private Layer undiagnosed;
+
+    public PolicyTable(SurgeryTuning tuning, DiagnosisIndex diagnoses) {
+        this.fingerprint = fingerprint(tuning, diagnoses);
+        this.stateKey = new StateKey(tuning);
+    }
+
+    // ==============================================
+    // Adds the entries for the diagnoses named, or for undiagnosed patients
+    // if none are. Keys must be sorted; chances are 0-1
+    // ==============================================
+    public void addLayer(List<String> diagnosisNames, long[] keys, byte[] slots, float[] chances) {
+        Layer layer = new Layer(List.copyOf(diagnosisNames), keys, slots, chances);
+        layers.add(layer);
+        if (diagnosisNames.isEmpty()) {
+            undiagnosed = layer;
+        }
+        for (String name : diagnosisNames) {
+            byDiagnosis.put(name, layer);
+        }
+    }
+
+    // ==============================================
+    // The entry for a running surgery, or null if the table has none
+    // ==============================================
+    public Entry lookup(SurgeryState state) {
+        Layer layer = state.hasDiagnosis() ? byDiagnosis.get(state.getDiagnosis().getName()) : undiagnosed;
+        if (layer == null) {
+            return null;
+        }
+        long key = stateKey.pack(state);
+        int entry = key != StateKey.OUT_OF_RANGE ? Arrays.binarySearch(layer.keys, key) : -1;
+        return entry >= 0 ? new Entry(layer.slots[entry], layer.chances[entry]) : null;
+    }
+
+    // ==============================================
+    // Number of states with an entry
+    // ==============================================
+    public long size() {
+        long size = 0;
+        for (Layer layer : layers) {
+            size += layer.keys.length;
+        }
+        return size;
+    }
+
+    // ==============================================
+    // Saves the table
+    // ==============================================
+    public void write(File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(fingerprint);
+            out.writeInt(layers.size());
+            for (Layer layer : layers) {
+                out.writeInt(layer.diagnosisNames.size());
+                for (String name : layer.diagnosisNames) {
+                    out.writeUTF(name);
+                }
+                out.writeInt(layer.keys.length);
+                for (int i = 0; i < layer.keys.length; i++) {
+                    out.writeLong(layer.keys[i]);
+                    out.writeByte(layer.slots[i]);
+                    out.writeFloat(layer.chances[i]);
+                }
+            }
+        }
+    }
+
+    // ==============================================
+    // Loads a table, failing if it was solved for a different config
+    // ==============================================
+    public static PolicyTable read(File file, SurgeryTuning tuning, DiagnosisIndex diagnoses) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                throw new IOException("Not a policy table from this version of the plugin");
+            }
+            PolicyTable table = new PolicyTable(tuning, diagnoses);
+            if (in.readLong() != table.fingerprint) {
+                throw new IOException("The policy table was solved for a different config; run the solver again");
+            }
+
+            int layerCount = in.readInt();
+            for (int l = 0; l < layerCount; l++) {
+                int nameCount = in.readInt();
+                List<String> names = new ArrayList<>(nameCount);
+                for (int i = 0; i < nameCount; i++) {
+                    names.add(in.readUTF());
+                }
+                int size = in.readInt();
+                long[] keys = new long[size];
+                byte[] slots = new byte[size];
+                float[] chances = new float[size];
+                for (int i = 0; i < size; i++) {
+                    keys[i] = in.readLong();
+                    slots[i] = in.readByte();
+                    chances[i] = in.readFloat();
+                }
+                table.addLayer(names, keys, slots, chances);
+            }
+            return table;
+        }
+    }
+
+    // ==============================================
+    // Hash of every setting the rules and the state key depend on
+    // ==============================================
+    public static long fingerprint(SurgeryTuning tuning, DiagnosisIndex diagnoses) {
+        double[] settings = {
+            tuning.getSkillFailBaseChance(), tuning.getSkillFailBleedingChance(), tuning.getSkillFailWithSpongeChance(),
+            tuning.getNormalTemp(), tuning.getRisingTempMin(), tuning.getRisingTempMax(), tuning.getInstantDeathTemp(),
+            tuning.getRedTempThreshold(), tuning.getSuccessTempThreshold(), tuning.getTempRiseRate(),
+            tuning.getAntibioticsTempChange(), tuning.getPulseDegradationChanceBleeding(),
+            tuning.getScalpelPulseDecreaseChance(), tuning.getDefibrillatorCountdown(), tuning.getWeakPulseTurns(),
+            tuning.getRedTempTurns(), tuning.getAnestheticReuseCooldown(), tuning.getBoneRandomRevealChance(),
+            tuning.getMoldyGutsBleedingInterval(), tuning.getFattyLiverHeartStopChance(),
+            tuning.getBrokenHeartHeartStopChance(), tuning.getArcaneChaosChance(), tuning.getArcaneTempSpikeMax(),
+            tuning.getArcaneTempDropMax(), tuning.getLupusHowlChance(), tuning.getPaperCutsScalpelUses()
+        };
+        long hash = Arrays.hashCode(settings);
+        for (DiagnosisProfile diagnosis : diagnoses.getAssignable()) {
+            hash = hash * 31 + diagnosis.getName().hashCode();
+            hash = hash * 31 + diagnosis.rulesHash();
+        }
+        return hash;
+    }
+
+    // ==============================================
+    // The best tool's menu slot and the chance of success from here
+    // ==============================================
+    public static final class Entry {
+        private final int slot;
+        private final float chance;
+
+        private Entry(int slot, float chance) {
+            this.slot = slot;
+            this.chance = chance;
+        }
+
+        public int getSlot() { return slot; }
+        public float getChance() { return chance; }
+    }
+
+    private static final class Layer {
+        private final List<String> diagnosisNames;
+        private final long[] keys;
+        private final byte[] slots;
+        private final float[] chances;
+
+        private Layer(List<String> diagnosisNames, long[] keys, byte[] slots, float[] chances) {
+            this.diagnosisNames = diagnosisNames;
+            this.keys = keys;
+            this.slots = slots;
+            this.chances = chances;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package tfmc.justin.rules;
+
+// ==============================================
+// Patient pulse, ordered from best to worst
+// ==============================================
+public enum Pulse {
+    STRONG("pulse-strong", "Strong"),
+    STEADY("pulse-steady", "Steady"),
+    WEAK("pulse-weak", "Weak"),
+    EXTREMELY_WEAK("pulse-extremely-weak", "Extremely Weak");
+
+    // Transition tables indexed by ordinal
+    private static final Pulse[] WORSE = { STEADY, WEAK, EXTREMELY_WEAK, EXTREMELY_WEAK };
+    private static final Pulse[] BETTER = { STRONG, STRONG, STEADY, WEAK };
+
+    private final String messageKey;
+    private final String defaultName;
+
+    Pulse(String messageKey, String defaultName) {
+        this.messageKey = messageKey;
+        this.defaultName = defaultName;
+    }
+
+    public String getMessageKey() { return messageKey; }
+    public String getDefaultName() { return defaultName; }
+
+    // ==============================================
+    // Improves pulse to next better status
+    // ==============================================
+    public Pulse improve() {
+        return BETTER[ordinal()];
+    }
+
+    // ==============================================
+    // Worsens pulse to next worse status
+    // ==============================================
+    public Pulse worsen() {
+        return WORSE[ordinal()];
+    }
+}
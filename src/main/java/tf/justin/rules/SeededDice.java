@@ -0,0 +1,42 @@
+package tfmc.justin.rules;
+
+import java.util.SplittableRandom;
+
+// ==============================================
+// Dice for a real or simulated surgery, rolled from the move's random stream
+// Each method draws exactly what the rules drew before they used dice,
+// so recorded surgeries still replay the same way
+// ==============================================
+final class SeededDice implements SurgeryDice {
+
+    private final SplittableRandom random;
+
+    SeededDice(SplittableRandom random) {
+        this.random = random;
+    }
+
+    @Override
+    public boolean chance(double probability) {
+        return random.nextDouble() < probability;
+    }
+
+    @Override
+    public int pick(int bound) {
+        return random.nextInt(bound);
+    }
+
+    @Override
+    public boolean coinFlip() {
+        return random.nextBoolean();
+    }
+
+    @Override
+    public double between(double min, double max) {
+        return min + random.nextDouble() * (max - min);
+    }
+
+    @Override
+    public int roll() {
+        return random.nextInt();
+    }
+}
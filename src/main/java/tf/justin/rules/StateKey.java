@@ -0,0 +1,195 @@
+package tfmc.justin.rules;
+
+// ==============================================
+// Packs everything the rules read about a surgery into one long, so the
+// solver can tell states apart and the plugin can look a state up in a
+// policy table. The diagnosis itself is not part of the key; keys are
+// only compared between states with the same diagnosis (or none yet)
+//
+// Counters the rules only compare against a config value are capped at
+// that value. The temperature is kept in tenths of a degree, which is
+// what the menu shows, plus whether it lies just below, on or just above
+// that tenth: the thresholds sit on tenths, so 106.04 is a red fever
+// where 106.0 is not. Fields the rules never read (moves made,
+// antibiotics counter, examined wounds, clicked slots) are left out
+// ==============================================
+public final class StateKey {
+
+    // Returned by pack for states outside the ranges below; never a valid key
+    public static final long OUT_OF_RANGE = -1L;
+
+    // Tools whose menu bit can change; the rest never leave the menu
+    private static final BuiltInTool[] DYNAMIC_TOOLS = {
+        BuiltInTool.ANTIBIOTICS, BuiltInTool.SURGICAL_GLOVE, BuiltInTool.ULTRASOUND, BuiltInTool.LAB_KIT,
+        BuiltInTool.DEFIBRILLATOR, BuiltInTool.PINS, BuiltInTool.SPLINT, BuiltInTool.CLAMP
+    };
+
+    // Incisions and bone counts past these are treated as out of range
+    private static final int INCISION_RADIX = 32;
+    private static final int BONE_RADIX = 8;
+
+    // A temperature this close to a tenth is on it; one further off stands
+    // for the other temperatures on its side, halfway to the next tenth
+    private static final double ON_TENTH = 1e-6;
+    private static final double OFF_TENTH = 0.025;
+
+    // Cached so unpacking doesn't clone values() every time
+    private static final Pulse[] PULSES = Pulse.values();
+    private static final OperationSite[] SITES = OperationSite.values();
+
+    private final int minTenths;
+    private final int temperatureRadix;
+    private final int defibrillatorRadix;
+    private final int unconsciousCap;
+    private final int weakPulseRadix;
+    private final int redTempRadix;
+    private final int spongeCap;
+    private final long startingTools;
+
+    // ==============================================
+    // Sizes the fields for one tuning; fails if they don't fit in a long
+    // ==============================================
+    public StateKey(SurgeryTuning tuning) {
+        minTenths = tenths(Math.min(tuning.getNormalTemp(), tuning.getRisingTempMin()));
+        temperatureRadix = Math.max(1, tenths(tuning.getInstantDeathTemp()) - minTenths + 1) * 3;
+        defibrillatorRadix = Math.max(0, tuning.getDefibrillatorCountdown()) + 2;
+        unconsciousCap = Math.max(0, tuning.getAnestheticReuseCooldown());
+        weakPulseRadix = Math.max(0, tuning.getWeakPulseTurns()) + 1;
+        redTempRadix = Math.max(0, tuning.getRedTempTurns()) + 1;
+        spongeCap = Math.max(0, tuning.getMoldyGutsBleedingInterval());
+        startingTools = BuiltInTool.startingTools();
+
+        long size = 1;
+        int[] radixes = {
+            PULSES.length, PatientStatus.count(), SITES.length, 16,
+            INCISION_RADIX, BONE_RADIX, BONE_RADIX, BONE_RADIX, BONE_RADIX,
+            defibrillatorRadix, unconsciousCap + 2, weakPulseRadix, redTempRadix, spongeCap + 1,
+            temperatureRadix, 1 << DYNAMIC_TOOLS.length
+        };
+        try {
+            for (int radix : radixes) {
+                size = Math.multiplyExact(size, radix);
+            }
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("The death timers and temperatures in the config are too large to solve");
+        }
+    }
+
+    // ==============================================
+    // The key of a running surgery, or OUT_OF_RANGE
+    // ==============================================
+    public long pack(SurgeryState state) {
+        int temperature = temperatureIndex(state.getTemperature());
+        int defibrillator = state.hasDefibrillatorCountdown() ? state.getDefibrillatorCountdown() + 1 : 0;
+        int unconscious = state.hasUnconsciousTimer() ? Math.min(state.getUnconsciousTimer(), unconsciousCap) + 1 : 0;
+        DiagnosisProfile diagnosis = state.getDiagnosis();
+        int sponge = diagnosis != null && diagnosis.getMechanic() == DiagnosisMechanic.MOLDY_GUTS
+            ? Math.min(state.getMovesSinceLastSponge(), spongeCap) : 0;
+
+        if (temperature < 0 || temperature >= temperatureRadix
+                || state.getIncisions() < 0 || state.getIncisions() >= INCISION_RADIX
+                || !isBoneCount(state.getBrokenBones()) || !isBoneCount(state.getShatteredBones())
+                || !isBoneCount(state.getRevealedBrokenBones()) || !isBoneCount(state.getRevealedShatteredBones())
+                || defibrillator < 0 || defibrillator >= defibrillatorRadix || unconscious < 0
+                || state.getExtremelyWeakCounter() < 0 || state.getExtremelyWeakCounter() >= weakPulseRadix
+                || state.getRedTempCounter() < 0 || state.getRedTempCounter() >= redTempRadix) {
+            return OUT_OF_RANGE;
+        }
+
+        long key = state.getPulse().ordinal();
+        key = key * PatientStatus.count() + state.getStatus().ordinal();
+        key = key * SITES.length + state.getOperationSite().ordinal();
+        key = key * 16 + (state.isBleeding() ? 8 : 0) + (state.isCured() ? 4 : 0)
+            + (state.hasAntisepticProtection() ? 2 : 0) + (state.hasRisingTemp() ? 1 : 0);
+        key = key * INCISION_RADIX + state.getIncisions();
+        key = key * BONE_RADIX + state.getBrokenBones();
+        key = key * BONE_RADIX + state.getShatteredBones();
+        key = key * BONE_RADIX + state.getRevealedBrokenBones();
+        key = key * BONE_RADIX + state.getRevealedShatteredBones();
+        key = key * defibrillatorRadix + defibrillator;
+        key = key * (unconsciousCap + 2) + unconscious;
+        key = key * weakPulseRadix + state.getExtremelyWeakCounter();
+        key = key * redTempRadix + state.getRedTempCounter();
+        key = key * (spongeCap + 1) + sponge;
+        key = key * temperatureRadix + temperature;
+        for (BuiltInTool tool : DYNAMIC_TOOLS) {
+            key = key * 2 + (state.isToolInMenu(tool.getSlot()) ? 1 : 0);
+        }
+        return key;
+    }
+
+    // ==============================================
+    // Restores a packed state between moves. The diagnosis, result and
+    // fields left out of the key are reset; the caller sets the diagnosis
+    // ==============================================
+    public void unpack(long key, SurgeryState state) {
+        long tools = startingTools;
+        for (int i = DYNAMIC_TOOLS.length - 1; i >= 0; i--) {
+            int slot = DYNAMIC_TOOLS[i].getSlot();
+            tools = (key & 1) != 0 ? tools | (1L << slot) : tools & ~(1L << slot);
+            key >>>= 1;
+        }
+        state.setToolsInMenu(tools);
+
+        int temperature = (int) (key % temperatureRadix);
+        state.setTemperature((minTenths + temperature / 3) / 10.0 + (temperature % 3 - 1) * OFF_TENTH);
+        key /= temperatureRadix;
+        state.setMovesSinceLastSponge((int) (key % (spongeCap + 1)));
+        key /= spongeCap + 1;
+        state.setRedTempCounter((int) (key % redTempRadix));
+        key /= redTempRadix;
+        state.setExtremelyWeakCounter((int) (key % weakPulseRadix));
+        key /= weakPulseRadix;
+        int unconscious = (int) (key % (unconsciousCap + 2));
+        state.setUnconsciousTimer(unconscious == 0 ? SurgeryState.NO_TIMER : unconscious - 1);
+        key /= unconsciousCap + 2;
+        int defibrillator = (int) (key % defibrillatorRadix);
+        state.setDefibrillatorCountdown(defibrillator == 0 ? SurgeryState.NO_TIMER : defibrillator - 1);
+        key /= defibrillatorRadix;
+        state.setRevealedShatteredBones((int) (key % BONE_RADIX));
+        key /= BONE_RADIX;
+        state.setRevealedBrokenBones((int) (key % BONE_RADIX));
+        key /= BONE_RADIX;
+        state.setShatteredBones((int) (key % BONE_RADIX));
+        key /= BONE_RADIX;
+        state.setBrokenBones((int) (key % BONE_RADIX));
+        key /= BONE_RADIX;
+        state.setIncisions((int) (key % INCISION_RADIX));
+        key /= INCISION_RADIX;
+        int flags = (int) (key % 16);
+        state.setBleeding((flags & 8) != 0);
+        state.setCured((flags & 4) != 0);
+        state.setAntisepticProtection((flags & 2) != 0);
+        state.setHasRisingTemp((flags & 1) != 0);
+        key /= 16;
+        state.setOperationSite(SITES[(int) (key % SITES.length)]);
+        key /= SITES.length;
+        state.setStatus(PatientStatus.byOrdinal((int) (key % PatientStatus.count())));
+        key /= PatientStatus.count();
+        state.setPulse(PULSES[(int) key]);
+
+        state.setDiagnosis(null);
+        state.setResultKey(null);
+        state.setClickedSlots(0);
+        state.setSpongeEffect(false);
+        state.setMoveCount(0);
+        state.setAntibioticsCounter(0);
+        state.setWoundsExamined(false);
+    }
+
+    // Three per tenth: just below it, on it, just above it
+    private int temperatureIndex(double temperature) {
+        int tenths = tenths(temperature);
+        double offset = temperature - tenths / 10.0;
+        int side = offset < -ON_TENTH ? 0 : offset > ON_TENTH ? 2 : 1;
+        return (tenths - minTenths) * 3 + side;
+    }
+
+    private static boolean isBoneCount(int count) {
+        return count >= 0 && count < BONE_RADIX;
+    }
+
+    private static int tenths(double temperature) {
+        return (int) Math.round(temperature * 10);
+    }
+}
@@ -0,0 +1,25 @@
+package tfmc.justin.rules;
+
+// ==============================================
+// Every random roll the rules make
+// The plugin and the simulator roll a seeded SplittableRandom; the solver
+// instead walks every outcome with its probability, which is why the rules
+// say what a roll is for rather than drawing raw numbers
+// ==============================================
+public interface SurgeryDice {
+
+    // True with the given probability
+    boolean chance(double probability);
+
+    // One of 0 to bound - 1, all equally likely
+    int pick(int bound);
+
+    // True or false, equally likely
+    boolean coinFlip();
+
+    // Any value from min up to max
+    double between(double min, double max);
+
+    // Any int; only used to pick which message is shown
+    int roll();
+}
@@ -0,0 +1,40 @@
+package tfmc.justin.rules;
+
+import java.util.Arrays;
+
+// ==============================================
+// The menu slots a surgeon used, in order, one byte per move
+// Together with the session seed this is enough to replay a surgery
+// ==============================================
+public final class SurgeryMoveLog {
+
+    private byte[] slots;
+    private int size;
+
+    public SurgeryMoveLog() {
+        this.slots = new byte[16];
+    }
+
+    private SurgeryMoveLog(byte[] slots) {
+        this.slots = slots.length > 0 ? slots : new byte[16];
+        this.size = slots.length;
+    }
+
+    public static SurgeryMoveLog of(byte[] slots) {
+        return new SurgeryMoveLog(slots.clone());
+    }
+
+    // ==============================================
+    // Appends a move; menu slots always fit in a byte
+    // ==============================================
+    public void add(int slot) {
+        if (size == slots.length) {
+            slots = Arrays.copyOf(slots, size * 2);
+        }
+        slots[size++] = (byte) slot;
+    }
+
+    public int size() { return size; }
+    public int get(int move) { return slots[move]; }
+    public byte[] toByteArray() { return Arrays.copyOf(slots, size); }
+}
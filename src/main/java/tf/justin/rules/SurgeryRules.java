@@ -0,0 +1,499 @@
+package tfmc.justin.rules;
+
+// ==============================================
+// The rules of a surgery, free of Bukkit
+// A move takes the state and the tool used, updates the state in place and
+// reports what the surgeon should be told in a MoveResult. The plugin shows
+// the result in the menu and chat; the simulator only looks at the state
+// ==============================================
+public final class SurgeryRules {
+
+    // Result key of a successful surgery; failures use their failure-* message key
+    public static final String SUCCESS_KEY = "surgery-successful";
+
+    private SurgeryRules() {
+    }
+
+    // ==============================================
+    // Sets up a new patient. startingTools has a bit set for every tool
+    // that starts in the menu; the others appear through the rules
+    // ==============================================
+    public static void setUp(SurgeryState state, long startingTools) {
+        SurgeryTuning tuning = state.getTuning();
+        state.setToolsInMenu(startingTools);
+        state.setPulse(Pulse.STRONG);
+        state.setStatus(PatientStatus.AWAKE);
+
+        // Randomize if patient has rising temperature (50% chance)
+        // and start them at a random temperature from the config range
+        boolean hasRisingTemp = state.getDice().coinFlip();
+        state.setHasRisingTemp(hasRisingTemp);
+        double temperature;
+        if (hasRisingTemp) {
+            double minTemp = tuning.getRisingTempMin();
+            double maxTemp = tuning.getRisingTempMax();
+            temperature = state.getDice().between(minTemp, maxTemp);
+        } else {
+            temperature = tuning.getNormalTemp();
+        }
+        state.setTemperature(temperature);
+
+        state.setOperationSite(OperationSite.NOT_SANITIZED);
+        state.setIncisions(0);
+        state.setBleeding(false);
+        state.setCured(false);
+        state.setAntibioticsCounter(0);
+        state.setAntisepticProtection(false);
+        state.setSpongeEffect(false);
+        state.setMoveCount(0);
+        state.setMovesSinceLastSponge(0);
+        state.setWoundsExamined(false);
+        state.setUnconsciousTimer(0);
+
+        // Bone counts are set when the patient is diagnosed
+        state.setBrokenBones(0);
+        state.setShatteredBones(0);
+        state.setRevealedBrokenBones(0);
+        state.setRevealedShatteredBones(0);
+    }
+
+    // ==============================================
+    // Plays one move: per-move effects first, then the tool itself
+    // ==============================================
+    public static MoveResult play(SurgeryState state, int slot, ToolRule tool) {
+        MoveResult result = new MoveResult();
+        play(state, slot, tool, result);
+        return result;
+    }
+
+    public static void play(SurgeryState state, int slot, ToolRule tool, MoveResult result) {
+        state.beginMove(slot);
+
+        // The scalpel cannot be used while the patient is awake
+        if (isStabbingAwakePatient(state, tool)) {
+            state.setResultKey("failure-stabbed-awake");
+            return;
+        }
+
+        state.addClickedSlot(slot);
+        long started = result.isTimed() ? System.nanoTime() : 0;
+        processMoveEffects(state, result);
+        if (result.isTimed()) {
+            result.addEffectsNanos(System.nanoTime() - started);
+        }
+
+        // Per-move effects may have ended the surgery
+        if (state.isOver()) {
+            return;
+        }
+
+        boolean skillFail = isSkillFail(state);
+        if (state.isBleeding()) {
+            result.addMessage("bleeding-warning");
+        }
+        started = result.isTimed() ? System.nanoTime() : 0;
+        tool.use(state, skillFail, result);
+        if (result.isTimed()) {
+            result.addToolNanos(System.nanoTime() - started);
+        }
+
+        // The tool itself may have ended the surgery (e.g. anesthetic misuse)
+        if (state.isOver()) {
+            return;
+        }
+
+        // Clear sponge effect (it only lasts for one move)
+        state.setSpongeEffect(false);
+
+        // Check if surgery is complete after this move (if diagnosis was already cured)
+        if (state.isCured() && isSuccessful(state)) {
+            state.setResultKey(SUCCESS_KEY);
+        }
+    }
+
+    // ==============================================
+    // True if the move would end the surgery before any tool is used up
+    // ==============================================
+    public static boolean isStabbingAwakePatient(SurgeryState state, ToolRule tool) {
+        return tool == BuiltInTool.SCALPEL && state.getStatus() == PatientStatus.AWAKE;
+    }
+
+    // ==============================================
+    // Checks if all success conditions are met
+    // ==============================================
+    public static boolean isSuccessful(SurgeryState state) {
+        // 1. Check if diagnosis is cured
+        if (!state.isCured()) { return false; }
+
+        // 2. Pulse must be "Strong" (LIME)
+        if (state.getPulse() != Pulse.STRONG) { return false; }
+
+        // 3. Status must be "Unconscious" (LIME)
+        if (state.getStatus() != PatientStatus.UNCONSCIOUS) { return false; }
+
+        // 4. Temperature must be <= success threshold, 100°F by default (LIME)
+        if (state.getTemperature() > state.getTuning().getSuccessTempThreshold()) { return false; }
+
+        // 5. Operation site must be "Clean" (LIME)
+        if (state.getOperationSite() != OperationSite.CLEAN) { return false; }
+
+        // 6. Incisions must be 0 (LIME)
+        if (state.getIncisions() != 0) { return false; }
+
+        // 7. All bones must be fixed
+        if (state.getBrokenBones() != 0 || state.getShatteredBones() != 0) { return false; }
+
+        // 8. No bleeding
+        if (state.isBleeding()) { return false; }
+
+        return true;
+    }
+
+    // ==============================================
+    // Advances the vitals of a real-time surgery by one beat of the clock
+    // ==============================================
+    public static void beat(SurgeryState state, MoveResult result) {
+        if (!state.isOver()) {
+            advanceVitals(state, result);
+        }
+    }
+
+    // ==============================================
+    // True while a beat would change something: a timer or countdown is
+    // running, the fever is rising or high, the patient is bleeding or
+    // their pulse is extremely weak, or a counter is left to reset
+    // ==============================================
+    public static boolean hasRunningVitals(SurgeryState state) {
+        SurgeryTuning tuning = state.getTuning();
+        PatientStatus status = state.getStatus();
+        boolean feverRising = ((state.getOperationSite() != OperationSite.CLEAN && state.getIncisions() > 0)
+            || state.hasRisingTemp()) && !state.hasAntisepticProtection();
+        // The unconscious timer only matters until the anesthetic can be reused
+        boolean timerCounting = status.isSedated() && state.hasUnconsciousTimer()
+            && state.getUnconsciousTimer() < tuning.getAnestheticReuseCooldown();
+        return timerCounting
+            || (status == PatientStatus.HEART_STOPPED && state.hasDefibrillatorCountdown())
+            || state.getTemperature() > tuning.getRedTempThreshold() || state.getRedTempCounter() > 0
+            || state.isBleeding() || state.getPulse() == Pulse.EXTREMELY_WEAK || state.getExtremelyWeakCounter() > 0
+            || feverRising;
+    }
+
+    // ==============================================
+    // Processes per-move effects (antibiotics countdown, temperature changes, etc.)
+    // ==============================================
+    private static void processMoveEffects(SurgeryState state, MoveResult result) {
+        SurgeryTuning tuning = state.getTuning();
+        DiagnosisProfile diagnosis = state.getDiagnosis();
+
+        // Increment move counter
+        state.setMoveCount(state.getMoveCount() + 1);
+
+        // Increment moves since last sponge
+        state.setMovesSinceLastSponge(state.getMovesSinceLastSponge() + 1);
+
+        // In real-time mode the clock advances these instead
+        if (!state.isRealTime()) {
+            advanceVitals(state, result);
+            if (state.isOver()) {
+                return;
+            }
+        }
+
+        // Disable antiseptic protection if operation site becomes unclean
+        OperationSite opSite = state.getOperationSite();
+        boolean hasProtection = state.hasAntisepticProtection();
+        if (opSite != OperationSite.CLEAN && hasProtection) {
+            state.setAntisepticProtection(false);
+            result.addMessage("protection-lost");
+        }
+
+        if (diagnosis != null) {
+            runDiagnosisSpecificMechanics(state, result, tuning, diagnosis.getMechanic());
+        }
+    }
+
+    // ==============================================
+    // Advances the vitals by one move's worth: the unconscious timer, the
+    // defibrillator countdown, fever and bleeding, and the deaths they cause
+    // ==============================================
+    private static void advanceVitals(SurgeryState state, MoveResult result) {
+        SurgeryTuning tuning = state.getTuning();
+
+        // Increment unconscious timer if patient is unconscious
+        PatientStatus currentStatus = state.getStatus();
+        if (currentStatus.isSedated()) {
+            if (state.hasUnconsciousTimer()) {
+                state.setUnconsciousTimer(state.getUnconsciousTimer() + 1);
+            }
+        }
+
+        // Check defibrillator countdown (failure after 2 moves)
+        if (currentStatus == PatientStatus.HEART_STOPPED) {
+            if (state.hasDefibrillatorCountdown()) {
+                int countdown = state.getDefibrillatorCountdown() - 1;
+                if (countdown <= 0) {
+                    state.setResultKey("failure-not-resuscitated");
+                    return;
+                }
+                state.setDefibrillatorCountdown(countdown);
+            }
+        }
+
+        // Check if temperature exceeds instant death threshold
+        double currentTemp = state.getTemperature();
+        if (currentTemp > tuning.getInstantDeathTemp()) {
+            state.setResultKey("failure-infection");
+            return;
+        }
+
+        // Check for consecutive red temperature. Fail after configured turns
+        if (currentTemp > tuning.getRedTempThreshold()) {
+            int redTempCounter = state.getRedTempCounter() + 1;
+            state.setRedTempCounter(redTempCounter);
+            if (redTempCounter > tuning.getRedTempTurns()) {
+                state.setResultKey("failure-high-fever");
+                return;
+            }
+        } else {
+            state.setRedTempCounter(0);
+        }
+
+        // Degrade pulse if bleeding
+        if (state.isBleeding() && state.getDice().chance(tuning.getPulseDegradationChanceBleeding())) {
+            Pulse currentPulse = state.getPulse();
+            if (currentPulse == Pulse.EXTREMELY_WEAK) {
+                state.setResultKey("failure-bled-out");
+                return;
+            }
+            state.setPulse(currentPulse.worsen());
+            result.addMessage("pulse-weakening");
+        }
+
+        // Check for consecutive Extremely Weak pulse. Fail after configured turns
+        if (state.getPulse() == Pulse.EXTREMELY_WEAK) {
+            int weakCounter = state.getExtremelyWeakCounter() + 1;
+            state.setExtremelyWeakCounter(weakCounter);
+            if (weakCounter > tuning.getWeakPulseTurns()) {
+                state.setResultKey("failure-weak-pulse");
+                return;
+            }
+        } else {
+            state.setExtremelyWeakCounter(0);
+        }
+
+        // Handle temperature rise
+        OperationSite opSite = state.getOperationSite();
+        boolean hasProtection = state.hasAntisepticProtection();
+        boolean shouldRiseTemp = (opSite != OperationSite.CLEAN && (state.getIncisions() > 0 || state.isBleeding()))
+            || state.hasRisingTemp();
+
+        if (shouldRiseTemp && !hasProtection) {
+            double temp = state.getTemperature() + tuning.getTempRiseRate();
+            state.setTemperature(Math.min(temp, tuning.getInstantDeathTemp()));
+        }
+    }
+
+    // ==============================================
+    // Runs diagnosis-specific mechanics
+    // ==============================================
+    private static void runDiagnosisSpecificMechanics(SurgeryState state, MoveResult result,
+                                                      SurgeryTuning tuning, DiagnosisMechanic mechanic) {
+        switch (mechanic) {
+            case MOLDY_GUTS:
+                if (state.getMovesSinceLastSponge() >= tuning.getMoldyGutsBleedingInterval()) {
+                    state.setBleeding(true);
+                    result.addMessage("moldy-guts");
+                    updateDynamicTools(state, result);
+                }
+                break;
+
+            case FATTY_LIVER:
+                if (state.getStatus() == PatientStatus.UNCONSCIOUS && state.getDice().chance(tuning.getFattyLiverHeartStopChance())) {
+                    stopHeart(state, result, "fatty-liver-heart-stop");
+                }
+                break;
+
+            case BROKEN_HEART:
+                if (state.getStatus() == PatientStatus.UNCONSCIOUS && state.getDice().chance(tuning.getBrokenHeartHeartStopChance())) {
+                    stopHeart(state, result, "broken-heart-stop");
+                }
+                break;
+
+            case ARCANE_INFECTION:
+                if (state.getDice().chance(tuning.getArcaneChaosChance())) {
+                    handleArcaneInfectionChaos(state, result, tuning);
+                }
+                break;
+
+            case LUPUS:
+                if (state.getDice().chance(tuning.getLupusHowlChance())) {
+                    state.setIncisions(state.getIncisions() + 1);
+                    state.setBleeding(true);
+                    result.addMessage("lupus-howl");
+                    updateDynamicTools(state, result);
+                }
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    // ==============================================
+    // Handles Arcane Infection chaos effects
+    // ==============================================
+    private static void handleArcaneInfectionChaos(SurgeryState state, MoveResult result, SurgeryTuning tuning) {
+        int chaosEffect = state.getDice().pick(4);
+        double temp;
+
+        switch (chaosEffect) {
+            case 0: // Temperature spike
+                temp = Math.min(state.getTemperature() + state.getDice().between(0, tuning.getArcaneTempSpikeMax()),
+                    tuning.getInstantDeathTemp());
+                state.setTemperature(temp);
+                result.addMessage("chaos-temp-spike");
+                break;
+
+            case 1: // Temperature drop
+                temp = Math.max(state.getTemperature() - state.getDice().between(0, tuning.getArcaneTempDropMax()),
+                    tuning.getNormalTemp());
+                state.setTemperature(temp);
+                result.addMessage("chaos-temp-drop");
+                break;
+
+            case 2: // Heart stop
+                stopHeart(state, result, "chaos-heart-stop");
+                break;
+
+            case 3: // Random status change
+                state.setStatus(PatientStatus.byOrdinal(state.getDice().pick(PatientStatus.count())));
+                result.addMessage("chaos-status-change");
+                updateDynamicTools(state, result);
+                break;
+        }
+    }
+
+    private static void stopHeart(SurgeryState state, MoveResult result, String messageKey) {
+        state.setStatus(PatientStatus.HEART_STOPPED);
+        result.addMessage(messageKey);
+        state.setDefibrillatorCountdown(state.getTuning().getDefibrillatorCountdown());
+        updateDynamicTools(state, result);
+    }
+
+    // ==============================================
+    // Checks if skill fail should occur based on bleeding and sponge effect
+    // ==============================================
+    private static boolean isSkillFail(SurgeryState state) {
+        SurgeryTuning tuning = state.getTuning();
+        double baseChance = tuning.getSkillFailBaseChance();
+
+        if (state.isBleeding()) {
+            baseChance = tuning.getSkillFailBleedingChance();
+        }
+
+        if (state.hasSpongeEffect()) {
+            baseChance = tuning.getSkillFailWithSpongeChance();
+        }
+
+        return state.getDice().chance(baseChance);
+    }
+
+    // ==============================================
+    // Check if Fix it button should appear based on diagnosis and conditions
+    // ==============================================
+    static void checkForFixItButton(SurgeryState state, MoveResult result, int currentIncisions) {
+        DiagnosisProfile diagnosis = state.getDiagnosis();
+        if (diagnosis == null || state.isCured()) {
+            return;
+        }
+
+        // Check for flu diagnoses. Show surgical glove at normal temperature
+        if (diagnosis.isFlu()) {
+            if (Math.abs(state.getTemperature() - state.getTuning().getNormalTemp()) < 0.1) {
+                state.showTool(BuiltInTool.SURGICAL_GLOVE.getSlot());
+                result.addMessage("surgical-glove-ready");
+            }
+            return;
+        }
+
+        // For non-flu diagnoses, check incision count
+        if (diagnosis.hasRequiredIncisions() && currentIncisions >= diagnosis.getRequiredIncisions()) {
+            // If diagnosis has bones, check that all bones are fixed first
+            if (diagnosis.hasBones() && (state.getBrokenBones() > 0 || state.getShatteredBones() > 0)) {
+                return;
+            }
+            state.showTool(BuiltInTool.SURGICAL_GLOVE.getSlot());
+            result.addMessage("surgical-glove-ready");
+        }
+    }
+
+    // ==============================================
+    // Handles bone reveal logic for scalpel
+    // ==============================================
+    static void handleBoneReveal(SurgeryState state, MoveResult result, DiagnosisProfile diagnosis, int incisions) {
+        if (diagnosis.hasBones()) {
+            if (incisions == diagnosis.getRequiredIncisions()) {
+                state.setRevealedBrokenBones(state.getBrokenBones());
+                state.setRevealedShatteredBones(state.getShatteredBones());
+                updateDynamicTools(state, result);
+            }
+        } else {
+            revealBonesRandomly(state, result);
+        }
+    }
+
+    // ==============================================
+    // Randomly reveal bones when scalpel is used (25% chance per incision)
+    // ==============================================
+    private static void revealBonesRandomly(SurgeryState state, MoveResult result) {
+        double revealChance = state.getTuning().getBoneRandomRevealChance();
+
+        int revealedBroken = state.getRevealedBrokenBones();
+        if (revealedBroken < state.getBrokenBones() && state.getDice().chance(revealChance)) {
+            state.setRevealedBrokenBones(revealedBroken + 1);
+            result.addMessage("discovered-broken-bone");
+        }
+
+        int revealedShattered = state.getRevealedShatteredBones();
+        if (revealedShattered < state.getShatteredBones() && state.getDice().chance(revealChance)) {
+            state.setRevealedShatteredBones(revealedShattered + 1);
+            result.addMessage("discovered-shattered-bone");
+        }
+
+        updateDynamicTools(state, result);
+    }
+
+    // ==============================================
+    // Updates dynamic tools that appear based on conditions
+    // ==============================================
+    static void updateDynamicTools(SurgeryState state, MoveResult result) {
+        long started = result.isTimed() ? System.nanoTime() : 0;
+
+        // Defibrillator: appears when heart stopped
+        toggleTool(state, result, BuiltInTool.DEFIBRILLATOR, state.getStatus() == PatientStatus.HEART_STOPPED,
+            "defibrillator-available");
+
+        // Pins: appears when shattered bones revealed
+        toggleTool(state, result, BuiltInTool.PINS, state.getRevealedShatteredBones() > 0, "pins-available");
+
+        // Splint: appears when broken bones revealed
+        toggleTool(state, result, BuiltInTool.SPLINT, state.getRevealedBrokenBones() > 0, "splint-available");
+
+        // Clamp: appears when incisions > 1 AND bleeding
+        toggleTool(state, result, BuiltInTool.CLAMP, state.getIncisions() > 1 && state.isBleeding(), "clamp-available");
+
+        if (result.isTimed()) {
+            result.addDynamicToolsNanos(System.nanoTime() - started);
+        }
+    }
+
+    private static void toggleTool(SurgeryState state, MoveResult result, BuiltInTool tool, boolean wanted, String messageKey) {
+        boolean shown = state.isToolInMenu(tool.getSlot());
+        if (wanted && !shown) {
+            state.showTool(tool.getSlot());
+            result.addMessage(messageKey);
+        } else if (!wanted && shown) {
+            state.hideTool(tool.getSlot());
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package tfmc.justin.rules;
+
+import java.util.SplittableRandom;
+
+// ==============================================
+// The game state of one surgery, without a surgeon, menu or server
+// SurgeryRules plays moves against it; the plugin's SurgerySession adds
+// what the menu needs on top, the simulator uses it as it is
+// ==============================================
+public class SurgeryState {
+
+    // Marker for countdowns/timers that are not currently running
+    public static final int NO_TIMER = -1;
+
+    // Spreads the per-move seeds apart (the golden ratio gamma SplittableRandom uses)
+    // The sum is mixed before use: seeds one gamma apart would otherwise give
+    // the same stream shifted by one roll, so a move's first roll would be
+    // the previous move's second
+    private static final long MOVE_SEED_GAMMA = 0x9e3779b97f4a7c15L;
+
+    private final SurgeryTuning tuning;
+    private final DiagnosisIndex diagnoses;
+
+    // Every random roll comes from the seed and the move number, so the seed and
+    // the moves made are enough to replay the surgery, even after a restart
+    private final long seed;
+    private final SurgeryMoveLog moves;
+    private SplittableRandom random;
+    private SurgeryDice dice;
+
+    // How the rules ended the surgery, or null while it is running
+    private String resultKey;
+
+    // Menu slots 0-53 fit in a single long
+    private long clickedSlots;
+    private long toolsInMenu;
+
+    private DiagnosisProfile diagnosis;
+    private Pulse pulse = Pulse.STRONG;
+    private PatientStatus status = PatientStatus.AWAKE;
+    private double temperature = 98.6;
+    private OperationSite operationSite = OperationSite.NOT_SANITIZED;
+    private int incisions;
+    private boolean bleeding;
+    private int brokenBones;
+    private int shatteredBones;
+    private int revealedBrokenBones;
+    private int revealedShatteredBones;
+    private int defibrillatorCountdown = NO_TIMER;
+    private boolean cured;
+    private int antibioticsCounter = NO_TIMER;
+    private boolean antisepticProtection;
+    private boolean spongeEffect;
+    private int moveCount;
+    private int movesSinceLastSponge;
+    private boolean woundsExamined;
+    private int unconsciousTimer = NO_TIMER;
+    private boolean risingTemp;
+    private int extremelyWeakCounter;
+    private int redTempCounter;
+
+    // In real-time mode the vitals advance on the clock instead of with moves
+    private boolean realTime;
+
+    public SurgeryState(SurgeryTuning tuning, DiagnosisIndex diagnoses, long seed, SurgeryMoveLog moves) {
+        this.tuning = tuning;
+        this.diagnoses = diagnoses;
+        this.seed = seed;
+        this.moves = moves;
+        this.random = randomForMove(moves.size());
+        this.dice = new SeededDice(random);
+    }
+
+    // ==============================================
+    // Records a move and switches to that move's random stream
+    // The stream for move 0 is used to set up the patient
+    // ==============================================
+    public void beginMove(int slot) {
+        moves.add(slot);
+        random = randomForMove(moves.size());
+        dice = new SeededDice(random);
+    }
+
+    private SplittableRandom randomForMove(int move) {
+        return new SplittableRandom(mix(seed + move * MOVE_SEED_GAMMA));
+    }
+
+    // SplitMix64's finaliser
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    // ==============================================
+    // Getters
+    // ==============================================
+    public SurgeryTuning getTuning() { return tuning; }
+    public DiagnosisIndex getDiagnoses() { return diagnoses; }
+    public long getSeed() { return seed; }
+    public SurgeryMoveLog getMoves() { return moves; }
+    public SplittableRandom getRandom() { return random; }
+    public SurgeryDice getDice() { return dice; }
+    public String getResultKey() { return resultKey; }
+    public boolean isOver() { return resultKey != null; }
+    public boolean hasClickedSlot(int slot) { return (clickedSlots & (1L << slot)) != 0; }
+    public long getClickedSlots() { return clickedSlots; }
+    public boolean isToolInMenu(int slot) { return (toolsInMenu & (1L << slot)) != 0; }
+    public long getToolsInMenu() { return toolsInMenu; }
+    public DiagnosisProfile getDiagnosis() { return diagnosis; }
+    public boolean hasDiagnosis() { return diagnosis != null; }
+    public Pulse getPulse() { return pulse; }
+    public PatientStatus getStatus() { return status; }
+    public double getTemperature() { return temperature; }
+    public OperationSite getOperationSite() { return operationSite; }
+    public int getIncisions() { return incisions; }
+    public boolean isBleeding() { return bleeding; }
+    public int getBrokenBones() { return brokenBones; }
+    public int getShatteredBones() { return shatteredBones; }
+    public int getRevealedBrokenBones() { return revealedBrokenBones; }
+    public int getRevealedShatteredBones() { return revealedShatteredBones; }
+    public int getDefibrillatorCountdown() { return defibrillatorCountdown; }
+    public boolean hasDefibrillatorCountdown() { return defibrillatorCountdown != NO_TIMER; }
+    public boolean isCured() { return cured; }
+    public int getAntibioticsCounter() { return antibioticsCounter; }
+    public boolean hasAntisepticProtection() { return antisepticProtection; }
+    public boolean hasSpongeEffect() { return spongeEffect; }
+    public int getMoveCount() { return moveCount; }
+    public int getMovesSinceLastSponge() { return movesSinceLastSponge; }
+    public boolean hasWoundsExamined() { return woundsExamined; }
+    public int getUnconsciousTimer() { return unconsciousTimer; }
+    public boolean hasUnconsciousTimer() { return unconsciousTimer != NO_TIMER; }
+    public boolean hasRisingTemp() { return risingTemp; }
+    public int getExtremelyWeakCounter() { return extremelyWeakCounter; }
+    public int getRedTempCounter() { return redTempCounter; }
+    public boolean isRealTime() { return realTime; }
+
+    // ==============================================
+    // Setters
+    // ==============================================
+    public void setResultKey(String resultKey) { this.resultKey = resultKey; }
+    public void addClickedSlot(int slot) { clickedSlots |= 1L << slot; }
+    public void setClickedSlots(long slots) { this.clickedSlots = slots; }
+    public void showTool(int slot) { toolsInMenu |= 1L << slot; }
+    public void hideTool(int slot) { toolsInMenu &= ~(1L << slot); }
+    public void setToolsInMenu(long slots) { this.toolsInMenu = slots; }
+    public void setDiagnosis(DiagnosisProfile diagnosis) { this.diagnosis = diagnosis; }
+    public void setPulse(Pulse pulse) { this.pulse = pulse; }
+    public void setStatus(PatientStatus status) { this.status = status; }
+    public void setTemperature(double temperature) { this.temperature = temperature; }
+    public void setOperationSite(OperationSite operationSite) { this.operationSite = operationSite; }
+    public void setIncisions(int incisions) { this.incisions = incisions; }
+    public void setBleeding(boolean bleeding) { this.bleeding = bleeding; }
+    public void setBrokenBones(int count) { this.brokenBones = count; }
+    public void setShatteredBones(int count) { this.shatteredBones = count; }
+    public void setRevealedBrokenBones(int count) { this.revealedBrokenBones = count; }
+    public void setRevealedShatteredBones(int count) { this.revealedShatteredBones = count; }
+    public void setDefibrillatorCountdown(int countdown) { this.defibrillatorCountdown = countdown; }
+    public void setCured(boolean cured) { this.cured = cured; }
+    public void setAntibioticsCounter(int count) { this.antibioticsCounter = count; }
+    public void setAntisepticProtection(boolean protected_) { this.antisepticProtection = protected_; }
+    public void setSpongeEffect(boolean effect) { this.spongeEffect = effect; }
+    public void setMoveCount(int count) { this.moveCount = count; }
+    public void setMovesSinceLastSponge(int count) { this.movesSinceLastSponge = count; }
+    public void setWoundsExamined(boolean examined) { this.woundsExamined = examined; }
+    public void setUnconsciousTimer(int timer) { this.unconsciousTimer = timer; }
+    public void setHasRisingTemp(boolean risingTemp) { this.risingTemp = risingTemp; }
+    public void setExtremelyWeakCounter(int count) { this.extremelyWeakCounter = count; }
+    public void setRedTempCounter(int count) { this.redTempCounter = count; }
+    public void setRealTime(boolean realTime) { this.realTime = realTime; }
+    public void removeDefibrillatorCountdown() { this.defibrillatorCountdown = NO_TIMER; }
+    public void removeAntibioticsCounter() { this.antibioticsCounter = NO_TIMER; }
+    public void removeUnconsciousTimer() { this.unconsciousTimer = NO_TIMER; }
+}
@@ -0,0 +1,170 @@
+package tfmc.justin.rules;
+
+import org.bukkit.configuration.ConfigurationSection;
+
+// ==============================================
+// Immutable snapshot of the numeric gameplay settings in config.yml
+// Compiled once per load so the per-move code only reads final fields
+// ==============================================
+public final class SurgeryTuning {
+
+    // General
+    private final double maxSurgeryDistance;
+
+    // Skill fail chances
+    private final double skillFailBaseChance;
+    private final double skillFailBleedingChance;
+    private final double skillFailWithSpongeChance;
+
+    // Temperature settings
+    private final double normalTemp;
+    private final double risingTempMin;
+    private final double risingTempMax;
+    private final double instantDeathTemp;
+    private final double redTempThreshold;
+    private final double successTempThreshold;
+    private final double tempRiseRate;
+    private final double antibioticsTempChange;
+
+    // Pulse settings
+    private final double pulseDegradationChanceBleeding;
+    private final double scalpelPulseDecreaseChance;
+
+    // Death timers
+    private final int defibrillatorCountdown;
+    private final int weakPulseTurns;
+    private final int redTempTurns;
+    private final int anestheticReuseCooldown;
+
+    // Bone mechanics
+    private final double boneRandomRevealChance;
+
+    // Diagnosis-specific mechanics
+    private final int moldyGutsBleedingInterval;
+    private final double fattyLiverHeartStopChance;
+    private final double brokenHeartHeartStopChance;
+    private final double arcaneChaosChance;
+    private final double arcaneTempSpikeMax;
+    private final double arcaneTempDropMax;
+    private final double lupusHowlChance;
+    private final int paperCutsScalpelUses;
+
+    // Chat
+    private final int maxChatLinesPerMove;
+
+    // Completion actions
+    private final int outcomesPerTick;
+    private final int outcomeQueueCapacity;
+
+    // Persistence
+    private final int resumeTimeoutMinutes;
+
+    // Admission
+    private final int maxSurgeonsPerPatient;
+    private final int maxConcurrentSurgeries;
+
+    // Real-time mode
+    private final boolean realTime;
+    private final int beatTicks;
+
+    private SurgeryTuning(ConfigurationSection config) {
+        maxSurgeryDistance = config.getDouble("max-surgery-distance", 5.0);
+
+        skillFailBaseChance = config.getDouble("skill-fail.base-chance", 0.25);
+        skillFailBleedingChance = config.getDouble("skill-fail.bleeding-chance", 0.40);
+        skillFailWithSpongeChance = config.getDouble("skill-fail.with-sponge-chance", 0.10);
+
+        normalTemp = config.getDouble("temperature.normal", 98.6);
+        risingTempMin = config.getDouble("temperature.rising-temp-min", 98.6);
+        risingTempMax = config.getDouble("temperature.rising-temp-max", 104.0);
+        instantDeathTemp = config.getDouble("temperature.instant-death-threshold", 110.0);
+        redTempThreshold = config.getDouble("temperature.red-temp-threshold", 106.0);
+        successTempThreshold = config.getDouble("temperature.success-threshold", 100.0);
+        tempRiseRate = config.getDouble("temperature.rise-rate", 1.8);
+        antibioticsTempChange = config.getDouble("temperature.antibiotics-change", 5.4);
+
+        pulseDegradationChanceBleeding = config.getDouble("pulse.degradation-chance-bleeding", 0.30);
+        scalpelPulseDecreaseChance = config.getDouble("pulse.scalpel-decrease-chance", 0.50);
+
+        defibrillatorCountdown = config.getInt("death-timers.defibrillator-countdown", 2);
+        weakPulseTurns = config.getInt("death-timers.weak-pulse-turns", 2);
+        redTempTurns = config.getInt("death-timers.red-temp-turns", 2);
+        anestheticReuseCooldown = config.getInt("death-timers.anesthetic-reuse-cooldown", 4);
+
+        boneRandomRevealChance = config.getDouble("bones.random-reveal-chance", 0.25);
+
+        moldyGutsBleedingInterval = config.getInt("diagnosis-mechanics.moldy-guts.bleeding-interval-min", 3);
+        fattyLiverHeartStopChance = config.getDouble("diagnosis-mechanics.fatty-liver.heart-stop-chance", 0.20);
+        brokenHeartHeartStopChance = config.getDouble("diagnosis-mechanics.broken-heart.heart-stop-chance", 0.35);
+        arcaneChaosChance = config.getDouble("diagnosis-mechanics.arcane-infection.chaos-chance", 0.25);
+        arcaneTempSpikeMax = config.getDouble("diagnosis-mechanics.arcane-infection.temp-spike-max", 4.0);
+        arcaneTempDropMax = config.getDouble("diagnosis-mechanics.arcane-infection.temp-drop-max", 2.0);
+        lupusHowlChance = config.getDouble("diagnosis-mechanics.lupus.howl-chance", 0.15);
+        paperCutsScalpelUses = config.getInt("diagnosis-mechanics.paper-cuts.scalpel-uses-required", 2);
+
+        maxChatLinesPerMove = Math.max(1, config.getInt("chat.max-lines-per-move", 6));
+
+        outcomesPerTick = Math.max(1, config.getInt("outcomes.max-per-tick", 20));
+        outcomeQueueCapacity = Math.max(1, config.getInt("outcomes.queue-capacity", 1000));
+
+        resumeTimeoutMinutes = Math.max(0, config.getInt("persistence.resume-timeout-minutes", 30));
+
+        maxSurgeonsPerPatient = Math.max(0, config.getInt("admission.max-surgeons-per-patient", 1));
+        maxConcurrentSurgeries = Math.max(0, config.getInt("admission.max-concurrent-surgeries", 0));
+
+        realTime = config.getBoolean("real-time.enabled", false);
+        beatTicks = Math.max(1, (int) Math.round(config.getDouble("real-time.beat-seconds", 3.0) * 20));
+    }
+
+    // ==============================================
+    // Compiles a snapshot from a loaded config.yml
+    // ==============================================
+    public static SurgeryTuning fromConfig(ConfigurationSection config) {
+        return new SurgeryTuning(config);
+    }
+
+    // ==============================================
+    // Lowest and highest temperatures a surgery can display
+    // ==============================================
+    public double getMinDisplayTemp() { return Math.min(normalTemp, risingTempMin); }
+    public double getMaxDisplayTemp() { return Math.max(instantDeathTemp, risingTempMax); }
+
+    // ==============================================
+    // Getters
+    // ==============================================
+    public double getMaxSurgeryDistance() { return maxSurgeryDistance; }
+    public double getSkillFailBaseChance() { return skillFailBaseChance; }
+    public double getSkillFailBleedingChance() { return skillFailBleedingChance; }
+    public double getSkillFailWithSpongeChance() { return skillFailWithSpongeChance; }
+    public double getNormalTemp() { return normalTemp; }
+    public double getRisingTempMin() { return risingTempMin; }
+    public double getRisingTempMax() { return risingTempMax; }
+    public double getInstantDeathTemp() { return instantDeathTemp; }
+    public double getRedTempThreshold() { return redTempThreshold; }
+    public double getSuccessTempThreshold() { return successTempThreshold; }
+    public double getTempRiseRate() { return tempRiseRate; }
+    public double getAntibioticsTempChange() { return antibioticsTempChange; }
+    public double getPulseDegradationChanceBleeding() { return pulseDegradationChanceBleeding; }
+    public double getScalpelPulseDecreaseChance() { return scalpelPulseDecreaseChance; }
+    public int getDefibrillatorCountdown() { return defibrillatorCountdown; }
+    public int getWeakPulseTurns() { return weakPulseTurns; }
+    public int getRedTempTurns() { return redTempTurns; }
+    public int getAnestheticReuseCooldown() { return anestheticReuseCooldown; }
+    public double getBoneRandomRevealChance() { return boneRandomRevealChance; }
+    public int getMoldyGutsBleedingInterval() { return moldyGutsBleedingInterval; }
+    public double getFattyLiverHeartStopChance() { return fattyLiverHeartStopChance; }
+    public double getBrokenHeartHeartStopChance() { return brokenHeartHeartStopChance; }
+    public double getArcaneChaosChance() { return arcaneChaosChance; }
+    public double getArcaneTempSpikeMax() { return arcaneTempSpikeMax; }
+    public double getArcaneTempDropMax() { return arcaneTempDropMax; }
+    public double getLupusHowlChance() { return lupusHowlChance; }
+    public int getPaperCutsScalpelUses() { return paperCutsScalpelUses; }
+    public int getMaxChatLinesPerMove() { return maxChatLinesPerMove; }
+    public int getOutcomesPerTick() { return outcomesPerTick; }
+    public int getOutcomeQueueCapacity() { return outcomeQueueCapacity; }
+    public int getResumeTimeoutMinutes() { return resumeTimeoutMinutes; }
+    public int getMaxSurgeonsPerPatient() { return maxSurgeonsPerPatient; }
+    public int getMaxConcurrentSurgeries() { return maxConcurrentSurgeries; }
+    public boolean isRealTime() { return realTime; }
+    public int getBeatTicks() { return beatTicks; }
+}
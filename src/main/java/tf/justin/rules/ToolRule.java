@@ -0,0 +1,13 @@
+package tfmc.justin.rules;
+
+// ==============================================
+// What using a tool does to the surgery
+// Called after the move effects ran. Changes the state and reports
+// messages and any skill fail through the result. Dice must be rolled
+// through state.getDice() so the move can be replayed
+// and the solver can weigh every outcome
+// ==============================================
+@FunctionalInterface
+public interface ToolRule {
+    void use(SurgeryState state, boolean skillFail, MoveResult result);
+}
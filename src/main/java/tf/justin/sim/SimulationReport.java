@@ -0,0 +1,101 @@
+package tfmc.justin.sim;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// ==============================================
+// Totals of a batch of simulated surgeries, per diagnosis
+// Each fork/join task fills its own report; they are merged on the way up
+// ==============================================
+public final class SimulationReport {
+
+    // Surgeries that ended before the ultrasound found anything
+    private static final String UNDIAGNOSED = "(undiagnosed)";
+
+    private final Map<String, Tally> byDiagnosis = new HashMap<>();
+
+    // ==============================================
+    // Counts one finished surgery
+    // ==============================================
+    public void record(String diagnosis, String resultKey, boolean success, int moves) {
+        byDiagnosis.computeIfAbsent(diagnosis != null ? diagnosis : UNDIAGNOSED, name -> new Tally())
+            .add(resultKey, success, moves);
+    }
+
+    // ==============================================
+    // Adds another report to this one and returns this
+    // ==============================================
+    public SimulationReport merge(SimulationReport other) {
+        other.byDiagnosis.forEach((name, tally) ->
+            byDiagnosis.computeIfAbsent(name, key -> new Tally()).merge(tally));
+        return this;
+    }
+
+    // ==============================================
+    // Prints one line per diagnosis, most played first, then the totals
+    // ==============================================
+    public void print(PrintStream out) {
+        String format = "%-24s %10s %9s %10s  %s%n";
+        out.printf(format, "Diagnosis", "Surgeries", "Success", "Avg moves", "Most common failure");
+
+        List<Map.Entry<String, Tally>> rows = new ArrayList<>(byDiagnosis.entrySet());
+        rows.sort((a, b) -> Long.compare(b.getValue().total, a.getValue().total));
+
+        Tally all = new Tally();
+        for (Map.Entry<String, Tally> row : rows) {
+            printRow(out, format, row.getKey(), row.getValue());
+            all.merge(row.getValue());
+        }
+        printRow(out, format, "All", all);
+    }
+
+    private static void printRow(PrintStream out, String format, String name, Tally tally) {
+        String topFailure = tally.getTopFailure();
+        out.printf(format, name, tally.total,
+            String.format("%.2f%%", tally.total == 0 ? 0 : tally.successes * 100.0 / tally.total),
+            String.format("%.1f", tally.total == 0 ? 0 : (double) tally.totalMoves / tally.total),
+            topFailure != null ? topFailure : "-");
+    }
+
+    // ==============================================
+    // Running totals for one diagnosis
+    // ==============================================
+    private static final class Tally {
+        private long total;
+        private long successes;
+        private long totalMoves;
+        private final Map<String, Long> failures = new HashMap<>();
+
+        private void add(String resultKey, boolean success, int moves) {
+            total++;
+            totalMoves += moves;
+            if (success) {
+                successes++;
+            } else {
+                failures.merge(resultKey, 1L, Long::sum);
+            }
+        }
+
+        private void merge(Tally other) {
+            total += other.total;
+            successes += other.successes;
+            totalMoves += other.totalMoves;
+            other.failures.forEach((key, count) -> failures.merge(key, count, Long::sum));
+        }
+
+        private String getTopFailure() {
+            String top = null;
+            long topCount = 0;
+            for (Map.Entry<String, Long> entry : failures.entrySet()) {
+                if (entry.getValue() > topCount) {
+                    top = entry.getKey();
+                    topCount = entry.getValue();
+                }
+            }
+            return top;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package tfmc.justin.sim;
+
+import tfmc.justin.rules.BuiltInTool;
+import tfmc.justin.rules.PatientStatus;
+import tfmc.justin.rules.Pulse;
+import tfmc.justin.rules.SurgeryState;
+import tfmc.justin.rules.SurgeryTuning;
+
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+// ==============================================
+// How a simulated surgeon picks the next tool
+// Only tools currently in the menu may be picked. Strategies get their own
+// dice so they never disturb the rolls of the surgery itself
+// ==============================================
+public enum SimulationStrategy {
+
+    // ==============================================
+    // Clicks any tool in the menu; a baseline for how forgiving the rules are
+    // ==============================================
+    RANDOM {
+        @Override
+        BuiltInTool choose(SurgeryState state, SplittableRandom dice) {
+            long tools = state.getToolsInMenu();
+            int pick = dice.nextInt(Long.bitCount(tools));
+            for (int i = 0; i < pick; i++) {
+                tools &= tools - 1;
+            }
+            return BuiltInTool.bySlot(Long.numberOfTrailingZeros(tools));
+        }
+    },
+
+    // ==============================================
+    // Treats the most urgent problem first, the way a practised surgeon would
+    // ==============================================
+    CAREFUL {
+        @Override
+        BuiltInTool choose(SurgeryState state, SplittableRandom dice) {
+            SurgeryTuning tuning = state.getTuning();
+            PatientStatus status = state.getStatus();
+
+            // A stopped heart fails the surgery within a few moves
+            if (status == PatientStatus.HEART_STOPPED && has(state, BuiltInTool.DEFIBRILLATOR)) {
+                return BuiltInTool.DEFIBRILLATOR;
+            }
+
+            // Put the patient under, but never again within the reuse cooldown
+            if (status == PatientStatus.AWAKE || (status == PatientStatus.COMING_TO
+                    && (!state.hasUnconsciousTimer() || state.getUnconsciousTimer() >= tuning.getAnestheticReuseCooldown()))) {
+                return BuiltInTool.ANESTHETIC;
+            }
+
+            if (state.isBleeding()) {
+                return has(state, BuiltInTool.CLAMP) ? BuiltInTool.CLAMP : BuiltInTool.SPONGE;
+            }
+            if (state.getPulse() == Pulse.WEAK || state.getPulse() == Pulse.EXTREMELY_WEAK) {
+                return BuiltInTool.TRANSFUSION;
+            }
+            if (state.getTemperature() > tuning.getRedTempThreshold()) {
+                BuiltInTool coolDown = coolDown(state);
+                if (coolDown != null) {
+                    return coolDown;
+                }
+            }
+            if (!state.hasDiagnosis() && has(state, BuiltInTool.ULTRASOUND)) {
+                return BuiltInTool.ULTRASOUND;
+            }
+            if (!state.hasAntisepticProtection()) {
+                return BuiltInTool.ANTISEPTIC;
+            }
+
+            // Flu is treated by bringing the temperature all the way down
+            boolean flu = state.hasDiagnosis() && state.getDiagnosis().isFlu() && !state.isCured();
+            double targetTemp = flu ? tuning.getNormalTemp() + 0.05 : tuning.getSuccessTempThreshold();
+            if (state.getTemperature() > targetTemp) {
+                BuiltInTool coolDown = coolDown(state);
+                if (coolDown != null) {
+                    return coolDown;
+                }
+            }
+
+            if (has(state, BuiltInTool.SURGICAL_GLOVE)) {
+                return BuiltInTool.SURGICAL_GLOVE;
+            }
+            if (has(state, BuiltInTool.PINS) && state.getShatteredBones() > 0) {
+                return BuiltInTool.PINS;
+            }
+            if (has(state, BuiltInTool.SPLINT) && state.getBrokenBones() > 0) {
+                return BuiltInTool.SPLINT;
+            }
+
+            // Cutting also brings the glove out once enough incisions are made
+            if (!state.isCured()) {
+                return BuiltInTool.SCALPEL;
+            }
+            if (state.getIncisions() > 0) {
+                return BuiltInTool.STITCHES;
+            }
+            if (state.getPulse() != Pulse.STRONG) {
+                return BuiltInTool.TRANSFUSION;
+            }
+            return BuiltInTool.SPONGE;
+        }
+    };
+
+    // ==============================================
+    // Picks the next tool; it must be in the menu
+    // ==============================================
+    abstract BuiltInTool choose(SurgeryState state, SplittableRandom dice);
+
+    private static boolean has(SurgeryState state, BuiltInTool tool) {
+        return state.isToolInMenu(tool.getSlot());
+    }
+
+    // ==============================================
+    // Antibiotics, or the lab kit that brings them out; null if neither is left
+    // ==============================================
+    private static BuiltInTool coolDown(SurgeryState state) {
+        if (has(state, BuiltInTool.ANTIBIOTICS)) {
+            return BuiltInTool.ANTIBIOTICS;
+        }
+        return has(state, BuiltInTool.LAB_KIT) ? BuiltInTool.LAB_KIT : null;
+    }
+
+    // ==============================================
+    // Gets a strategy by its name in any case, or null if unknown
+    // ==============================================
+    public static SimulationStrategy byName(String name) {
+        try {
+            return valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package tfmc.justin.sim;
+
+import java.util.concurrent.RecursiveTask;
+
+// ==============================================
+// Plays a range of simulated surgeries, splitting it in half until the
+// pieces are small enough to play on one thread
+// ==============================================
+final class SimulationTask extends RecursiveTask<SimulationReport> {
+
+    private final SurgerySimulator simulator;
+    private final long from;
+    private final long to;
+    private final long batchSize;
+
+    SimulationTask(SurgerySimulator simulator, long from, long to, long batchSize) {
+        this.simulator = simulator;
+        this.from = from;
+        this.to = to;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    protected SimulationReport compute() {
+        if (to - from <= batchSize) {
+            SimulationReport report = new SimulationReport();
+            for (long game = from; game < to; game++) {
+                simulator.play(game, report);
+            }
+            return report;
+        }
+
+        long middle = (from + to) >>> 1;
+        SimulationTask left = new SimulationTask(simulator, from, middle, batchSize);
+        SimulationTask right = new SimulationTask(simulator, middle, to, batchSize);
+        left.fork();
+        SimulationReport rightReport = right.compute();
+        return left.join().merge(rightReport);
+    }
+}
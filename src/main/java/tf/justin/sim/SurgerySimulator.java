@@ -0,0 +1,187 @@
+package tfmc.justin.sim;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import tfmc.justin.rules.BuiltInTool;
+import tfmc.justin.rules.DiagnosisIndex;
+import tfmc.justin.rules.MoveResult;
+import tfmc.justin.rules.SurgeryMoveLog;
+import tfmc.justin.rules.SurgeryRules;
+import tfmc.justin.rules.SurgeryState;
+import tfmc.justin.rules.SurgeryTuning;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+
+// ==============================================
+// Plays simulated surgeries against a config.yml without a server
+// Uses the same rules as the plugin, spread over all cores with fork/join:
+//
+//   java -cp surgery-1.0.0.jar:<paper-api and its libraries> tfmc.justin.sim.SurgerySimulator
+//        [--config config.yml] [--games 1000000] [--strategy careful|random]
+//        [--seed n] [--threads n] [--max-moves 200]
+//
+// Without --config the config.yml bundled in the jar is used. A run with
+// the same seed, config and strategy plays exactly the same surgeries
+// ==============================================
+public final class SurgerySimulator {
+
+    // Result key of a surgery that hit --max-moves without ending
+    private static final String MOVE_LIMIT_KEY = "move-limit";
+
+    // Games per fork/join leaf never drop below this, so tasks stay worth forking
+    private static final long MIN_BATCH_SIZE = 1_000;
+
+    private final SurgeryTuning tuning;
+    private final DiagnosisIndex diagnoses;
+    private final SimulationStrategy strategy;
+    private final long seed;
+    private final int maxMoves;
+    private final long startingTools = BuiltInTool.startingTools();
+
+    public SurgerySimulator(SurgeryTuning tuning, DiagnosisIndex diagnoses, SimulationStrategy strategy,
+                            long seed, int maxMoves) {
+        this.tuning = tuning;
+        this.diagnoses = diagnoses;
+        this.strategy = strategy;
+        this.seed = seed;
+        this.maxMoves = maxMoves;
+    }
+
+    // ==============================================
+    // Plays the given number of surgeries on a pool of the given size
+    // ==============================================
+    public SimulationReport run(long games, int threads) {
+        long batchSize = Math.max(MIN_BATCH_SIZE, games / (threads * 8L));
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.invoke(new SimulationTask(this, 0, games, batchSize));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // ==============================================
+    // Plays one surgery, numbered so every game has its own fixed dice
+    // ==============================================
+    void play(long game, SimulationReport report) {
+        SplittableRandom dice = new SplittableRandom(seed + game);
+        SurgeryState state = new SurgeryState(tuning, diagnoses, dice.nextLong(), new SurgeryMoveLog());
+        SurgeryRules.setUp(state, startingTools);
+
+        MoveResult result = new MoveResult();
+        while (!state.isOver() && state.getMoves().size() < maxMoves) {
+            BuiltInTool tool = strategy.choose(state, dice);
+            result.clear();
+            SurgeryRules.play(state, tool.getSlot(), tool, result);
+        }
+
+        String resultKey = state.isOver() ? state.getResultKey() : MOVE_LIMIT_KEY;
+        boolean success = SurgeryRules.SUCCESS_KEY.equals(resultKey);
+        report.record(state.hasDiagnosis() ? state.getDiagnosis().getName() : null, resultKey, success,
+            state.getMoves().size());
+    }
+
+    // ==============================================
+    // Command line entry point
+    // ==============================================
+    public static void main(String[] args) throws IOException {
+        File configFile = null;
+        long games = 1_000_000;
+        SimulationStrategy strategy = SimulationStrategy.CAREFUL;
+        long seed = ThreadLocalRandom.current().nextLong();
+        int threads = Runtime.getRuntime().availableProcessors();
+        int maxMoves = 200;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String option = args[i];
+                if (i + 1 >= args.length) {
+                    usage("Missing value for " + option);
+                    return;
+                }
+                String value = args[++i];
+                switch (option) {
+                    case "--config":
+                        configFile = new File(value);
+                        break;
+                    case "--games":
+                        games = Long.parseLong(value);
+                        break;
+                    case "--strategy":
+                        strategy = SimulationStrategy.byName(value);
+                        if (strategy == null) {
+                            usage("Unknown strategy " + value);
+                            return;
+                        }
+                        break;
+                    case "--seed":
+                        seed = Long.parseLong(value);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value);
+                        break;
+                    case "--max-moves":
+                        maxMoves = Integer.parseInt(value);
+                        break;
+                    default:
+                        usage("Unknown option " + option);
+                        return;
+                }
+            }
+        } catch (NumberFormatException e) {
+            usage("Not a number: " + e.getMessage());
+            return;
+        }
+        if (games <= 0 || threads <= 0 || maxMoves <= 0) {
+            usage("--games, --threads and --max-moves must be positive");
+            return;
+        }
+        if (configFile != null && !configFile.isFile()) {
+            usage("No config file at " + configFile);
+            return;
+        }
+
+        YamlConfiguration config = loadConfig(configFile);
+        DiagnosisIndex diagnoses = DiagnosisIndex.fromConfig(config);
+        if (!diagnoses.canDiagnose()) {
+            usage("The config has no diagnoses to simulate");
+            return;
+        }
+
+        SurgerySimulator simulator = new SurgerySimulator(SurgeryTuning.fromConfig(config), diagnoses, strategy, seed, maxMoves);
+        long started = System.nanoTime();
+        SimulationReport report = simulator.run(games, threads);
+        double seconds = (System.nanoTime() - started) / 1e9;
+
+        System.out.printf("Simulated %,d surgeries with the %s strategy on %d threads in %.1fs (%,.0f per second), seed %d%n%n",
+            games, strategy.name().toLowerCase(Locale.ROOT), threads, seconds, games / seconds, seed);
+        report.print(System.out);
+    }
+
+    // ==============================================
+    // Reads the config, falling back to the bundled one for missing keys
+    // ==============================================
+    public static YamlConfiguration loadConfig(File configFile) throws IOException {
+        YamlConfiguration config = configFile != null ? YamlConfiguration.loadConfiguration(configFile) : new YamlConfiguration();
+        try (InputStream in = SurgerySimulator.class.getResourceAsStream("/config.yml")) {
+            if (in != null) {
+                config.setDefaults(YamlConfiguration.loadConfiguration(new InputStreamReader(in, StandardCharsets.UTF_8)));
+            }
+        }
+        return config;
+    }
+
+    private static void usage(String problem) {
+        System.err.println(problem);
+        System.err.println("Usage: SurgerySimulator [--config config.yml] [--games n] [--strategy careful|random]"
+            + " [--seed n] [--threads n] [--max-moves n]");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,133 @@
+package tfmc.justin.solver;
+
+import tfmc.justin.rules.SurgeryDice;
+
+import java.util.Arrays;
+
+// ==============================================
+// Dice that take every outcome in turn instead of a random one
+// A move is played once per outcome path: each roll either repeats the
+// choice of the previous path or, past its end, takes the first option.
+// next() then advances the last roll that has options left, like an
+// odometer, until every combination of outcomes has been played
+//
+// Values from between() are taken in steps of half a tenth, the middle of
+// each step standing for all of it, as the state key does, and weighted
+// by how much of the range it covers. roll() only picks a message, so it
+// always returns 0
+// ==============================================
+final class BranchingDice implements SurgeryDice {
+
+    // Half-tenths of a degree: the state key keeps a temperature as its
+    // tenth and the side of it it lies on
+    private static final double STEPS_PER_UNIT = 20.0;
+    private static final double EDGE = 1e-9;
+
+    private int[] choices = new int[16];
+    private int[] options = new int[16];
+    private int length;
+    private int depth;
+    private double probability;
+
+    // ==============================================
+    // Starts over at the first outcome path of a new move
+    // ==============================================
+    void reset() {
+        length = 0;
+        begin();
+    }
+
+    // ==============================================
+    // Starts playing the current outcome path
+    // ==============================================
+    void begin() {
+        depth = 0;
+        probability = 1.0;
+    }
+
+    // ==============================================
+    // Moves on to the next outcome path; false once all were played
+    // ==============================================
+    boolean next() {
+        for (int i = length - 1; i >= 0; i--) {
+            if (choices[i] + 1 < options[i]) {
+                choices[i]++;
+                length = i + 1;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Probability of the path played since begin()
+    double getProbability() { return probability; }
+
+    @Override
+    public boolean chance(double probability) {
+        if (probability <= 0) {
+            return false;
+        }
+        if (probability >= 1) {
+            return true;
+        }
+        boolean hit = choose(2) == 0;
+        this.probability *= hit ? probability : 1 - probability;
+        return hit;
+    }
+
+    @Override
+    public int pick(int bound) {
+        if (bound <= 1) {
+            return 0;
+        }
+        int choice = choose(bound);
+        probability /= bound;
+        return choice;
+    }
+
+    @Override
+    public boolean coinFlip() {
+        probability *= 0.5;
+        return choose(2) == 0;
+    }
+
+    @Override
+    public double between(double min, double max) {
+        if (max <= min) {
+            return min;
+        }
+
+        // Half-tenth steps, each standing for the values on one side of a tenth
+        // A bound on a step's edge (98.6 * 20 = 1972.0000000000002) shouldn't add an empty step
+        long first = (long) Math.floor(min * STEPS_PER_UNIT + EDGE);
+        long last = (long) Math.ceil(max * STEPS_PER_UNIT - EDGE) - 1;
+        long step = first + choose((int) (last - first + 1));
+        double from = Math.max(min, step / STEPS_PER_UNIT);
+        double to = Math.min(max, (step + 1) / STEPS_PER_UNIT);
+        probability *= (to - from) / (max - min);
+        return (step + 0.5) / STEPS_PER_UNIT;
+    }
+
+    @Override
+    public int roll() {
+        return 0;
+    }
+
+    // ==============================================
+    // The option the current path takes at this roll
+    // ==============================================
+    private int choose(int count) {
+        if (depth < length) {
+            return choices[depth++];
+        }
+        if (length == choices.length) {
+            choices = Arrays.copyOf(choices, length * 2);
+            options = Arrays.copyOf(options, length * 2);
+        }
+        choices[length] = 0;
+        options[length] = count;
+        length++;
+        depth++;
+        return 0;
+    }
+}
@@ -0,0 +1,63 @@
+package tfmc.justin.solver;
+
+import tfmc.justin.rules.DiagnosisProfile;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// ==============================================
+// Diagnoses the rules treat the same, solved once as one layer, and what
+// the solver found for them
+// ==============================================
+final class DiagnosisGroup {
+
+    private final DiagnosisProfile diagnosis;
+    private final List<String> names = new ArrayList<>();
+
+    // How many of the ultrasound's picks land in this group
+    private int picks;
+
+    // Results, set once the group is solved
+    private boolean solved;
+    private int states;
+    private int transitions;
+    private long outOfRange;
+    private int sweeps;
+    private boolean converged;
+    private double firstMoveChance;
+
+    DiagnosisGroup(DiagnosisProfile diagnosis) {
+        this.diagnosis = diagnosis;
+    }
+
+    void addPick(String name) {
+        if (!names.contains(name)) {
+            names.add(name);
+        }
+        picks++;
+    }
+
+    void setResult(StateGraph graph, int sweeps, boolean converged, double firstMoveChance) {
+        this.solved = true;
+        this.states = graph.stateCount();
+        this.transitions = graph.transitionCount();
+        this.outOfRange = graph.getOutOfRangeOutcomes();
+        this.sweeps = sweeps;
+        this.converged = converged;
+        this.firstMoveChance = firstMoveChance;
+    }
+
+    // ==============================================
+    // Getters
+    // ==============================================
+    DiagnosisProfile getDiagnosis() { return diagnosis; }
+    List<String> getNames() { return names; }
+    int getPicks() { return picks; }
+    boolean isSolved() { return solved; }
+    int getStates() { return states; }
+    int getTransitions() { return transitions; }
+    long getOutOfRange() { return outOfRange; }
+    int getSweeps() { return sweeps; }
+    boolean hasConverged() { return converged; }
+    double getFirstMoveChance() { return firstMoveChance; }
+}
@@ -0,0 +1,35 @@
+package tfmc.justin.solver;
+
+import java.util.Arrays;
+
+// ==============================================
+// State keys with the chance of being in each, merged by key
+// ==============================================
+final class Distribution {
+
+    private final KeyIndex index = new KeyIndex();
+    private long[] keys = new long[16];
+    private double[] probabilities = new double[16];
+    private int size;
+
+    void add(long key, double probability) {
+        int i = index.get(key);
+        if (i >= 0) {
+            probabilities[i] += probability;
+            return;
+        }
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            probabilities = Arrays.copyOf(probabilities, size * 2);
+        }
+        index.put(key, size);
+        keys[size] = key;
+        probabilities[size] = probability;
+        size++;
+    }
+
+    int size() { return size; }
+    long getKey(int i) { return keys[i]; }
+    double getProbability(int i) { return probabilities[i]; }
+    long[] keys() { return Arrays.copyOf(keys, size); }
+}
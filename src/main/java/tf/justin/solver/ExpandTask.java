@@ -0,0 +1,50 @@
+package tfmc.justin.solver;
+
+import tfmc.justin.rules.DiagnosisProfile;
+
+import java.util.concurrent.RecursiveAction;
+
+// ==============================================
+// Fork/join task that plays the moves out of a batch of states, splitting
+// its chunks in halves until each task plays one chunk into its expansion
+// ==============================================
+final class ExpandTask extends RecursiveAction {
+
+    private final StateExplorer explorer;
+    private final DiagnosisProfile diagnosis;
+    private final long[] keys;
+    private final int from;
+    private final int to;
+    private final int firstChunk;
+    private final int chunks;
+
+    ExpandTask(StateExplorer explorer, DiagnosisProfile diagnosis, long[] keys, int from, int to,
+               int firstChunk, int chunks) {
+        this.explorer = explorer;
+        this.diagnosis = diagnosis;
+        this.keys = keys;
+        this.from = from;
+        this.to = to;
+        this.firstChunk = firstChunk;
+        this.chunks = chunks;
+    }
+
+    @Override
+    protected void compute() {
+        if (chunks > 1) {
+            int half = chunks / 2;
+            invokeAll(new ExpandTask(explorer, diagnosis, keys, from, to, firstChunk, half),
+                new ExpandTask(explorer, diagnosis, keys, from, to, firstChunk + half, chunks - half));
+            return;
+        }
+
+        Expansion out = explorer.getExpansion(firstChunk);
+        out.clear();
+        MovePlayer player = explorer.getPlayer();
+        int start = from + firstChunk * StateExplorer.CHUNK_SIZE;
+        int end = Math.min(start + StateExplorer.CHUNK_SIZE, to);
+        for (int state = start; state < end; state++) {
+            player.expand(diagnosis, keys[state], out);
+        }
+    }
+}
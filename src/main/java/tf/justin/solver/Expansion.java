@@ -0,0 +1,91 @@
+package tfmc.justin.solver;
+
+import java.util.Arrays;
+
+// ==============================================
+// The moves out of a run of states, as played by one MovePlayer: for each
+// state the number of tools in its menu, for each tool its slot and
+// outcomes, and for each outcome where it leads and its chance
+// Outcomes lead to the end of the surgery, to a state of the same layer
+// (by key) or, out of the undiagnosed layer, to a diagnosis group's state
+// ==============================================
+final class Expansion {
+
+    static final int SUCCESS = -1;
+    static final int FAILURE = -2;
+    static final int SAME_LAYER = -3;
+
+    private int[] actionCounts = new int[256];
+    private int states;
+    private byte[] slots = new byte[2048];
+    private int[] outcomeCounts = new int[2048];
+    private int actions;
+    private int[] kinds = new int[8192];
+    private long[] keys = new long[8192];
+    private double[] probabilities = new double[8192];
+    private int outcomes;
+    private long outOfRange;
+
+    void clear() {
+        states = 0;
+        actions = 0;
+        outcomes = 0;
+        outOfRange = 0;
+    }
+
+    void beginState() {
+        if (states == actionCounts.length) {
+            actionCounts = Arrays.copyOf(actionCounts, states * 2);
+        }
+        actionCounts[states++] = 0;
+    }
+
+    void beginAction(int slot) {
+        if (actions == slots.length) {
+            slots = Arrays.copyOf(slots, actions * 2);
+            outcomeCounts = Arrays.copyOf(outcomeCounts, actions * 2);
+        }
+        actionCounts[states - 1]++;
+        slots[actions] = (byte) slot;
+        outcomeCounts[actions++] = 0;
+    }
+
+    // ==============================================
+    // Adds an outcome of the current action, merged with an equal one
+    // ==============================================
+    void addOutcome(int kind, long key, double probability) {
+        int first = outcomes - outcomeCounts[actions - 1];
+        for (int i = first; i < outcomes; i++) {
+            if (kinds[i] == kind && keys[i] == key) {
+                probabilities[i] += probability;
+                return;
+            }
+        }
+        if (outcomes == kinds.length) {
+            kinds = Arrays.copyOf(kinds, outcomes * 2);
+            keys = Arrays.copyOf(keys, outcomes * 2);
+            probabilities = Arrays.copyOf(probabilities, outcomes * 2);
+        }
+        kinds[outcomes] = kind;
+        keys[outcomes] = key;
+        probabilities[outcomes] = probability;
+        outcomes++;
+        outcomeCounts[actions - 1]++;
+    }
+
+    void addOutOfRange() {
+        outOfRange++;
+    }
+
+    // ==============================================
+    // Getters
+    // ==============================================
+    int stateCount() { return states; }
+    int getActionCount(int state) { return actionCounts[state]; }
+    int getSlot(int action) { return slots[action]; }
+    int getOutcomeCount(int action) { return outcomeCounts[action]; }
+    int getKind(int outcome) { return kinds[outcome]; }
+    long getKey(int outcome) { return keys[outcome]; }
+    double getProbability(int outcome) { return probabilities[outcome]; }
+    long getOutOfRange() { return outOfRange; }
+}
@@ -0,0 +1,77 @@
+package tfmc.justin.solver;
+
+import java.util.Arrays;
+
+// ==============================================
+// State keys to their index in a layer, open addressing over two arrays
+// Keys are never negative, so -1 marks an empty slot. A HashMap would box
+// every key, and a layer can hold millions
+// ==============================================
+final class KeyIndex {
+
+    private static final long EMPTY = -1L;
+
+    private long[] keys;
+    private int[] indexes;
+    private int size;
+    private int mask;
+
+    KeyIndex() {
+        keys = new long[1 << 12];
+        indexes = new int[1 << 12];
+        mask = keys.length - 1;
+        Arrays.fill(keys, EMPTY);
+    }
+
+    // ==============================================
+    // The index of a key, or -1 if it was never added
+    // ==============================================
+    int get(long key) {
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return indexes[i];
+            }
+            if (keys[i] == EMPTY) {
+                return -1;
+            }
+        }
+    }
+
+    // ==============================================
+    // Adds a key that is not in the index yet
+    // ==============================================
+    void put(long key, int index) {
+        if (size * 2 >= keys.length) {
+            grow();
+        }
+        int i = slot(key);
+        while (keys[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        indexes[i] = index;
+        size++;
+    }
+
+    int size() { return size; }
+
+    private int slot(long key) {
+        long hash = key * 0x9e3779b97f4a7c15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldIndexes = indexes;
+        keys = new long[oldKeys.length * 2];
+        indexes = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldIndexes[i]);
+            }
+        }
+    }
+}
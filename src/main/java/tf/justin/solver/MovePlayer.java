@@ -0,0 +1,118 @@
+package tfmc.justin.solver;
+
+import tfmc.justin.rules.BuiltInTool;
+import tfmc.justin.rules.DiagnosisIndex;
+import tfmc.justin.rules.DiagnosisProfile;
+import tfmc.justin.rules.MoveResult;
+import tfmc.justin.rules.StateKey;
+import tfmc.justin.rules.SurgeryRules;
+import tfmc.justin.rules.SurgeryState;
+import tfmc.justin.rules.SurgeryTuning;
+
+import java.util.Map;
+
+// ==============================================
+// Plays every tool in a state's menu through every outcome of its dice
+// Each worker thread has its own player, since the state and dice are reused
+// ==============================================
+final class MovePlayer {
+
+    // Every built-in tool, in slot order so ties in the policy go to the lower slot
+    private static final BuiltInTool[] TOOLS = BuiltInTool.values();
+
+    private final StateKey stateKey;
+    private final Map<DiagnosisProfile, Integer> groups;
+    private final BranchingDice dice = new BranchingDice();
+    private final SolverState state;
+    private final MoveResult result = new MoveResult();
+
+    MovePlayer(SurgeryTuning tuning, DiagnosisIndex diagnoses, StateKey stateKey, Map<DiagnosisProfile, Integer> groups) {
+        this.stateKey = stateKey;
+        this.groups = groups;
+        this.state = new SolverState(tuning, diagnoses, dice);
+    }
+
+    // ==============================================
+    // The patients SurgeryRules.setUp can produce, as keys with their chances
+    // ==============================================
+    Distribution startingStates() {
+        Distribution starts = new Distribution();
+        dice.reset();
+        do {
+            dice.begin();
+            SurgeryRules.setUp(state, BuiltInTool.startingTools());
+            state.setDiagnosis(null);
+            starts.add(stateKey.pack(state), dice.getProbability());
+        } while (dice.next());
+        return starts;
+    }
+
+    // ==============================================
+    // Adds the moves out of one state to the expansion
+    // ==============================================
+    void expand(DiagnosisProfile diagnosis, long key, Expansion out) {
+        out.beginState();
+        stateKey.unpack(key, state);
+        long tools = state.getToolsInMenu();
+        for (BuiltInTool tool : TOOLS) {
+            if ((tools & (1L << tool.getSlot())) == 0) {
+                continue;
+            }
+            out.beginAction(tool.getSlot());
+            dice.reset();
+            do {
+                stateKey.unpack(key, state);
+                state.setDiagnosis(diagnosis);
+                dice.begin();
+                result.clear();
+                SurgeryRules.play(state, tool.getSlot(), tool, result);
+                addOutcome(diagnosis, state, dice.getProbability(), out);
+            } while (dice.next());
+        }
+    }
+
+    // ==============================================
+    // The states the ultrasound leads to when it finds a diagnosis of the
+    // given group, used as the first move on a patient from startingStates
+    // ==============================================
+    Distribution diagnosedStates(Distribution starts, int group) {
+        Distribution diagnosed = new Distribution();
+        for (int i = 0; i < starts.size(); i++) {
+            dice.reset();
+            do {
+                stateKey.unpack(starts.getKey(i), state);
+                dice.begin();
+                result.clear();
+                SurgeryRules.play(state, BuiltInTool.ULTRASOUND.getSlot(), BuiltInTool.ULTRASOUND, result);
+                if (!state.isOver() && state.hasDiagnosis() && groups.get(state.getDiagnosis()) == group) {
+                    long key = stateKey.pack(state);
+                    if (key != StateKey.OUT_OF_RANGE) {
+                        diagnosed.add(key, starts.getProbability(i) * dice.getProbability());
+                    }
+                }
+            } while (dice.next());
+        }
+        return diagnosed;
+    }
+
+    private void addOutcome(DiagnosisProfile diagnosis, SurgeryState played, double probability, Expansion out) {
+        if (played.isOver()) {
+            boolean success = SurgeryRules.SUCCESS_KEY.equals(played.getResultKey());
+            out.addOutcome(success ? Expansion.SUCCESS : Expansion.FAILURE, 0, probability);
+            return;
+        }
+
+        long key = stateKey.pack(played);
+        if (key == StateKey.OUT_OF_RANGE) {
+            out.addOutOfRange();
+            out.addOutcome(Expansion.FAILURE, 0, probability);
+            return;
+        }
+
+        if (diagnosis == null && played.hasDiagnosis()) {
+            out.addOutcome(groups.get(played.getDiagnosis()), key, probability);
+        } else {
+            out.addOutcome(Expansion.SAME_LAYER, key, probability);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package tfmc.justin.solver;
+
+import tfmc.justin.rules.DiagnosisProfile;
+
+import java.io.PrintStream;
+import java.util.List;
+
+// ==============================================
+// What the solver found, one line per diagnosis in config order
+// ==============================================
+public final class SolverReport {
+
+    // Diagnoses below or above these chances are flagged
+    private static final double UNWINNABLE_BELOW = 0.01;
+    private static final double TRIVIAL_ABOVE = 0.99;
+
+    private final List<DiagnosisProfile> assignable;
+    private final List<DiagnosisGroup> groups;
+
+    // Only known when the whole game was solved
+    private boolean undiagnosedSolved;
+    private int undiagnosedStates;
+    private int undiagnosedSweeps;
+    private boolean undiagnosedConverged;
+    private long undiagnosedOutOfRange;
+    private double overallChance;
+
+    SolverReport(List<DiagnosisProfile> assignable, List<DiagnosisGroup> groups) {
+        this.assignable = assignable;
+        this.groups = groups;
+    }
+
+    void setUndiagnosed(StateGraph graph, int sweeps, boolean converged, double overallChance) {
+        this.undiagnosedSolved = true;
+        this.undiagnosedStates = graph.stateCount();
+        this.undiagnosedSweeps = sweeps;
+        this.undiagnosedConverged = converged;
+        this.undiagnosedOutOfRange = graph.getOutOfRangeOutcomes();
+        this.overallChance = overallChance;
+    }
+
+    // ==============================================
+    // Prints the table, then the chance for a patient not yet diagnosed
+    // ==============================================
+    public void print(PrintStream out) {
+        String format = "%-24s %7s %12s %12s  %s%n";
+        out.printf(format, "Diagnosis", "Share", "Best chance", "States", "Note");
+
+        long outOfRange = undiagnosedOutOfRange;
+        for (DiagnosisGroup group : groups) {
+            if (!group.isSolved()) {
+                continue;
+            }
+            outOfRange += group.getOutOfRange();
+            List<String> names = group.getNames();
+            for (String name : names) {
+                out.printf(format, name, String.format("%.1f%%", share(name) * 100),
+                    String.format("%.2f%%", group.getFirstMoveChance() * 100),
+                    String.format("%,d", group.getStates()), note(group, name));
+            }
+        }
+
+        out.println();
+        out.println("Chances are for a patient whose diagnosis the ultrasound finds on the first move,");
+        out.println("when every move after it is the best one.");
+        if (undiagnosedSolved) {
+            out.printf("From the first move, before the diagnosis is known: %.2f%% (%,d undiagnosed states%s)%n",
+                overallChance * 100, undiagnosedStates,
+                undiagnosedConverged ? "" : ", not converged after " + undiagnosedSweeps + " sweeps");
+        }
+        if (outOfRange > 0) {
+            out.printf("%,d outcomes went past 31 incisions or 7 bones and were counted as failures.%n", outOfRange);
+        }
+    }
+
+    private double share(String name) {
+        int picks = 0;
+        for (DiagnosisProfile diagnosis : assignable) {
+            if (diagnosis.getName().equals(name)) {
+                picks++;
+            }
+        }
+        return (double) picks / assignable.size();
+    }
+
+    private static String note(DiagnosisGroup group, String name) {
+        StringBuilder note = new StringBuilder();
+        if (group.getFirstMoveChance() < UNWINNABLE_BELOW) {
+            note.append("unwinnable");
+        } else if (group.getFirstMoveChance() > TRIVIAL_ABOVE) {
+            note.append("trivial");
+        }
+        String first = group.getNames().get(0);
+        if (!first.equals(name)) {
+            note.append(note.length() > 0 ? ", " : "").append("plays like ").append(first);
+        }
+        if (!group.hasConverged()) {
+            note.append(note.length() > 0 ? ", " : "").append("not converged after ").append(group.getSweeps()).append(" sweeps");
+        }
+        return note.toString();
+    }
+}
@@ -0,0 +1,31 @@
+package tfmc.justin.solver;
+
+import tfmc.justin.rules.DiagnosisIndex;
+import tfmc.justin.rules.SurgeryDice;
+import tfmc.justin.rules.SurgeryMoveLog;
+import tfmc.justin.rules.SurgeryState;
+import tfmc.justin.rules.SurgeryTuning;
+
+// ==============================================
+// A surgery state the solver restores from a key before every outcome path
+// Rolls the branching dice and keeps no move log, since the same state is
+// played over and over
+// ==============================================
+final class SolverState extends SurgeryState {
+
+    private final BranchingDice dice;
+
+    SolverState(SurgeryTuning tuning, DiagnosisIndex diagnoses, BranchingDice dice) {
+        super(tuning, diagnoses, 0L, new SurgeryMoveLog());
+        this.dice = dice;
+    }
+
+    @Override
+    public void beginMove(int slot) {
+    }
+
+    @Override
+    public SurgeryDice getDice() {
+        return dice;
+    }
+}
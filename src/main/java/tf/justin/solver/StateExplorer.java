@@ -0,0 +1,214 @@
+package tfmc.justin.solver;
+
+import tfmc.justin.rules.DiagnosisIndex;
+import tfmc.justin.rules.DiagnosisProfile;
+import tfmc.justin.rules.StateKey;
+import tfmc.justin.rules.SurgeryTuning;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+// ==============================================
+// Finds every state of a layer reachable from its entry states, with the
+// moves between them. States are numbered in the order they are found
+// and played in batches: the batch is played on the pool, then its
+// outcomes are numbered on the calling thread in state order, so the
+// graph is the same for any number of threads
+// ==============================================
+final class StateExplorer {
+
+    // States played per pool task, and tasks per batch
+    static final int CHUNK_SIZE = 256;
+    private static final int CHUNKS_PER_BATCH = 64;
+
+    private final ForkJoinPool pool;
+    private final int maxStates;
+    private final ThreadLocal<MovePlayer> players;
+    private final Expansion[] expansions = new Expansion[CHUNKS_PER_BATCH];
+
+    // The layer being explored
+    private KeyIndex index;
+    private long[] keys;
+    private int stateCount;
+    private int[] actionStart;
+    private byte[] actionSlots;
+    private int actionCount;
+    private int[] transitionStart;
+    private int[] targets;
+    private float[] probabilities;
+    private int transitionCount;
+    private KeyIndex[] exitIndexes;
+    private int[] exitGroups;
+    private long[] exitKeys;
+    private int exitCount;
+    private long outOfRange;
+
+    StateExplorer(SurgeryTuning tuning, DiagnosisIndex diagnoses, StateKey stateKey,
+                  Map<DiagnosisProfile, Integer> groups, ForkJoinPool pool, int maxStates) {
+        this.pool = pool;
+        this.maxStates = maxStates;
+        this.players = ThreadLocal.withInitial(() -> new MovePlayer(tuning, diagnoses, stateKey, groups));
+        for (int i = 0; i < expansions.length; i++) {
+            expansions[i] = new Expansion();
+        }
+    }
+
+    // ==============================================
+    // Explores the layer of one diagnosis group, or of undiagnosed patients
+    // if diagnosis is null. Entry keys must be distinct; entry i becomes
+    // state i. Fails once the layer grows past the state limit
+    // ==============================================
+    StateGraph explore(DiagnosisProfile diagnosis, long[] entryKeys, int groupCount) {
+        index = new KeyIndex();
+        keys = new long[Math.max(1 << 12, entryKeys.length)];
+        stateCount = 0;
+        actionStart = new int[keys.length];
+        actionSlots = new byte[1 << 14];
+        actionCount = 0;
+        transitionStart = new int[1 << 14];
+        targets = new int[1 << 16];
+        probabilities = new float[1 << 16];
+        transitionCount = 0;
+        exitIndexes = new KeyIndex[groupCount];
+        exitGroups = new int[64];
+        exitKeys = new long[64];
+        exitCount = 0;
+        outOfRange = 0;
+
+        for (long key : entryKeys) {
+            addState(key);
+        }
+
+        // Merging a batch finds the states of the batches after it
+        for (int from = 0; from < stateCount; ) {
+            int to = Math.min(from + CHUNK_SIZE * CHUNKS_PER_BATCH, stateCount);
+            int chunks = (to - from + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            pool.invoke(new ExpandTask(this, diagnosis, keys, from, to, 0, chunks));
+            for (int chunk = 0; chunk < chunks; chunk++) {
+                merge(expansions[chunk], from + chunk * CHUNK_SIZE);
+            }
+            from = to;
+        }
+
+        actionStart = Arrays.copyOf(actionStart, stateCount + 1);
+        actionStart[stateCount] = actionCount;
+        transitionStart = Arrays.copyOf(transitionStart, actionCount + 1);
+        transitionStart[actionCount] = transitionCount;
+
+        StateGraph graph = new StateGraph(diagnosis, Arrays.copyOf(keys, stateCount), actionStart,
+            Arrays.copyOf(actionSlots, actionCount), transitionStart, Arrays.copyOf(targets, transitionCount),
+            Arrays.copyOf(probabilities, transitionCount), Arrays.copyOf(exitGroups, exitCount),
+            Arrays.copyOf(exitKeys, exitCount), outOfRange);
+
+        // Let the working arrays go before the next layer
+        index = null;
+        keys = null;
+        actionStart = null;
+        actionSlots = null;
+        transitionStart = null;
+        targets = null;
+        probabilities = null;
+        exitIndexes = null;
+        exitGroups = null;
+        exitKeys = null;
+        return graph;
+    }
+
+    // ==============================================
+    // Numbers the outcomes of a played chunk, adding states found for the first time
+    // ==============================================
+    private void merge(Expansion expansion, int firstState) {
+        int action = 0;
+        int outcome = 0;
+        for (int i = 0; i < expansion.stateCount(); i++) {
+            actionStart[firstState + i] = actionCount;
+            for (int a = expansion.getActionCount(i); a > 0; a--, action++) {
+                addAction(expansion.getSlot(action));
+
+                // Chances are stored as floats; scaled so each move's still add up to 1
+                int count = expansion.getOutcomeCount(action);
+                double total = 0;
+                for (int o = outcome; o < outcome + count; o++) {
+                    total += expansion.getProbability(o);
+                }
+                for (; count > 0; count--, outcome++) {
+                    addTransition(target(expansion.getKind(outcome), expansion.getKey(outcome)),
+                        (float) (expansion.getProbability(outcome) / total));
+                }
+            }
+        }
+        outOfRange += expansion.getOutOfRange();
+    }
+
+    private int target(int kind, long key) {
+        switch (kind) {
+            case Expansion.SUCCESS:
+                return StateGraph.SUCCESS;
+            case Expansion.FAILURE:
+                return StateGraph.FAILURE;
+            case Expansion.SAME_LAYER:
+                int state = index.get(key);
+                return state >= 0 ? state : addState(key);
+            default:
+                return StateGraph.EXIT - exit(kind, key);
+        }
+    }
+
+    private int exit(int group, long key) {
+        if (exitIndexes[group] == null) {
+            exitIndexes[group] = new KeyIndex();
+        }
+        int exit = exitIndexes[group].get(key);
+        if (exit >= 0) {
+            return exit;
+        }
+        if (exitCount == exitKeys.length) {
+            exitGroups = Arrays.copyOf(exitGroups, exitCount * 2);
+            exitKeys = Arrays.copyOf(exitKeys, exitCount * 2);
+        }
+        exitIndexes[group].put(key, exitCount);
+        exitGroups[exitCount] = group;
+        exitKeys[exitCount] = key;
+        return exitCount++;
+    }
+
+    private int addState(long key) {
+        if (stateCount == maxStates) {
+            throw new IllegalStateException("More than " + maxStates + " states; raise --max-states and the heap size");
+        }
+        if (stateCount == keys.length) {
+            keys = Arrays.copyOf(keys, stateCount * 2);
+            actionStart = Arrays.copyOf(actionStart, stateCount * 2);
+        }
+        index.put(key, stateCount);
+        keys[stateCount] = key;
+        return stateCount++;
+    }
+
+    private void addAction(int slot) {
+        if (actionCount == actionSlots.length) {
+            actionSlots = Arrays.copyOf(actionSlots, actionCount * 2);
+            transitionStart = Arrays.copyOf(transitionStart, actionCount * 2);
+        }
+        actionSlots[actionCount] = (byte) slot;
+        transitionStart[actionCount] = transitionCount;
+        actionCount++;
+    }
+
+    private void addTransition(int target, float probability) {
+        if (transitionCount == targets.length) {
+            targets = Arrays.copyOf(targets, transitionCount * 2);
+            probabilities = Arrays.copyOf(probabilities, transitionCount * 2);
+        }
+        targets[transitionCount] = target;
+        probabilities[transitionCount] = probability;
+        transitionCount++;
+    }
+
+    // ==============================================
+    // Getters for the pool tasks
+    // ==============================================
+    MovePlayer getPlayer() { return players.get(); }
+    Expansion getExpansion(int chunk) { return expansions[chunk]; }
+}
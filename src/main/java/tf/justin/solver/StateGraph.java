@@ -0,0 +1,70 @@
+package tfmc.justin.solver;
+
+import tfmc.justin.rules.DiagnosisProfile;
+
+// ==============================================
+// Every running state of one layer and the moves between them: all
+// states with one diagnosis, or all states before the ultrasound found one
+// Stored as flat arrays (state -> actions -> transitions) so a sweep of
+// the value iteration walks memory in order
+//
+// A transition leads to a state of the same layer (index >= 0), to the end
+// of the surgery (SUCCESS or FAILURE), or out of the layer to a state of
+// a diagnosis group (EXIT - exit index), which is solved beforehand
+// ==============================================
+final class StateGraph {
+
+    static final int SUCCESS = -1;
+    static final int FAILURE = -2;
+    static final int EXIT = -3;
+
+    // The group's diagnosis, or null before the ultrasound
+    private final DiagnosisProfile diagnosis;
+    private final long[] keys;
+    private final int[] actionStart;
+    private final byte[] actionSlots;
+    private final int[] transitionStart;
+    private final int[] targets;
+    private final float[] probabilities;
+
+    // Diagnosis group and key of every exit, for the layer before the diagnosis
+    private final int[] exitGroups;
+    private final long[] exitKeys;
+
+    // Outcomes that reached a state the key can't hold, counted as failures
+    private final long outOfRangeOutcomes;
+
+    StateGraph(DiagnosisProfile diagnosis, long[] keys, int[] actionStart, byte[] actionSlots, int[] transitionStart,
+               int[] targets, float[] probabilities, int[] exitGroups, long[] exitKeys, long outOfRangeOutcomes) {
+        this.diagnosis = diagnosis;
+        this.keys = keys;
+        this.actionStart = actionStart;
+        this.actionSlots = actionSlots;
+        this.transitionStart = transitionStart;
+        this.targets = targets;
+        this.probabilities = probabilities;
+        this.exitGroups = exitGroups;
+        this.exitKeys = exitKeys;
+        this.outOfRangeOutcomes = outOfRangeOutcomes;
+    }
+
+    // ==============================================
+    // Getters
+    // ==============================================
+    DiagnosisProfile getDiagnosis() { return diagnosis; }
+    int stateCount() { return keys.length; }
+    int actionCount() { return actionSlots.length; }
+    int transitionCount() { return targets.length; }
+    int exitCount() { return exitKeys.length; }
+    long getKey(int state) { return keys[state]; }
+    int firstAction(int state) { return actionStart[state]; }
+    int endAction(int state) { return actionStart[state + 1]; }
+    int getSlot(int action) { return actionSlots[action]; }
+    int firstTransition(int action) { return transitionStart[action]; }
+    int endTransition(int action) { return transitionStart[action + 1]; }
+    int getTarget(int transition) { return targets[transition]; }
+    float getProbability(int transition) { return probabilities[transition]; }
+    int getExitGroup(int exit) { return exitGroups[exit]; }
+    long getExitKey(int exit) { return exitKeys[exit]; }
+    long getOutOfRangeOutcomes() { return outOfRangeOutcomes; }
+}
@@ -0,0 +1,333 @@
+package tfmc.justin.solver;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+import tfmc.justin.rules.DiagnosisIndex;
+import tfmc.justin.rules.DiagnosisProfile;
+import tfmc.justin.rules.PolicyTable;
+import tfmc.justin.rules.StateKey;
+import tfmc.justin.rules.SurgeryTuning;
+import tfmc.justin.sim.SurgerySimulator;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+// ==============================================
+// Works out the best tool for every reachable surgery state of a config
+// and the chance of success that gives, by value iteration over every
+// outcome of the dice. Needs no server:
+//
+//   java -Xmx8g -cp surgery-1.0.0.jar:<paper-api and its libraries> tfmc.justin.solver.SurgerySolver
+//        [--config config.yml] [--diagnosis name] [--policy policy.bin] [--threads n]
+//        [--tolerance 1e-9] [--max-sweeps 100000] [--max-states 200000000]
+//
+// The game is solved in layers: one per group of diagnoses the rules treat
+// the same, then the moves before the ultrasound, whose ends are the
+// starts of the diagnosis layers. With --diagnosis only that diagnosis is
+// solved, from the first move, which is much quicker after a balance change
+// ==============================================
+public final class SurgerySolver {
+
+    private final DiagnosisIndex diagnoses;
+    private final ForkJoinPool pool;
+    private final double tolerance;
+    private final int maxSweeps;
+    private final StateExplorer explorer;
+    private final MovePlayer player;
+
+    private final List<DiagnosisGroup> groups = new ArrayList<>();
+    private final Map<DiagnosisProfile, Integer> groupIndexes = new IdentityHashMap<>();
+
+    public SurgerySolver(SurgeryTuning tuning, DiagnosisIndex diagnoses, ForkJoinPool pool,
+                         double tolerance, int maxSweeps, int maxStates) {
+        this.diagnoses = diagnoses;
+        this.pool = pool;
+        this.tolerance = tolerance;
+        this.maxSweeps = maxSweeps;
+
+        for (DiagnosisProfile diagnosis : diagnoses.getAssignable()) {
+            int group = groupOf(diagnosis);
+            if (group < 0) {
+                group = groups.size();
+                groups.add(new DiagnosisGroup(diagnosis));
+            }
+            groups.get(group).addPick(diagnosis.getName());
+            groupIndexes.put(diagnosis, group);
+        }
+
+        StateKey stateKey = new StateKey(tuning);
+        this.explorer = new StateExplorer(tuning, diagnoses, stateKey, groupIndexes, pool, maxStates);
+        this.player = new MovePlayer(tuning, diagnoses, stateKey, groupIndexes);
+    }
+
+    // ==============================================
+    // Solves the whole game, or one diagnosis if a name is given, adding
+    // the best tools to the table if there is one
+    // ==============================================
+    public SolverReport solve(String diagnosisName, PolicyTable table) {
+        SolverReport report = new SolverReport(diagnoses.getAssignable(), groups);
+        Distribution starts = player.startingStates();
+
+        if (diagnosisName != null) {
+            int group = groupIndexes.get(diagnoses.get(diagnosisName));
+            Distribution firstMove = player.diagnosedStates(starts, group);
+            solveGroup(group, firstMove.keys(), firstMove, table);
+            return report;
+        }
+
+        StateGraph undiagnosed = explorer.explore(null, starts.keys(), groups.size());
+        log("Explored %,d states before the diagnosis", undiagnosed.stateCount());
+
+        // Each group starts from the states the ultrasound can lead to
+        double[] exitValues = new double[undiagnosed.exitCount()];
+        double[] exitChances = new double[undiagnosed.exitCount()];
+        for (int group = 0; group < groups.size(); group++) {
+            int[] exits = exitsOf(undiagnosed, group);
+            long[] entries = new long[exits.length];
+            for (int i = 0; i < exits.length; i++) {
+                entries[i] = undiagnosed.getExitKey(exits[i]);
+            }
+
+            double[][] solved = solveGroup(group, entries, player.diagnosedStates(starts, group), table);
+            for (int i = 0; i < exits.length; i++) {
+                exitValues[exits[i]] = solved[0][i];
+                exitChances[exits[i]] = solved[1][i];
+            }
+        }
+
+        ValueIteration iteration = new ValueIteration(undiagnosed, pool, tolerance, maxSweeps);
+        iteration.solve(exitValues);
+        int[] policy = iteration.getPolicy();
+        int sweeps = iteration.getSweeps();
+        boolean converged = iteration.hasConverged();
+        double[] chances = iteration.evaluate(policy, exitChances);
+
+        // Starting patients are the first states of the layer
+        double overall = 0;
+        for (int i = 0; i < starts.size(); i++) {
+            overall += starts.getProbability(i) * chances[i];
+        }
+        report.setUndiagnosed(undiagnosed, sweeps, converged && iteration.hasConverged(), overall);
+        if (table != null) {
+            addLayer(table, List.of(), undiagnosed, policy, chances, starts.size());
+        }
+        return report;
+    }
+
+    // ==============================================
+    // Explores and solves one group from its entry states. Returns the
+    // discounted values and the chances of success of the entry states
+    // ==============================================
+    private double[][] solveGroup(int group, long[] entries, Distribution firstMove, PolicyTable table) {
+        DiagnosisGroup diagnosisGroup = groups.get(group);
+        long started = System.nanoTime();
+        StateGraph graph = explorer.explore(diagnosisGroup.getDiagnosis(), entries, groups.size());
+
+        ValueIteration iteration = new ValueIteration(graph, pool, tolerance, maxSweeps);
+        double[] values = iteration.solve(null);
+        int[] policy = iteration.getPolicy();
+        int sweeps = iteration.getSweeps();
+        boolean converged = iteration.hasConverged();
+        double[] chances = iteration.evaluate(policy, null);
+
+        // The entries come first, so the first-move states are found among them
+        KeyIndex entryIndexes = new KeyIndex();
+        for (int i = 0; i < entries.length; i++) {
+            entryIndexes.put(entries[i], i);
+        }
+        double chance = 0;
+        double total = 0;
+        for (int i = 0; i < firstMove.size(); i++) {
+            int entry = entryIndexes.get(firstMove.getKey(i));
+            if (entry >= 0) {
+                chance += firstMove.getProbability(i) * chances[entry];
+                total += firstMove.getProbability(i);
+            }
+        }
+        diagnosisGroup.setResult(graph, sweeps, converged && iteration.hasConverged(), total > 0 ? chance / total : 0);
+        log("Solved %s: %,d states, %,d moves, %d sweeps in %.1fs", String.join(", ", diagnosisGroup.getNames()),
+            graph.stateCount(), graph.transitionCount(), sweeps, (System.nanoTime() - started) / 1e9);
+
+        if (table != null) {
+            addLayer(table, diagnosisGroup.getNames(), graph, policy, chances, entries.length);
+        }
+        return new double[][] {
+            Arrays.copyOf(values, entries.length), Arrays.copyOf(chances, entries.length)
+        };
+    }
+
+    // ==============================================
+    // Adds the states reachable from the entries when following the policy
+    // ==============================================
+    private static void addLayer(PolicyTable table, List<String> names, StateGraph graph, int[] policy,
+                                 double[] chances, int entryCount) {
+        boolean[] reached = new boolean[graph.stateCount()];
+        int[] queue = new int[graph.stateCount()];
+        int queued = 0;
+        for (int state = 0; state < entryCount; state++) {
+            reached[state] = true;
+            queue[queued++] = state;
+        }
+        for (int next = 0; next < queued; next++) {
+            int action = policy[queue[next]];
+            for (int t = graph.firstTransition(action); t < graph.endTransition(action); t++) {
+                int target = graph.getTarget(t);
+                if (target >= 0 && !reached[target]) {
+                    reached[target] = true;
+                    queue[queued++] = target;
+                }
+            }
+        }
+
+        long[] keys = new long[queued];
+        KeyIndex states = new KeyIndex();
+        for (int i = 0; i < queued; i++) {
+            keys[i] = graph.getKey(queue[i]);
+            states.put(keys[i], queue[i]);
+        }
+        Arrays.sort(keys);
+        byte[] slots = new byte[queued];
+        float[] stateChances = new float[queued];
+        for (int i = 0; i < queued; i++) {
+            int state = states.get(keys[i]);
+            slots[i] = (byte) graph.getSlot(policy[state]);
+            stateChances[i] = (float) chances[state];
+        }
+        table.addLayer(names, keys, slots, stateChances);
+    }
+
+    private static int[] exitsOf(StateGraph graph, int group) {
+        int count = 0;
+        for (int exit = 0; exit < graph.exitCount(); exit++) {
+            if (graph.getExitGroup(exit) == group) {
+                count++;
+            }
+        }
+        int[] exits = new int[count];
+        count = 0;
+        for (int exit = 0; exit < graph.exitCount(); exit++) {
+            if (graph.getExitGroup(exit) == group) {
+                exits[count++] = exit;
+            }
+        }
+        return exits;
+    }
+
+    private int groupOf(DiagnosisProfile diagnosis) {
+        for (int group = 0; group < groups.size(); group++) {
+            if (groups.get(group).getDiagnosis().playsLike(diagnosis)) {
+                return group;
+            }
+        }
+        return -1;
+    }
+
+    private static void log(String format, Object... args) {
+        System.out.printf(format + "%n", args);
+    }
+
+    // ==============================================
+    // Command line entry point
+    // ==============================================
+    public static void main(String[] args) throws IOException {
+        File configFile = null;
+        String diagnosisName = null;
+        File policyFile = null;
+        int threads = Runtime.getRuntime().availableProcessors();
+        double tolerance = 1e-9;
+        int maxSweeps = 100_000;
+        int maxStates = 200_000_000;
+
+        try {
+            for (int i = 0; i < args.length; i++) {
+                String option = args[i];
+                if (i + 1 >= args.length) {
+                    usage("Missing value for " + option);
+                    return;
+                }
+                String value = args[++i];
+                switch (option) {
+                    case "--config":
+                        configFile = new File(value);
+                        break;
+                    case "--diagnosis":
+                        diagnosisName = value;
+                        break;
+                    case "--policy":
+                        policyFile = new File(value);
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(value);
+                        break;
+                    case "--tolerance":
+                        tolerance = Double.parseDouble(value);
+                        break;
+                    case "--max-sweeps":
+                        maxSweeps = Integer.parseInt(value);
+                        break;
+                    case "--max-states":
+                        maxStates = Integer.parseInt(value);
+                        break;
+                    default:
+                        usage("Unknown option " + option);
+                        return;
+                }
+            }
+        } catch (NumberFormatException e) {
+            usage("Not a number: " + e.getMessage());
+            return;
+        }
+        if (threads <= 0 || maxSweeps <= 0 || maxStates <= 0 || !(tolerance > 0)) {
+            usage("--threads, --tolerance, --max-sweeps and --max-states must be positive");
+            return;
+        }
+        if (configFile != null && !configFile.isFile()) {
+            usage("No config file at " + configFile);
+            return;
+        }
+
+        YamlConfiguration config = SurgerySimulator.loadConfig(configFile);
+        SurgeryTuning tuning = SurgeryTuning.fromConfig(config);
+        DiagnosisIndex diagnoses = DiagnosisIndex.fromConfig(config);
+        if (!diagnoses.canDiagnose()) {
+            usage("The config has no diagnoses to solve");
+            return;
+        }
+        if (diagnosisName != null && !diagnoses.getAssignable().contains(diagnoses.get(diagnosisName))) {
+            usage("The ultrasound can't find " + diagnosisName);
+            return;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            SurgerySolver solver = new SurgerySolver(tuning, diagnoses, pool, tolerance, maxSweeps, maxStates);
+            PolicyTable table = policyFile != null ? new PolicyTable(tuning, diagnoses) : null;
+            long started = System.nanoTime();
+            SolverReport report = solver.solve(diagnosisName, table);
+            System.out.printf("%nSolved on %d threads in %.1fs%n%n", threads, (System.nanoTime() - started) / 1e9);
+            report.print(System.out);
+
+            if (table != null) {
+                table.write(policyFile);
+                System.out.printf("%nWrote the best tools for %,d states to %s%n", table.size(), policyFile);
+            }
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static void usage(String problem) {
+        System.err.println(problem);
+        System.err.println("Usage: SurgerySolver [--config config.yml] [--diagnosis name] [--policy file] [--threads n]"
+            + " [--tolerance x] [--max-sweeps n] [--max-states n]");
+        System.exit(2);
+    }
+}
@@ -0,0 +1,38 @@
+package tfmc.justin.solver;
+
+import java.util.concurrent.RecursiveTask;
+
+// ==============================================
+// One sweep of the value iteration over a range of states, splitting it
+// in half until the pieces are small enough to sweep on one thread
+// Returns the largest change of any value in the range
+// ==============================================
+final class SweepTask extends RecursiveTask<Double> {
+
+    // States per leaf; a sweep of a few thousand states is worth a fork
+    private static final int LEAF_SIZE = 4096;
+
+    private final ValueIteration iteration;
+    private final int from;
+    private final int to;
+
+    SweepTask(ValueIteration iteration, int from, int to) {
+        this.iteration = iteration;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected Double compute() {
+        if (to - from <= LEAF_SIZE) {
+            return iteration.sweep(from, to);
+        }
+
+        int middle = (from + to) >>> 1;
+        SweepTask left = new SweepTask(iteration, from, middle);
+        SweepTask right = new SweepTask(iteration, middle, to);
+        left.fork();
+        double rightChange = right.compute();
+        return Math.max(left.join(), rightChange);
+    }
+}
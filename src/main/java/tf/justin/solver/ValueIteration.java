@@ -0,0 +1,134 @@
+package tfmc.justin.solver;
+
+import java.util.concurrent.ForkJoinPool;
+
+// ==============================================
+// The chance of a successful surgery from every state of a layer
+// Values start at 0 and each sweep recomputes every state from the values
+// of the sweep before, so the states can be swept in parallel and the
+// result doesn't depend on the number of threads. Stops once no value
+// changes by more than the tolerance
+//
+// solve() finds the best tool for every state. Each move discounts the
+// chance by a hair, so between tools that are equally good in the long
+// run it picks the one that gets on with the surgery, not one that only
+// stalls. evaluate() then gives the undiscounted chance of that policy
+// ==============================================
+final class ValueIteration {
+
+    private static final double DISCOUNT = 1 - 1e-7;
+
+    private final StateGraph graph;
+    private final ForkJoinPool pool;
+    private final double tolerance;
+    private final int maxSweeps;
+
+    // The sweep being run
+    private double[] exitValues;
+    private double[] values;
+    private double[] next;
+    private int[] policy;
+    private boolean optimize;
+    private int sweeps;
+    private boolean converged;
+
+    ValueIteration(StateGraph graph, ForkJoinPool pool, double tolerance, int maxSweeps) {
+        this.graph = graph;
+        this.pool = pool;
+        this.tolerance = tolerance;
+        this.maxSweeps = maxSweeps;
+    }
+
+    // ==============================================
+    // Finds the best action of every state, given the values of the exits,
+    // and returns the discounted values; the actions are in getPolicy()
+    // ==============================================
+    double[] solve(double[] exitValues) {
+        this.policy = new int[graph.stateCount()];
+        this.optimize = true;
+        return run(exitValues);
+    }
+
+    // ==============================================
+    // The chance of success from every state when following the policy
+    // ==============================================
+    double[] evaluate(int[] policy, double[] exitValues) {
+        this.policy = policy;
+        this.optimize = false;
+        return run(exitValues);
+    }
+
+    private double[] run(double[] exitValues) {
+        this.exitValues = exitValues;
+        values = new double[graph.stateCount()];
+        next = new double[graph.stateCount()];
+        sweeps = 0;
+        double change;
+        do {
+            change = graph.stateCount() > 0 ? pool.invoke(new SweepTask(this, 0, graph.stateCount())) : 0;
+            double[] swept = next;
+            next = values;
+            values = swept;
+            sweeps++;
+        } while (change > tolerance && sweeps < maxSweeps);
+        converged = change <= tolerance;
+
+        double[] result = values;
+        values = null;
+        next = null;
+        this.exitValues = null;
+        return result;
+    }
+
+    // ==============================================
+    // Sweeps a range of states; called from the pool tasks
+    // ==============================================
+    double sweep(int from, int to) {
+        double change = 0;
+        for (int state = from; state < to; state++) {
+            int firstAction = optimize ? graph.firstAction(state) : policy[state];
+            int endAction = optimize ? graph.endAction(state) : policy[state] + 1;
+
+            double best = -1;
+            for (int action = firstAction; action < endAction; action++) {
+                double value = 0;
+                for (int t = graph.firstTransition(action), end = graph.endTransition(action); t < end; t++) {
+                    value += graph.getProbability(t) * valueOf(graph.getTarget(t));
+                }
+                if (optimize) {
+                    value *= DISCOUNT;
+                }
+                if (value > best) {
+                    best = value;
+                    if (optimize) {
+                        policy[state] = action;
+                    }
+                }
+            }
+
+            next[state] = best;
+            change = Math.max(change, Math.abs(best - values[state]));
+        }
+        return change;
+    }
+
+    private double valueOf(int target) {
+        if (target >= 0) {
+            return values[target];
+        }
+        if (target == StateGraph.SUCCESS) {
+            return 1;
+        }
+        if (target == StateGraph.FAILURE) {
+            return 0;
+        }
+        return exitValues[StateGraph.EXIT - target];
+    }
+
+    // The action solve() picked for every state
+    int[] getPolicy() { return policy; }
+
+    // Sweeps the last run took, and whether it got within the tolerance before the limit
+    int getSweeps() { return sweeps; }
+    boolean hasConverged() { return converged; }
+}
@@ -34,6 +34,9 @@ public class surgery extends JavaPlugin {
 
     @Override
     public void onDisable() {
+        if (surgeryMenuManager != null) {
+            surgeryMenuManager.shutdown();
+        }
         getLogger().info("surgery has been disabled!");
     }
     
@@ -41,4 +44,8 @@ public class surgery extends JavaPlugin {
         return instance;
     }
     
+    public SurgeryMenuManager getSurgeryMenuManager() {
+        return surgeryMenuManager;
+    }
+    
 }
\ No newline at end of file
@@ -6,13 +6,19 @@ import net.md_5.bungee.api.ChatColor;
 
 public class Utils {
     
+    private static final Pattern HEX_COLOR = Pattern.compile("#[a-fA-F0-9]{6}");
+    
+    // Replaces every #rrggbb in one pass, then translates & codes
     public static String colorize(String msg) {
-        Matcher match = Pattern.compile("#[a-fA-F0-9]{6}").matcher(msg);
-        while (match.find()) {
-            String color = msg.substring(match.start(), match.end());
-            msg = msg.replace(color, String.valueOf(ChatColor.of(color)));
-            match = Pattern.compile("#[a-fA-F0-9]{6}").matcher(msg);
+        if (msg.indexOf('#') >= 0) {
+            Matcher match = HEX_COLOR.matcher(msg);
+            StringBuilder out = new StringBuilder(msg.length() + 64);
+            while (match.find()) {
+                match.appendReplacement(out, Matcher.quoteReplacement(String.valueOf(ChatColor.of(match.group()))));
+            }
+            match.appendTail(out);
+            msg = out.toString();
         }
         return ChatColor.translateAlternateColorCodes('&', msg);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,78 @@
+package tfmc.justin.managers;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// ==============================================
+// Every duration must land in the bucket whose bounds contain it, and
+// buckets must stay within 25% of the durations they hold
+// ==============================================
+class LatencyHistogramTest {
+
+    @Test
+    void smallDurationsGetABucketEach() {
+        for (int nanos = 0; nanos < 4; nanos++) {
+            assertEquals(nanos, LatencyHistogram.bucket(nanos));
+            assertEquals(nanos, LatencyHistogram.upperBound(nanos));
+        }
+    }
+
+    @Test
+    void eachDurationFallsWithinItsBucketsBounds() {
+        for (int shift = 2; shift < 63; shift++) {
+            long base = 1L << shift;
+            for (long nanos : new long[] { base - 1, base, base + 1, base + base / 4 - 1, base + base / 4, base * 2 - 1 }) {
+                int bucket = LatencyHistogram.bucket(nanos);
+                assertTrue(nanos <= LatencyHistogram.upperBound(bucket), nanos + " above bucket " + bucket);
+                assertTrue(nanos > LatencyHistogram.upperBound(bucket - 1), nanos + " below bucket " + bucket);
+            }
+        }
+    }
+
+    @Test
+    void bucketsAreContiguousAndAtMostAQuarterWide() {
+        for (int bucket = 4; bucket < LatencyHistogram.BUCKETS; bucket++) {
+            long lower = LatencyHistogram.upperBound(bucket - 1) + 1;
+            long upper = LatencyHistogram.upperBound(bucket);
+            assertEquals(bucket, LatencyHistogram.bucket(lower));
+            assertEquals(bucket, LatencyHistogram.bucket(upper));
+            assertTrue(upper - lower < lower / 4 + 1, "bucket " + bucket + " is too wide");
+        }
+    }
+
+    @Test
+    void theLargestDurationFitsTheLastBucket() {
+        int last = LatencyHistogram.bucket(Long.MAX_VALUE);
+        assertEquals(LatencyHistogram.BUCKETS - 1, last);
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBound(last));
+    }
+
+    @Test
+    void aWindowHoldsOnlyWhatWasRecordedSinceItsStart() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1_000_000);
+        LatencyHistogram.Snapshot start = histogram.snapshot();
+        histogram.record(100);
+        histogram.record(200);
+        histogram.record(300);
+
+        LatencyHistogram.Snapshot window = histogram.snapshot().since(start);
+        assertEquals(3, window.getCount());
+        assertEquals(600, window.getSum());
+        assertEquals(0, window.getCount(LatencyHistogram.bucket(1_000_000)));
+        assertTrue(window.getMax() >= 300 && window.getMax() < 1_000_000);
+        assertTrue(window.percentile(0.5) >= 200 && window.percentile(0.5) <= 250);
+    }
+
+    @Test
+    void negativeDurationsCountAsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1, snapshot.getCount(0));
+        assertEquals(0, snapshot.getSum());
+    }
+}
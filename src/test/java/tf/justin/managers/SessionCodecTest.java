@@ -0,0 +1,207 @@
+package tfmc.justin.managers;
+
+import org.junit.jupiter.api.Test;
+import tfmc.justin.rules.BuiltInTool;
+import tfmc.justin.rules.DiagnosisProfile;
+import tfmc.justin.rules.OperationSite;
+import tfmc.justin.rules.PatientStatus;
+import tfmc.justin.rules.Pulse;
+import tfmc.justin.rules.SurgeryMoveLog;
+import tfmc.justin.rules.SurgeryRules;
+import tfmc.justin.rules.TestConfig;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// ==============================================
+// Journal records must come back as the session that was saved, and
+// records written by older versions of the plugin must still load
+// ==============================================
+class SessionCodecTest {
+
+    private static final SurgerySnapshot SNAPSHOT = new SurgerySnapshot(1, TestConfig.CONFIG, TestConfig.TUNING,
+        TestConfig.DIAGNOSES, null, null, null, null);
+    private static final UUID SURGEON = new UUID(1, 2);
+    private static final UUID PATIENT = new UUID(3, 4);
+    private static final DiagnosisProfile DIAGNOSIS = TestConfig.DIAGNOSES.get("Torn Tongue Muscle");
+
+    @Test
+    void aSessionSurvivesTheRoundTrip() throws IOException {
+        SurgerySession session = new SurgerySession(SURGEON, SNAPSHOT, 99, new SurgeryMoveLog());
+        session.setPatientName("Patient");
+        session.setPatientId(PATIENT);
+        session.setRealTime(true);
+        session.setStartedAt(1_000);
+        SurgeryRules.setUp(session, BuiltInTool.startingTools());
+        SurgeryRules.play(session, BuiltInTool.ULTRASOUND.getSlot(), BuiltInTool.ULTRASOUND);
+        SurgeryRules.play(session, BuiltInTool.ANTISEPTIC.getSlot(), BuiltInTool.ANTISEPTIC);
+        session.setSkillFail("skill-fail-text");
+
+        SessionCodec.SuspendedSession restored = SessionCodec.decode(SessionCodec.encode(session, "Surgeon", 5_000), SURGEON, SNAPSHOT);
+        SurgerySession copy = restored.getSession();
+
+        assertEquals("Surgeon", restored.getSurgeonName());
+        assertEquals(5_000, restored.getSavedAt());
+        assertEquals(SURGEON, copy.getSurgeonId());
+        assertEquals(PATIENT, copy.getPatientId());
+        assertEquals("Patient", copy.getPatientName());
+        assertTrue(copy.isRealTime());
+        assertEquals(1_000, copy.getStartedAt());
+        assertEquals(99, copy.getSeed());
+        assertArrayEquals(session.getMoves().toByteArray(), copy.getMoves().toByteArray());
+        assertEquals(session.getDiagnosis(), copy.getDiagnosis());
+        assertEquals(session.getToolsInMenu(), copy.getToolsInMenu());
+        assertEquals(session.getClickedSlots(), copy.getClickedSlots());
+        assertEquals(session.getPulse(), copy.getPulse());
+        assertEquals(session.getStatus(), copy.getStatus());
+        assertEquals(session.getTemperature(), copy.getTemperature());
+        assertEquals(session.getOperationSite(), copy.getOperationSite());
+        assertEquals(session.hasAntisepticProtection(), copy.hasAntisepticProtection());
+        assertEquals(session.getMoveCount(), copy.getMoveCount());
+        assertEquals(session.hasRisingTemp(), copy.hasRisingTemp());
+        assertEquals("skill-fail-text", copy.getSkillFail());
+    }
+
+    @Test
+    void aRestoredSessionPlaysOnLikeTheOriginal() throws IOException {
+        SurgerySession session = new SurgerySession(SURGEON, SNAPSHOT, 12, new SurgeryMoveLog());
+        session.setPatientName("Patient");
+        SurgeryRules.setUp(session, BuiltInTool.startingTools());
+        SurgeryRules.play(session, BuiltInTool.ULTRASOUND.getSlot(), BuiltInTool.ULTRASOUND);
+
+        SurgerySession copy = SessionCodec.decode(SessionCodec.encode(session, "Surgeon", 0), SURGEON, SNAPSHOT).getSession();
+        SurgeryRules.play(session, BuiltInTool.ANESTHETIC.getSlot(), BuiltInTool.ANESTHETIC);
+        SurgeryRules.play(copy, BuiltInTool.ANESTHETIC.getSlot(), BuiltInTool.ANESTHETIC);
+
+        assertEquals(session.getStatus(), copy.getStatus());
+        assertEquals(session.getTemperature(), copy.getTemperature());
+        assertEquals(session.getResultKey(), copy.getResultKey());
+    }
+
+    @Test
+    void aVersionOneRecordStillLoads() throws IOException {
+        SurgerySession session = SessionCodec.decode(record(1), SURGEON, SNAPSHOT).getSession();
+
+        // No start time, seed, moves, patient id or mode
+        assertEquals(5_000, session.getStartedAt());
+        assertEquals(0, session.getMoves().size());
+        assertNull(session.getPatientId());
+        assertFalse(session.isRealTime());
+        assertRecordedState(session);
+    }
+
+    @Test
+    void aVersionThreeRecordKeepsItsSeedAndMoves() throws IOException {
+        SurgerySession session = SessionCodec.decode(record(3), SURGEON, SNAPSHOT).getSession();
+
+        assertEquals(1_000, session.getStartedAt());
+        assertEquals(77, session.getSeed());
+        assertArrayEquals(new byte[] { 34, 32 }, session.getMoves().toByteArray());
+        assertNull(session.getPatientId());
+        assertRecordedState(session);
+    }
+
+    @Test
+    void aVersionFourRecordIsNotRealTime() throws IOException {
+        SurgerySession session = SessionCodec.decode(record(4), SURGEON, SNAPSHOT).getSession();
+
+        assertEquals(PATIENT, session.getPatientId());
+        assertFalse(session.isRealTime());
+        assertRecordedState(session);
+    }
+
+    @Test
+    void anUnknownVersionIsRefused() {
+        byte[] record = record(1);
+        record[0] = 99;
+        assertThrows(IOException.class, () -> SessionCodec.decode(record, SURGEON, SNAPSHOT));
+        assertThrows(IOException.class, () -> SessionCodec.readSavedAt(record));
+    }
+
+    @Test
+    void anUnknownDiagnosisIsRefused() throws IOException {
+        SurgerySession session = new SurgerySession(SURGEON, SNAPSHOT, 1, new SurgeryMoveLog());
+        session.setPatientName("Patient");
+        SurgeryRules.setUp(session, BuiltInTool.startingTools());
+        session.setDiagnosis(new DiagnosisProfile("Removed From Config", false, DiagnosisProfile.UNSET, false, 0, 0));
+
+        byte[] record = SessionCodec.encode(session, "Surgeon", 0);
+        assertThrows(IOException.class, () -> SessionCodec.decode(record, SURGEON, SNAPSHOT));
+    }
+
+    private static void assertRecordedState(SurgerySession session) {
+        assertEquals("Patient", session.getPatientName());
+        assertEquals(DIAGNOSIS, session.getDiagnosis());
+        assertEquals(Pulse.WEAK, session.getPulse());
+        assertEquals(PatientStatus.UNCONSCIOUS, session.getStatus());
+        assertEquals(101.5, session.getTemperature());
+        assertEquals(OperationSite.CLEAN, session.getOperationSite());
+        assertEquals(2, session.getIncisions());
+        assertTrue(session.isBleeding());
+        assertEquals(6, session.getMoveCount());
+        assertEquals(3, session.getRedTempCounter());
+    }
+
+    // ==============================================
+    // A record laid out the way the given version of the codec wrote it
+    // ==============================================
+    private static byte[] record(int version) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(version);
+            out.writeLong(5_000);
+            if (version >= 2) {
+                out.writeLong(1_000);
+            }
+            if (version >= 3) {
+                out.writeLong(77);
+                out.writeInt(2);
+                out.write(new byte[] { 34, 32 });
+            }
+            out.writeUTF("Surgeon");
+            out.writeUTF("Patient");
+            if (version >= 4) {
+                out.writeBoolean(true);
+                out.writeLong(PATIENT.getMostSignificantBits());
+                out.writeLong(PATIENT.getLeastSignificantBits());
+            }
+            out.writeLong(BuiltInTool.startingTools());
+            out.writeLong(1L << 34);
+            out.writeBoolean(true);
+            out.writeUTF(DIAGNOSIS.getName());
+            out.writeUTF(Pulse.WEAK.name());
+            out.writeUTF(PatientStatus.UNCONSCIOUS.name());
+            out.writeDouble(101.5);
+            out.writeUTF(OperationSite.CLEAN.name());
+            out.writeInt(2);
+            out.writeUTF("");
+            out.writeBoolean(true);
+            for (int i = 0; i < 5; i++) {
+                out.writeInt(0);
+            }
+            out.writeBoolean(false);
+            out.writeInt(0);
+            out.writeBoolean(false);
+            out.writeBoolean(false);
+            out.writeInt(6);
+            out.writeInt(1);
+            out.writeBoolean(true);
+            out.writeInt(-1);
+            out.writeBoolean(true);
+            out.writeInt(0);
+            out.writeInt(3);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
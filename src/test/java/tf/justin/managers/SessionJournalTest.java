@@ -0,0 +1,145 @@
+package tfmc.justin.managers;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// ==============================================
+// A crash can leave the journal with a torn or damaged last record; the
+// records before it must still load and the journal must stay usable
+// ==============================================
+class SessionJournalTest {
+
+    private static final Logger LOGGER = Logger.getLogger("SessionJournalTest");
+    private static final UUID FIRST = new UUID(0, 1);
+    private static final UUID SECOND = new UUID(0, 2);
+    private static final UUID THIRD = new UUID(0, 3);
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void savedRecordsComeBackAfterARestart() throws IOException {
+        File file = folder.resolve("sessions.journal").toFile();
+        SessionJournal journal = start(file);
+        journal.save(FIRST, bytes(1));
+        journal.save(SECOND, bytes(2));
+        journal.save(SECOND, bytes(3));
+        journal.close();
+
+        Map<UUID, byte[]> live = load(file);
+        assertEquals(2, live.size());
+        assertArrayEquals(bytes(1), live.get(FIRST));
+        assertArrayEquals(bytes(3), live.get(SECOND));
+    }
+
+    @Test
+    void removedRecordsStayRemoved() throws IOException {
+        File file = folder.resolve("sessions.journal").toFile();
+        SessionJournal journal = start(file);
+        journal.save(FIRST, bytes(1));
+        journal.close();
+
+        journal = start(file);
+        journal.remove(FIRST);
+        journal.close();
+
+        assertTrue(load(file).isEmpty());
+    }
+
+    @Test
+    void aTornLastRecordIsDroppedAndTheRestLoads() throws IOException {
+        File file = journalOfTwo();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 3);
+        }
+
+        SessionJournal journal = new SessionJournal(file, LOGGER, 10);
+        Map<UUID, byte[]> live = journal.open();
+        assertEquals(1, live.size());
+        assertArrayEquals(bytes(1), live.get(FIRST));
+
+        // The rewrite on open leaves nothing torn behind for the next record
+        journal.save(THIRD, bytes(3));
+        journal.close();
+        live = load(file);
+        assertEquals(2, live.size());
+        assertArrayEquals(bytes(3), live.get(THIRD));
+    }
+
+    @Test
+    void aDamagedLastRecordIsDroppedAndTheRestLoads() throws IOException {
+        File file = journalOfTwo();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.seek(raf.length() - 1);
+            int last = raf.read();
+            raf.seek(raf.length() - 1);
+            raf.write(last ^ 0xff);
+        }
+
+        Map<UUID, byte[]> live = load(file);
+        assertEquals(1, live.size());
+        assertArrayEquals(bytes(1), live.get(FIRST));
+    }
+
+    @Test
+    void aFileThatIsNotAJournalIsIgnored() throws IOException {
+        File file = folder.resolve("sessions.journal").toFile();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.writeBytes("not a journal");
+        }
+
+        SessionJournal journal = new SessionJournal(file, LOGGER, 10);
+        assertTrue(journal.open().isEmpty());
+        journal.save(FIRST, bytes(1));
+        journal.close();
+        assertArrayEquals(bytes(1), load(file).get(FIRST));
+    }
+
+    // ==============================================
+    // A journal whose file ends with FIRST's record, then SECOND's
+    // ==============================================
+    private File journalOfTwo() throws IOException {
+        File file = folder.resolve("sessions.journal").toFile();
+        SessionJournal journal = start(file);
+        journal.save(FIRST, bytes(1));
+        journal.close();
+
+        journal = start(file);
+        journal.save(SECOND, bytes(2));
+        journal.close();
+        return file;
+    }
+
+    private static SessionJournal start(File file) throws IOException {
+        SessionJournal journal = new SessionJournal(file, LOGGER, 10);
+        journal.open();
+        return journal;
+    }
+
+    // Opens the journal as the plugin would after a restart, then closes it
+    private static Map<UUID, byte[]> load(File file) throws IOException {
+        SessionJournal journal = new SessionJournal(file, LOGGER, 10);
+        Map<UUID, byte[]> live = journal.open();
+        journal.close();
+        return live;
+    }
+
+    private static byte[] bytes(int value) {
+        byte[] record = new byte[32];
+        record[0] = (byte) value;
+        record[31] = (byte) value;
+        return record;
+    }
+}
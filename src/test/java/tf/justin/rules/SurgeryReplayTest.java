@@ -0,0 +1,109 @@
+package tfmc.justin.rules;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// ==============================================
+// A seed and the slots clicked must play a surgery back exactly, since
+// /surgery replay and the simulator both rely on it
+// ==============================================
+class SurgeryReplayTest {
+
+    private static final int MAX_MOVES = 200;
+
+    @Test
+    void replayingTheRecordedMovesPlaysTheSameSurgery() {
+        SplittableRandom picks = new SplittableRandom(1);
+        for (long seed = 0; seed < 500; seed++) {
+            SurgeryState played = newPatient(seed);
+            List<String> playedSteps = new ArrayList<>();
+            while (!played.isOver() && played.getMoves().size() < MAX_MOVES) {
+                playedSteps.add(play(played, pickTool(played, picks)));
+            }
+
+            SurgeryState replayed = newPatient(seed);
+            SurgeryMoveLog moves = SurgeryMoveLog.of(played.getMoves().toByteArray());
+            for (int i = 0; i < moves.size(); i++) {
+                assertEquals(playedSteps.get(i), play(replayed, moves.get(i)), "seed " + seed + ", move " + (i + 1));
+            }
+            assertEquals(played.getResultKey(), replayed.getResultKey(), "seed " + seed);
+        }
+    }
+
+    @Test
+    void theSameSeedSetsUpTheSamePatient() {
+        for (long seed = 0; seed < 100; seed++) {
+            assertEquals(describe(newPatient(seed)), describe(newPatient(seed)));
+        }
+    }
+
+    @Test
+    void movesDoNotReuseEachOthersRolls() {
+        SurgeryState state = newPatient(7);
+        List<Long> rolls = new ArrayList<>();
+        for (int move = 0; move < 50; move++) {
+            state.beginMove(BuiltInTool.ULTRASOUND.getSlot());
+            for (int i = 0; i < 4; i++) {
+                long roll = state.getRandom().nextLong();
+                assertFalse(rolls.contains(roll), "move " + (move + 1) + " repeats a roll");
+                rolls.add(roll);
+            }
+        }
+    }
+
+    // ==============================================
+    // Surgeries recorded against the bundled config.yml. A change to the
+    // rules or the config that alters how they end must be deliberate
+    // ==============================================
+    @Test
+    void recordedSurgeriesStillEndTheSameWay() {
+        assertRecorded(7, new byte[] { 38, 34, 32, 29, 33, 32, 37, 31, 30, 30, 43, 43, 32, 32 },
+            "Lung Tumor", SurgeryRules.SUCCESS_KEY);
+        assertRecorded(45, new byte[] { 38, 38, 34, 34, 37, 31, 34, 31, 32, 32, 39, 39 },
+            "Arcane Infection", "failure-not-resuscitated");
+    }
+
+    private static void assertRecorded(long seed, byte[] slots, String diagnosis, String resultKey) {
+        SurgeryState state = newPatient(seed);
+        for (int i = 0; i < slots.length; i++) {
+            assertNull(state.getResultKey(), "seed " + seed + " ended before move " + (i + 1));
+            play(state, slots[i]);
+        }
+        assertEquals(diagnosis, state.getDiagnosis().getName());
+        assertEquals(resultKey, state.getResultKey());
+    }
+
+    private static SurgeryState newPatient(long seed) {
+        SurgeryState state = new SurgeryState(TestConfig.TUNING, TestConfig.DIAGNOSES, seed, new SurgeryMoveLog());
+        SurgeryRules.setUp(state, BuiltInTool.startingTools());
+        return state;
+    }
+
+    private static int pickTool(SurgeryState state, SplittableRandom picks) {
+        long tools = state.getToolsInMenu();
+        int pick = picks.nextInt(Long.bitCount(tools));
+        for (int i = 0; i < pick; i++) {
+            tools &= tools - 1;
+        }
+        return Long.numberOfTrailingZeros(tools);
+    }
+
+    // Plays the tool in the slot and describes what it did
+    private static String play(SurgeryState state, int slot) {
+        MoveResult result = SurgeryRules.play(state, slot, BuiltInTool.bySlot(slot));
+        return result.getMessageKeys() + " " + describe(state);
+    }
+
+    private static String describe(SurgeryState state) {
+        return state.getPulse() + " " + state.getStatus() + " " + state.getTemperature() + " " + state.getOperationSite()
+            + " " + state.getIncisions() + " " + state.isBleeding() + " " + state.getToolsInMenu()
+            + " " + (state.hasDiagnosis() ? state.getDiagnosis().getName() : "-") + " " + state.getResultKey();
+    }
+}
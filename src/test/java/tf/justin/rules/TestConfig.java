@@ -0,0 +1,30 @@
+package tfmc.justin.rules;
+
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+// ==============================================
+// The bundled config.yml, compiled the way the plugin compiles it
+// ==============================================
+public final class TestConfig {
+
+    public static final YamlConfiguration CONFIG = load();
+    public static final SurgeryTuning TUNING = SurgeryTuning.fromConfig(CONFIG);
+    public static final DiagnosisIndex DIAGNOSES = DiagnosisIndex.fromConfig(CONFIG);
+
+    private TestConfig() {
+    }
+
+    private static YamlConfiguration load() {
+        try (InputStream in = TestConfig.class.getResourceAsStream("/config.yml")) {
+            return YamlConfiguration.loadConfiguration(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}